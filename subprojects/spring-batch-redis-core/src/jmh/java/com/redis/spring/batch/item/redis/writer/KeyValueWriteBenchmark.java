@@ -0,0 +1,195 @@
+package com.redis.spring.batch.item.redis.writer;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.redis.lettucemod.api.async.RedisModulesAsyncCommands;
+import com.redis.spring.batch.item.redis.common.DataType;
+import com.redis.spring.batch.item.redis.common.KeyValue;
+import com.redis.spring.batch.item.redis.common.Operation;
+
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.ScoredValue;
+import io.lettuce.core.api.async.RedisAsyncCommands;
+
+/**
+ * Compares the single-pass dispatch of {@link KeyValueWrite#execute} with the
+ * previous three-pass stream dispatch. Commands are sent to a no-op stub so
+ * only dispatch cost is measured. Both dispatch to the same write operations,
+ * whose own allocations are included in both results. Run with {@code ./gradlew
+ * :spring-batch-redis-core:jmh}; the gc profiler reports allocation rates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class KeyValueWriteBenchmark {
+
+	@Param({ "50", "1000" })
+	private int chunkSize;
+
+	@Param({ "false", "true" })
+	private boolean fusion;
+
+	private final KeyValueWrite<String, String> write = new KeyValueWrite<>();
+	private final Baseline<String, String> baseline = new Baseline<>(write);
+	private RedisAsyncCommands<String, String> commands;
+	private List<KeyValue<String, Object>> items;
+
+	@SuppressWarnings("unchecked")
+	@Setup
+	public void setup() {
+		write.setFusion(fusion);
+		commands = (RedisAsyncCommands<String, String>) Proxy.newProxyInstance(getClass().getClassLoader(),
+				new Class<?>[] { RedisModulesAsyncCommands.class }, (proxy, method, args) -> null);
+		DataType[] types = { DataType.STRING, DataType.STRING, DataType.HASH, DataType.SET, DataType.ZSET,
+				DataType.LIST };
+		items = new ArrayList<>();
+		for (int index = 0; index < chunkSize; index++) {
+			DataType type = types[index % types.length];
+			KeyValue<String, Object> item = new KeyValue<>();
+			item.setKey("key:" + index);
+			item.setType(type.getString());
+			item.setTime(System.currentTimeMillis());
+			item.setTtl(index % 2 == 0 ? 100000 : KeyValue.TTL_NONE);
+			item.setValue(value(type, index));
+			items.add(item);
+		}
+	}
+
+	private Object value(DataType type, int index) {
+		switch (type) {
+		case HASH:
+			Map<String, String> hash = new HashMap<>();
+			hash.put("field1", "value" + index);
+			hash.put("field2", "value" + index);
+			return hash;
+		case SET:
+		case LIST:
+			return Arrays.asList("member1", "member2", "member" + index);
+		case ZSET:
+			return Arrays.asList(ScoredValue.just(1, "member1"), ScoredValue.just(index, "member" + index));
+		default:
+			return "value" + index;
+		}
+	}
+
+	@Benchmark
+	public List<RedisFuture<Object>> singlePass() {
+		return write.execute(commands, items);
+	}
+
+	@Benchmark
+	public List<RedisFuture<Object>> baseline() {
+		return baseline.execute(commands, items);
+	}
+
+	/**
+	 * Dispatch of {@link KeyValueWrite#execute} before it was made single-pass,
+	 * copied as is except that operations and settings are taken from the write
+	 * under test.
+	 */
+	private static class Baseline<K, V> {
+
+		private final KeyValueWrite<K, V> write;
+
+		private Baseline(KeyValueWrite<K, V> write) {
+			this.write = write;
+		}
+
+		public List<RedisFuture<Object>> execute(RedisAsyncCommands<K, V> commands,
+				Iterable<? extends KeyValue<K, Object>> items) {
+			List<RedisFuture<Object>> futures = new ArrayList<>();
+			futures.addAll(write.getDelete().execute(commands, toDelete(items)));
+			groupByOperation(items).forEach((k, v) -> futures.addAll(k.execute(commands, v)));
+			if (write.isFusion()) {
+				futures.addAll(write.getSetPxAt().execute(commands, strings(items, true)));
+				futures.addAll(write.getMset().execute(commands, strings(items, false)));
+			}
+			futures.addAll(write.getExpire().execute(commands, toExpire(items)));
+			return futures;
+		}
+
+		private List<KeyValue<K, Object>> strings(Iterable<? extends KeyValue<K, Object>> items, boolean ttl) {
+			return stream(items).filter(this::isFused).filter(t -> KeyValue.hasTtl(t) == ttl)
+					.collect(Collectors.toList());
+		}
+
+		private boolean isFused(KeyValue<K, Object> item) {
+			return write.isFusion() && KeyValue.exists(item) && KeyValue.type(item) == DataType.STRING;
+		}
+
+		private List<KeyValue<K, Object>> toExpire(Iterable<? extends KeyValue<K, Object>> items) {
+			return stream(items).filter(KeyValue::hasTtl).filter(t -> !isFused(t)).collect(Collectors.toList());
+		}
+
+		private List<KeyValue<K, Object>> toDelete(Iterable<? extends KeyValue<K, Object>> items) {
+			return stream(items).filter(this::shouldDelete).filter(t -> !isFused(t)).collect(Collectors.toList());
+		}
+
+		private Map<Operation<K, V, KeyValue<K, Object>, Object>, List<KeyValue<K, Object>>> groupByOperation(
+				Iterable<? extends KeyValue<K, Object>> items) {
+			return stream(items).filter(KeyValue::exists).filter(t -> !isFused(t))
+					.collect(Collectors.groupingBy(this::operation));
+		}
+
+		private Stream<? extends KeyValue<K, Object>> stream(Iterable<? extends KeyValue<K, Object>> items) {
+			return StreamSupport.stream(items.spliterator(), false);
+		}
+
+		private Operation<K, V, KeyValue<K, Object>, Object> operation(KeyValue<K, Object> item) {
+			DataType type = KeyValue.type(item);
+			if (type == null) {
+				return write.getNoop();
+			}
+			switch (type) {
+			case HASH:
+				return write.getHset();
+			case JSON:
+				return write.getJsonSet();
+			case LIST:
+				return write.getRpush();
+			case SET:
+				return write.getSadd();
+			case STREAM:
+				return write.getXadd();
+			case STRING:
+				return write.getSet();
+			case TIMESERIES:
+				return write.getTsAdd();
+			case ZSET:
+				return write.getZadd();
+			default:
+				return write.getNoop();
+			}
+		}
+
+		private boolean shouldDelete(KeyValue<K, Object> item) {
+			return write.getMode() == KeyValueWrite.WriteMode.OVERWRITE || !KeyValue.exists(item);
+		}
+
+	}
+
+}
@@ -1,13 +1,20 @@
 package com.redis.spring.batch.item.redis;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
 import java.time.Duration;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
-import java.util.function.BiPredicate;
+import java.util.concurrent.TimeoutException;
 
 import org.springframework.batch.core.step.builder.SimpleStepBuilder;
 import org.springframework.batch.item.ItemReader;
+import org.springframework.batch.item.ItemStreamException;
 import org.springframework.batch.item.ItemWriter;
 import org.springframework.batch.item.support.IteratorItemReader;
 import org.springframework.util.Assert;
@@ -17,11 +24,21 @@ import com.redis.lettucemod.api.StatefulRedisModulesConnection;
 import com.redis.spring.batch.item.AbstractAsyncItemReader;
 import com.redis.spring.batch.item.BlockingQueueItemWriter;
 import com.redis.spring.batch.item.redis.common.BatchUtils;
+import com.redis.spring.batch.item.redis.common.ConcurrencyLimiter;
+import com.redis.spring.batch.item.redis.common.DedupBlockingQueue;
 import com.redis.spring.batch.item.redis.common.KeyValue;
 import com.redis.spring.batch.item.redis.common.Operation;
 import com.redis.spring.batch.item.redis.common.OperationExecutor;
+import com.redis.spring.batch.item.redis.common.RateLimiter;
+import com.redis.spring.batch.item.redis.common.RedisHealthMonitor;
+import com.redis.spring.batch.item.redis.reader.DigestIndex;
+import com.redis.spring.batch.item.redis.reader.HotKeyPolicy;
+import com.redis.spring.batch.item.redis.reader.IncrementalDumpRead;
+import com.redis.spring.batch.item.redis.reader.KeyChangeRead;
+import com.redis.spring.batch.item.redis.reader.KeyChanges;
 import com.redis.spring.batch.item.redis.reader.KeyNotification;
 import com.redis.spring.batch.item.redis.reader.KeyNotificationItemReader;
+import com.redis.spring.batch.item.redis.reader.KeyNotificationSource;
 import com.redis.spring.batch.item.redis.reader.KeyNotificationStatus;
 import com.redis.spring.batch.item.redis.reader.KeyScanNotificationItemReader;
 import com.redis.spring.batch.item.redis.reader.KeyValueRead;
@@ -30,12 +47,12 @@ import com.redis.spring.batch.step.FlushingChunkProvider;
 import com.redis.spring.batch.step.FlushingStepBuilder;
 
 import io.lettuce.core.AbstractRedisClient;
-import io.lettuce.core.KeyScanArgs;
 import io.lettuce.core.ReadFrom;
-import io.lettuce.core.ScanIterator;
 import io.lettuce.core.codec.ByteArrayCodec;
 import io.lettuce.core.codec.RedisCodec;
 import io.lettuce.core.codec.StringCodec;
+import io.netty.buffer.ByteBuf;
+import io.netty.util.ReferenceCountUtil;
 
 public class RedisItemReader<K, V, T> extends AbstractAsyncItemReader<K, KeyValue<K, T>> {
 
@@ -45,35 +62,59 @@ public class RedisItemReader<K, V, T> extends AbstractAsyncItemReader<K, KeyValu
 
 	public static final int DEFAULT_POOL_SIZE = OperationExecutor.DEFAULT_POOL_SIZE;
 	public static final int DEFAULT_NOTIFICATION_QUEUE_CAPACITY = KeyNotificationItemReader.DEFAULT_QUEUE_CAPACITY;
+	public static final int DEFAULT_DROPPED_KEY_CAPACITY = KeyNotificationItemReader.DEFAULT_DROPPED_KEY_CAPACITY;
+	public static final Duration DEFAULT_RECOVERY_SCAN_INTERVAL = KeyNotificationItemReader.DEFAULT_RECOVERY_SCAN_INTERVAL;
+	public static final Duration DEFAULT_NOTIFICATION_QUIET_PERIOD = KeyNotificationItemReader.DEFAULT_QUIET_PERIOD;
+	public static final Duration DEFAULT_NOTIFICATION_MAX_DELAY = KeyNotificationItemReader.DEFAULT_MAX_DELAY;
+	public static final HotKeyPolicy DEFAULT_HOT_KEY_POLICY = KeyNotificationItemReader.DEFAULT_HOT_KEY_POLICY;
+	public static final Duration DEFAULT_HOT_KEY_DELAY = KeyNotificationItemReader.DEFAULT_HOT_KEY_DELAY;
+	public static final long DEFAULT_SPILL_CAPACITY = KeyNotificationItemReader.DEFAULT_SPILL_CAPACITY;
+	public static final KeyNotificationSource DEFAULT_NOTIFICATION_SOURCE = KeyNotificationItemReader.DEFAULT_SOURCE;
 	public static final ReaderMode DEFAULT_MODE = ReaderMode.SCAN;
 	public static final int DEFAULT_QUEUE_CAPACITY = 10000;
 	public static final Duration DEFAULT_FLUSH_INTERVAL = FlushingChunkProvider.DEFAULT_FLUSH_INTERVAL;
 	public static final Duration DEFAULT_IDLE_TIMEOUT = FlushingChunkProvider.DEFAULT_IDLE_TIMEOUT;
 
 	private final RedisCodec<K, V> codec;
-	private final BiPredicate<K, K> keyEquals;
 	private final Operation<K, V, K, KeyValue<K, T>> operation;
+	private final KeyChanges<K> keyChanges;
 
 	private Duration flushInterval = DEFAULT_FLUSH_INTERVAL;
 	private Duration idleTimeout = DEFAULT_IDLE_TIMEOUT;
 	private ReaderMode mode = DEFAULT_MODE;
 	private int poolSize = DEFAULT_POOL_SIZE;
+	private ConcurrencyLimiter concurrencyLimiter;
+	private RateLimiter rateLimiter;
+	private RedisHealthMonitor healthMonitor;
 	private int queueCapacity = DEFAULT_QUEUE_CAPACITY;
 	private int notificationQueueCapacity = DEFAULT_NOTIFICATION_QUEUE_CAPACITY;
+	private int droppedKeyCapacity = DEFAULT_DROPPED_KEY_CAPACITY;
+	private Duration recoveryScanInterval = DEFAULT_RECOVERY_SCAN_INTERVAL;
+	private Duration notificationQuietPeriod = DEFAULT_NOTIFICATION_QUIET_PERIOD;
+	private Duration notificationMaxDelay = DEFAULT_NOTIFICATION_MAX_DELAY;
+	private KeyNotificationSource notificationSource = DEFAULT_NOTIFICATION_SOURCE;
+	private boolean skipMetadataReads;
+	private int hotKeyThreshold;
+	private HotKeyPolicy hotKeyPolicy = DEFAULT_HOT_KEY_POLICY;
+	private Duration hotKeyDelay = DEFAULT_HOT_KEY_DELAY;
+	private Path spillDirectory;
+	private long spillCapacity = DEFAULT_SPILL_CAPACITY;
 	private ReadFrom readFrom;
-	private String keyPattern;
-	private String keyType;
+	private Set<String> keyPatterns = Collections.emptySet();
+	private Set<String> keyTypes = Collections.emptySet();
 	private long scanCount;
 	private int database;
 
 	private AbstractRedisClient client;
-	private BlockingQueue<KeyValue<K, T>> queue;
+	private DedupBlockingQueue<KeyValue<K, T>> queue;
+	private DigestIndex digestIndex;
+	private Iterator<ByteBuffer> removedKeys;
 
 	public RedisItemReader(RedisCodec<K, V> codec, Operation<K, V, K, KeyValue<K, T>> operation) {
 		setName(ClassUtils.getShortName(getClass()));
 		this.codec = codec;
-		this.keyEquals = BatchUtils.keyEqualityPredicate(codec);
 		this.operation = operation;
+		this.keyChanges = new KeyChanges<>(codec);
 	}
 
 	public Operation<K, V, K, KeyValue<K, T>> getOperation() {
@@ -127,7 +168,8 @@ public class RedisItemReader<K, V, T> extends AbstractAsyncItemReader<K, KeyValu
 	}
 
 	private IteratorItemReader<K> scanReader() {
-		return new IteratorItemReader<>(ScanIterator.scan(connection().sync(), scanArgs()));
+		return new IteratorItemReader<>(
+				BatchUtils.scan(connection().sync(), codec, scanCount, keyPatterns, keyTypes));
 	}
 
 	private KeyNotificationItemReader<K, V> notificationReader() {
@@ -139,61 +181,158 @@ public class RedisItemReader<K, V, T> extends AbstractAsyncItemReader<K, KeyValu
 	private void configure(KeyNotificationItemReader<K, V> reader) {
 		reader.setName(getName() + "-key-reader");
 		reader.setQueueCapacity(notificationQueueCapacity);
+		reader.setDroppedKeyCapacity(droppedKeyCapacity);
+		reader.setRecoveryScanInterval(recoveryScanInterval);
+		reader.setQuietPeriod(notificationQuietPeriod);
+		reader.setMaxDelay(notificationMaxDelay);
+		reader.setSource(notificationSource);
+		// Renamed keys may not be on the target yet while the scan is running
+		keyChanges.setRenames(mode == ReaderMode.LIVEONLY);
+		reader.setKeyChanges(skipMetadataReads ? keyChanges : null);
+		reader.setHotKeyThreshold(hotKeyThreshold);
+		reader.setHotKeyPolicy(hotKeyPolicy);
+		reader.setHotKeyDelay(hotKeyDelay);
+		reader.setSpillDirectory(spillDirectory);
+		reader.setSpillCapacity(spillCapacity);
 		reader.setDatabase(database);
-		reader.setKeyPattern(keyPattern);
-		reader.setKeyType(keyType);
+		reader.setKeyPatterns(keyPatterns);
+		reader.setKeyTypes(keyTypes);
 		reader.setPollTimeout(pollTimeout);
 		reader.addListener(this::keyNotification);
 	}
 
 	private void keyNotification(KeyNotification<K> notification, KeyNotificationStatus status) {
-		if (status == KeyNotificationStatus.ACCEPTED) {
-			queue.removeIf(t -> keyEquals.test(t.getKey(), notification.getKey()));
+		if (status == KeyNotificationStatus.ACCEPTED || status == KeyNotificationStatus.SPILLED) {
+			// Value read before this event is stale
+			KeyValue<K, T> stale = queue.removeKey(notification.getKey());
+			if (stale != null) {
+				ReferenceCountUtil.release(stale.getValue());
+			}
+		}
+	}
+
+	@Override
+	protected synchronized void doOpen() throws Exception {
+		if (digestIndex != null) {
+			Assert.isTrue(mode == ReaderMode.SCAN, "Incremental sync requires scan mode");
+			digestIndex.open();
+			removedKeys = null;
+		}
+		super.doOpen();
+	}
+
+	@Override
+	protected synchronized void doClose() throws TimeoutException, InterruptedException {
+		super.doClose();
+		if (queue != null) {
+			// Values left unread may hold pooled buffers
+			queue.forEach(t -> ReferenceCountUtil.release(t.getValue()));
+			queue.clear();
+		}
+		if (digestIndex != null) {
+			try {
+				if (removedKeys != null && !removedKeys.hasNext()) {
+					digestIndex.commit();
+				} else {
+					// Scan did not complete: keep the previous index
+					digestIndex.close();
+				}
+			} catch (IOException e) {
+				throw new ItemStreamException("Could not close digest index", e);
+			}
 		}
 	}
 
 	@Override
 	protected KeyValue<K, T> doPoll(long timeout, TimeUnit unit) throws InterruptedException {
-		return queue.poll(timeout, unit);
+		KeyValue<K, T> item = queue.poll(timeout, unit);
+		if (item == null && digestIndex != null && super.isComplete()) {
+			return removedKey();
+		}
+		return item;
+	}
+
+	/**
+	 * Once the scan is complete, keys from the previous run's digest index that
+	 * were not seen are emitted as deleted keys.
+	 */
+	private synchronized KeyValue<K, T> removedKey() {
+		if (removedKeys == null) {
+			removedKeys = digestIndex.removedKeys();
+		}
+		if (!removedKeys.hasNext()) {
+			return null;
+		}
+		KeyValue<K, T> keyValue = new KeyValue<>();
+		keyValue.setKey(codec.decodeKey(removedKeys.next()));
+		keyValue.setTtl(KeyValue.TTL_NO_KEY);
+		return keyValue;
+	}
+
+	@Override
+	public boolean isComplete() {
+		return super.isComplete() && (digestIndex == null || (removedKeys != null && !removedKeys.hasNext()));
 	}
 
 	@Override
 	protected ItemWriter<K> writer() {
-		queue = new LinkedBlockingQueue<>(queueCapacity);
+		queue = new DedupBlockingQueue<>(queueCapacity, KeyValue::getKey);
+		queue.setDiscardListener(t -> ReferenceCountUtil.release(t.getValue()));
 		return new BlockingQueueItemWriter<>(operationExecutor(), queue);
 	}
 
 	public OperationExecutor<K, V, K, KeyValue<K, T>> operationExecutor() {
 		Assert.notNull(client, getName() + ": Redis client not set");
-		OperationExecutor<K, V, K, KeyValue<K, T>> executor = new OperationExecutor<>(codec, operation);
+		OperationExecutor<K, V, K, KeyValue<K, T>> executor = new OperationExecutor<>(codec, readOperation());
 		executor.setClient(client);
 		executor.setPoolSize(poolSize);
 		executor.setReadFrom(readFrom);
+		executor.setConcurrencyLimiter(concurrencyLimiter);
+		executor.setRateLimiter(rateLimiter);
+		executor.setHealthMonitor(healthMonitor);
 		return executor;
 	}
 
-	private StatefulRedisModulesConnection<K, V> connection() {
-		return BatchUtils.connection(client, codec, readFrom);
+	private Operation<K, V, K, KeyValue<K, T>> readOperation() {
+		if (!skipMetadataReads || mode == ReaderMode.SCAN) {
+			return operation;
+		}
+		return new KeyChangeRead<>(operation, keyChanges);
 	}
 
-	private KeyScanArgs scanArgs() {
-		KeyScanArgs args = new KeyScanArgs();
-		if (scanCount > 0) {
-			args.limit(scanCount);
-		}
-		if (keyPattern != null) {
-			args.match(keyPattern);
-		}
-		if (keyType != null) {
-			args.type(keyType);
-		}
-		return args;
+	private StatefulRedisModulesConnection<K, V> connection() {
+		return BatchUtils.connection(client, codec, readFrom);
 	}
 
 	public static RedisItemReader<byte[], byte[], byte[]> dump() {
 		return new RedisItemReader<>(ByteArrayCodec.INSTANCE, KeyValueRead.dump(ByteArrayCodec.INSTANCE));
 	}
 
+	/**
+	 * 
+	 * @param index digest index of the previous run. Set it on the writer too
+	 *              (see {@link RedisItemWriter#setDigestIndex(DigestIndex)}) so
+	 *              that changed keys are recorded once written.
+	 * @return reader that only emits keys that were added, changed or deleted
+	 *         since the previous run
+	 */
+	public static RedisItemReader<byte[], byte[], byte[]> dump(DigestIndex index) {
+		RedisItemReader<byte[], byte[], byte[]> reader = new RedisItemReader<>(ByteArrayCodec.INSTANCE,
+				new IncrementalDumpRead<>(ByteArrayCodec.INSTANCE, index));
+		reader.digestIndex = index;
+		return reader;
+	}
+
+	/**
+	 * 
+	 * @return reader that keeps DUMP payloads in pooled buffers instead of byte
+	 *         arrays. Use with {@link RedisItemWriter#dumpBuffer()}, which
+	 *         releases them once restored.
+	 */
+	public static RedisItemReader<byte[], byte[], ByteBuf> dumpBuffer() {
+		return new RedisItemReader<>(ByteArrayCodec.INSTANCE, KeyValueRead.dumpBuffer(ByteArrayCodec.INSTANCE));
+	}
+
 	public static RedisItemReader<String, String, Object> type() {
 		return type(StringCodec.UTF8);
 	}
@@ -210,6 +349,10 @@ public class RedisItemReader<K, V, T> extends AbstractAsyncItemReader<K, KeyValu
 		return new RedisItemReader<>(codec, new KeyValueStructRead<>(codec));
 	}
 
+	public DigestIndex getDigestIndex() {
+		return digestIndex;
+	}
+
 	public RedisCodec<K, V> getCodec() {
 		return codec;
 	}
@@ -230,20 +373,82 @@ public class RedisItemReader<K, V, T> extends AbstractAsyncItemReader<K, KeyValu
 		this.poolSize = size;
 	}
 
+	public ConcurrencyLimiter getConcurrencyLimiter() {
+		return concurrencyLimiter;
+	}
+
+	public void setConcurrencyLimiter(ConcurrencyLimiter limiter) {
+		this.concurrencyLimiter = limiter;
+	}
+
+	public RedisHealthMonitor getHealthMonitor() {
+		return healthMonitor;
+	}
+
+	public void setHealthMonitor(RedisHealthMonitor monitor) {
+		this.healthMonitor = monitor;
+	}
+
+	public RateLimiter getRateLimiter() {
+		return rateLimiter;
+	}
+
+	/**
+	 * 
+	 * @param limiter rate limiter for commands and payload bytes. Its rates can be
+	 *                changed while the job is running.
+	 */
+	public void setRateLimiter(RateLimiter limiter) {
+		this.rateLimiter = limiter;
+	}
+
+	/**
+	 * @return first key pattern, or null if all keys are read
+	 * @deprecated use {@link #getKeyPatterns()}
+	 */
+	@Deprecated
 	public String getKeyPattern() {
-		return keyPattern;
+		return keyPatterns.isEmpty() ? null : keyPatterns.iterator().next();
+	}
+
+	public Set<String> getKeyPatterns() {
+		return keyPatterns;
+	}
+
+	/**
+	 * @param patterns keys to read, all keys if empty. All patterns share one
+	 *                 scan, subscription and queue.
+	 */
+	public void setKeyPatterns(Collection<String> patterns) {
+		this.keyPatterns = new LinkedHashSet<>(patterns);
 	}
 
 	public void setKeyPattern(String pattern) {
-		this.keyPattern = pattern;
+		setKeyPatterns(pattern == null ? Collections.emptySet() : Collections.singleton(pattern));
 	}
 
+	/**
+	 * @return first key type, or null if all types are read
+	 * @deprecated use {@link #getKeyTypes()}
+	 */
+	@Deprecated
 	public String getKeyType() {
-		return keyType;
+		return keyTypes.isEmpty() ? null : keyTypes.iterator().next();
+	}
+
+	public Set<String> getKeyTypes() {
+		return keyTypes;
+	}
+
+	/**
+	 * @param types key types to read, all types if empty
+	 */
+	public void setKeyTypes(Collection<String> types) {
+		this.keyTypes = new LinkedHashSet<>(types);
 	}
 
 	public void setKeyType(String type) {
-		this.keyType = type;
+		setKeyTypes(type == null ? Collections.emptySet() : Collections.singleton(type));
 	}
 
 	public long getScanCount() {
@@ -270,6 +475,116 @@ public class RedisItemReader<K, V, T> extends AbstractAsyncItemReader<K, KeyValu
 		this.notificationQueueCapacity = capacity;
 	}
 
+	public int getDroppedKeyCapacity() {
+		return droppedKeyCapacity;
+	}
+
+	public void setDroppedKeyCapacity(int capacity) {
+		this.droppedKeyCapacity = capacity;
+	}
+
+	public Duration getRecoveryScanInterval() {
+		return recoveryScanInterval;
+	}
+
+	/**
+	 * @param interval minimum time between two full keyspace scans recovering
+	 *                 dropped keys of a standalone server
+	 */
+	public void setRecoveryScanInterval(Duration interval) {
+		this.recoveryScanInterval = interval;
+	}
+
+	public Duration getNotificationQuietPeriod() {
+		return notificationQuietPeriod;
+	}
+
+	public void setNotificationQuietPeriod(Duration period) {
+		this.notificationQuietPeriod = period;
+	}
+
+	public Duration getNotificationMaxDelay() {
+		return notificationMaxDelay;
+	}
+
+	public void setNotificationMaxDelay(Duration delay) {
+		this.notificationMaxDelay = delay;
+	}
+
+	public KeyNotificationSource getNotificationSource() {
+		return notificationSource;
+	}
+
+	public void setNotificationSource(KeyNotificationSource source) {
+		this.notificationSource = source;
+	}
+
+	public boolean isSkipMetadataReads() {
+		return skipMetadataReads;
+	}
+
+	/**
+	 * 
+	 * @param skip if true, keys whose notifications show that only their metadata
+	 *             changed are not read: deletions, expirations and evictions are
+	 *             written as deletions, TTL changes as PEXPIREAT or PERSIST and, in
+	 *             {@link ReaderMode#LIVEONLY} mode, renames as RENAME. Requires a
+	 *             {@link RedisItemWriter} that is given {@link #getKeyChanges()}
+	 *             so that renames whose old key is missing on the target fall back
+	 *             to a full read.
+	 */
+	public void setSkipMetadataReads(boolean skip) {
+		this.skipMetadataReads = skip;
+	}
+
+	/**
+	 * 
+	 * @return pending changes of queued keys when metadata reads are skipped
+	 */
+	public KeyChanges<K> getKeyChanges() {
+		return keyChanges;
+	}
+
+	public int getHotKeyThreshold() {
+		return hotKeyThreshold;
+	}
+
+	public void setHotKeyThreshold(int threshold) {
+		this.hotKeyThreshold = threshold;
+	}
+
+	public HotKeyPolicy getHotKeyPolicy() {
+		return hotKeyPolicy;
+	}
+
+	public void setHotKeyPolicy(HotKeyPolicy policy) {
+		this.hotKeyPolicy = policy;
+	}
+
+	public Duration getHotKeyDelay() {
+		return hotKeyDelay;
+	}
+
+	public void setHotKeyDelay(Duration delay) {
+		this.hotKeyDelay = delay;
+	}
+
+	public Path getSpillDirectory() {
+		return spillDirectory;
+	}
+
+	public void setSpillDirectory(Path directory) {
+		this.spillDirectory = directory;
+	}
+
+	public long getSpillCapacity() {
+		return spillCapacity;
+	}
+
+	public void setSpillCapacity(long capacity) {
+		this.spillCapacity = capacity;
+	}
+
 	public int getDatabase() {
 		return database;
 	}
@@ -1,25 +1,42 @@
 package com.redis.spring.batch.item.redis;
 
 import java.time.Duration;
+import java.util.function.Function;
 
 import org.springframework.batch.item.Chunk;
 import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
 import org.springframework.batch.item.ItemStreamWriter;
 import org.springframework.util.Assert;
 
+import com.redis.lettucemod.cluster.RedisModulesClusterClient;
+import com.redis.spring.batch.item.redis.common.ByteBufCodec;
+import com.redis.spring.batch.item.redis.common.ClusterOperationExecutor;
+import com.redis.spring.batch.item.redis.common.ConcurrencyLimiter;
 import com.redis.spring.batch.item.redis.common.KeyValue;
 import com.redis.spring.batch.item.redis.common.Operation;
 import com.redis.spring.batch.item.redis.common.OperationExecutor;
+import com.redis.spring.batch.item.redis.common.RateLimiter;
+import com.redis.spring.batch.item.redis.common.RedisHealthMonitor;
+import com.redis.spring.batch.item.redis.common.WaitGroup;
+import com.redis.spring.batch.item.redis.reader.DigestIndex;
+import com.redis.spring.batch.item.redis.reader.KeyChanges;
+import com.redis.spring.batch.item.redis.writer.KeyValueBufferRestore;
+import com.redis.spring.batch.item.redis.writer.KeyValueDeltaWrite;
+import com.redis.spring.batch.item.redis.writer.KeyValueMetadataWrite;
 import com.redis.spring.batch.item.redis.writer.KeyValueRestore;
 import com.redis.spring.batch.item.redis.writer.KeyValueWrite;
 import com.redis.spring.batch.item.redis.writer.KeyValueWrite.WriteMode;
+import com.redis.spring.batch.item.redis.writer.operation.AofWait;
 import com.redis.spring.batch.item.redis.writer.operation.MultiExec;
+import com.redis.spring.batch.item.redis.writer.operation.Noop;
 import com.redis.spring.batch.item.redis.writer.operation.ReplicaWait;
 
 import io.lettuce.core.AbstractRedisClient;
 import io.lettuce.core.codec.ByteArrayCodec;
 import io.lettuce.core.codec.RedisCodec;
 import io.lettuce.core.codec.StringCodec;
+import io.netty.buffer.ByteBuf;
 
 public class RedisItemWriter<K, V, T> implements ItemStreamWriter<T> {
 
@@ -32,8 +49,19 @@ public class RedisItemWriter<K, V, T> implements ItemStreamWriter<T> {
 	private AbstractRedisClient client;
 	private int waitReplicas;
 	private Duration waitTimeout = DEFAULT_WAIT_TIMEOUT;
+	private int waitAof;
+	private int waitGroupSize = WaitGroup.DEFAULT_SIZE;
+	private Duration waitGroupInterval = WaitGroup.DEFAULT_INTERVAL;
 	private boolean multiExec;
+	private int multiExecBatchSize = MultiExec.DEFAULT_BATCH_SIZE;
 	private int poolSize = DEFAULT_POOL_SIZE;
+	private ConcurrencyLimiter concurrencyLimiter;
+	private RateLimiter rateLimiter;
+	private RedisHealthMonitor healthMonitor;
+	private boolean nodeParallel;
+	private Function<T, K> keyFunction;
+	private KeyChanges<K> keyChanges;
+	private DigestIndex digestIndex;
 
 	private OperationExecutor<K, V, T, Object> operationExecutor;
 
@@ -51,7 +79,7 @@ public class RedisItemWriter<K, V, T> implements ItemStreamWriter<T> {
 	}
 
 	public static <K, V> RedisItemWriter<K, V, KeyValue<K, Object>> struct(RedisCodec<K, V> codec) {
-		return new RedisItemWriter<>(codec, new KeyValueWrite<>());
+		return keyValue(new RedisItemWriter<>(codec, new KeyValueWrite<>()));
 	}
 
 	public static RedisItemWriter<String, String, KeyValue<String, Object>> struct(WriteMode mode) {
@@ -59,52 +87,130 @@ public class RedisItemWriter<K, V, T> implements ItemStreamWriter<T> {
 	}
 
 	public static <K, V> RedisItemWriter<K, V, KeyValue<K, Object>> struct(RedisCodec<K, V> codec, WriteMode mode) {
-		return new RedisItemWriter<>(codec, KeyValueWrite.create(mode));
+		return keyValue(new RedisItemWriter<>(codec, KeyValueWrite.create(mode)));
 	}
 
 	public static RedisItemWriter<byte[], byte[], KeyValue<byte[], byte[]>> dump() {
-		return new RedisItemWriter<>(ByteArrayCodec.INSTANCE, new KeyValueRestore<>());
+		return keyValue(new RedisItemWriter<>(ByteArrayCodec.INSTANCE, new KeyValueRestore<>(ByteArrayCodec.INSTANCE)));
+	}
+
+	/**
+	 * 
+	 * @return writer for DUMP payloads read into pooled buffers by
+	 *         {@link RedisItemReader#dumpBuffer()}
+	 */
+	public static RedisItemWriter<byte[], ByteBuf, KeyValue<byte[], ByteBuf>> dumpBuffer() {
+		return keyValue(
+				new RedisItemWriter<>(ByteBufCodec.INSTANCE, new KeyValueBufferRestore<>(ByteBufCodec.INSTANCE)));
+	}
+
+	/**
+	 * 
+	 * @return writer that makes target keys equal to the source by only sending
+	 *         the differences, with overwrite semantics (see
+	 *         {@link KeyValueDeltaWrite})
+	 */
+	public static RedisItemWriter<String, String, KeyValue<String, Object>> delta() {
+		return delta(StringCodec.UTF8);
+	}
+
+	public static <K, V> RedisItemWriter<K, V, KeyValue<K, Object>> delta(RedisCodec<K, V> codec) {
+		return keyValue(new RedisItemWriter<>(codec, new KeyValueDeltaWrite<>(codec)));
+	}
+
+	private static <K, V, T extends KeyValue<K, ?>> RedisItemWriter<K, V, T> keyValue(RedisItemWriter<K, V, T> writer) {
+		writer.setKeyFunction(KeyValue::getKey);
+		return writer;
 	}
 
 	@Override
 	public synchronized void open(ExecutionContext executionContext) {
 		Assert.notNull(client, "Redis client not set");
 		if (operationExecutor == null) {
-			operationExecutor = new OperationExecutor<>(codec, operation());
+			operationExecutor = operationExecutor();
 			operationExecutor.setClient(client);
 			operationExecutor.setPoolSize(poolSize);
+			operationExecutor.setConcurrencyLimiter(concurrencyLimiter);
+			operationExecutor.setRateLimiter(rateLimiter);
+			operationExecutor.setHealthMonitor(healthMonitor);
+			operationExecutor.setWaitGroup(waitGroup());
 			operationExecutor.open(executionContext);
 		}
 	}
 
+	private OperationExecutor<K, V, T, Object> operationExecutor() {
+		if (nodeParallel || digestIndex != null) {
+			Assert.notNull(keyFunction, "Key function not set");
+		}
+		// Delta writes await target reads while sending, which a transaction would queue
+		Assert.isTrue(!multiExec || !(operation instanceof KeyValueDeltaWrite),
+				"Delta writes cannot run in a MULTI/EXEC transaction");
+		// Transactions on a cluster must not span slots: write each slot on its node
+		if (nodeParallel || (multiExec && keyFunction != null && client instanceof RedisModulesClusterClient)) {
+			return new ClusterOperationExecutor<>(codec, operation(), keyFunction);
+		}
+		return new OperationExecutor<>(codec, operation());
+	}
+
 	@Override
 	public synchronized void close() {
 		if (operationExecutor != null) {
 			operationExecutor.close();
 			operationExecutor = null;
 		}
+		if (operation instanceof AutoCloseable) {
+			try {
+				((AutoCloseable) operation).close();
+			} catch (Exception e) {
+				throw new ItemStreamException("Could not close operation", e);
+			}
+		}
 	}
 
 	@Override
 	public void write(Chunk<? extends T> items) throws Exception {
-		operationExecutor.process(items);
+		if (digestIndex == null) {
+			operationExecutor.process(items);
+			return;
+		}
+		try {
+			operationExecutor.process(items);
+		} catch (Exception e) {
+			items.forEach(t -> digestIndex.failed(codec.encodeKey(keyFunction.apply(t))));
+			throw e;
+		}
+		items.forEach(t -> digestIndex.written(codec.encodeKey(keyFunction.apply(t))));
 	}
 
+	/**
+	 * With key changes, key values that only stand for a metadata change (see
+	 * {@link KeyValue#getChange()}) are written without the value operation.
+	 */
 	private Operation<K, V, T, Object> operation() {
-		return multiExec(waitReplicas(operation));
-
+		if (keyChanges == null) {
+			return multiExec(operation);
+		}
+		return multiExec(new KeyValueMetadataWrite<>(operation, keyChanges));
 	}
 
-	private Operation<K, V, T, Object> waitReplicas(Operation<K, V, T, Object> operation) {
-		if (waitReplicas > 0) {
-			return new ReplicaWait<>(operation, waitReplicas, waitTimeout);
+	private WaitGroup<K, V> waitGroup() {
+		if (waitReplicas > 0 || waitAof > 0) {
+			ReplicaWait<K, V, Object> wait = waitAof > 0
+					? new AofWait<>(codec, new Noop<>(), waitAof, waitReplicas, waitTimeout)
+					: new ReplicaWait<>(new Noop<>(), waitReplicas, waitTimeout);
+			WaitGroup<K, V> waitGroup = new WaitGroup<>(wait);
+			waitGroup.setSize(waitGroupSize);
+			waitGroup.setInterval(waitGroupInterval);
+			return waitGroup;
 		}
-		return operation;
+		return null;
 	}
 
 	private Operation<K, V, T, Object> multiExec(Operation<K, V, T, Object> operation) {
 		if (multiExec) {
-			return new MultiExec<>(operation);
+			MultiExec<K, V, T> multiExecOperation = new MultiExec<>(operation);
+			multiExecOperation.setBatchSize(multiExecBatchSize);
+			return multiExecOperation;
 		}
 		return operation;
 	}
@@ -138,6 +244,41 @@ public class RedisItemWriter<K, V, T> implements ItemStreamWriter<T> {
 		this.waitTimeout = waitTimeout;
 	}
 
+	public int getWaitAof() {
+		return waitAof;
+	}
+
+	/**
+	 * 
+	 * @param local number of local AOF fsyncs to wait for (0 or 1). If strictly
+	 *              positive, WAITAOF is used instead of WAIT.
+	 */
+	public void setWaitAof(int local) {
+		this.waitAof = local;
+	}
+
+	public int getWaitGroupSize() {
+		return waitGroupSize;
+	}
+
+	/**
+	 * 
+	 * @param size max number of chunks covered by a single WAIT. Chunks written
+	 *             concurrently share a WAIT per connection, and a chunk completes
+	 *             only once the WAIT of its group has returned.
+	 */
+	public void setWaitGroupSize(int size) {
+		this.waitGroupSize = size;
+	}
+
+	public Duration getWaitGroupInterval() {
+		return waitGroupInterval;
+	}
+
+	public void setWaitGroupInterval(Duration interval) {
+		this.waitGroupInterval = interval;
+	}
+
 	public boolean isMultiExec() {
 		return multiExec;
 	}
@@ -146,6 +287,20 @@ public class RedisItemWriter<K, V, T> implements ItemStreamWriter<T> {
 		this.multiExec = multiExec;
 	}
 
+	public int getMultiExecBatchSize() {
+		return multiExecBatchSize;
+	}
+
+	/**
+	 * 
+	 * @param batchSize max number of items per MULTI/EXEC transaction. With a
+	 *                  cluster client, transactions are further split by hash
+	 *                  slot.
+	 */
+	public void setMultiExecBatchSize(int batchSize) {
+		this.multiExecBatchSize = batchSize;
+	}
+
 	public int getPoolSize() {
 		return poolSize;
 	}
@@ -154,4 +309,85 @@ public class RedisItemWriter<K, V, T> implements ItemStreamWriter<T> {
 		this.poolSize = poolSize;
 	}
 
+	public ConcurrencyLimiter getConcurrencyLimiter() {
+		return concurrencyLimiter;
+	}
+
+	public void setConcurrencyLimiter(ConcurrencyLimiter limiter) {
+		this.concurrencyLimiter = limiter;
+	}
+
+	public RedisHealthMonitor getHealthMonitor() {
+		return healthMonitor;
+	}
+
+	public void setHealthMonitor(RedisHealthMonitor monitor) {
+		this.healthMonitor = monitor;
+	}
+
+	public RateLimiter getRateLimiter() {
+		return rateLimiter;
+	}
+
+	/**
+	 * 
+	 * @param limiter rate limiter for commands and payload bytes. Its rates can be
+	 *                changed while the job is running.
+	 */
+	public void setRateLimiter(RateLimiter limiter) {
+		this.rateLimiter = limiter;
+	}
+
+	public boolean isNodeParallel() {
+		return nodeParallel;
+	}
+
+	/**
+	 * 
+	 * @param nodeParallel if true and the client is a cluster client, each chunk
+	 *                     is split by owning node and written on node-pinned
+	 *                     connections in parallel. Requires a key function.
+	 */
+	public void setNodeParallel(boolean nodeParallel) {
+		this.nodeParallel = nodeParallel;
+	}
+
+	public Function<T, K> getKeyFunction() {
+		return keyFunction;
+	}
+
+	public void setKeyFunction(Function<T, K> keyFunction) {
+		this.keyFunction = keyFunction;
+	}
+
+	public KeyChanges<K> getKeyChanges() {
+		return keyChanges;
+	}
+
+	/**
+	 * 
+	 * @param changes key changes of a reader that skips metadata reads (see
+	 *                {@link RedisItemReader#getKeyChanges()}). Only applies to key
+	 *                value writers: key values that only stand for a metadata
+	 *                change are then written as RENAME, PEXPIREAT or PERSIST, and
+	 *                keys missing on the target are read again in full.
+	 */
+	public void setKeyChanges(KeyChanges<K> changes) {
+		this.keyChanges = changes;
+	}
+
+	public DigestIndex getDigestIndex() {
+		return digestIndex;
+	}
+
+	/**
+	 * 
+	 * @param index digest index of an incremental reader (see
+	 *              {@link RedisItemReader#dump(DigestIndex)}). The digests of the
+	 *              keys are committed to the index once they have been written.
+	 */
+	public void setDigestIndex(DigestIndex index) {
+		this.digestIndex = index;
+	}
+
 }
@@ -0,0 +1,227 @@
+package com.redis.spring.batch.item.redis.common;
+
+import java.time.Duration;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.util.Assert;
+
+/**
+ * Additive-increase/multiplicative-decrease concurrency limiter. The limit
+ * grows by one for every {@code limit} successful pipelines whose latency stays
+ * within {@code latencyTolerance} times the expected latency, and is multiplied
+ * by {@code backoffRatio} when a pipeline fails or exceeds that latency. The
+ * expected latency of a pipeline is the larger of the lowest pipeline latency
+ * and the lowest per-item latency times its size, so that pipelines of
+ * different sizes are compared fairly. Like TCP, the limit decreases at most
+ * once per latency window: pipelines that started before the last decrease do
+ * not decrease it again. No increase happens within {@code cooldown} of an
+ * explicit {@link #backoff()}.
+ */
+public class AimdConcurrencyLimiter implements ConcurrencyLimiter {
+
+	public static final int DEFAULT_MIN_LIMIT = 1;
+	public static final int DEFAULT_MAX_LIMIT = OperationExecutor.DEFAULT_POOL_SIZE;
+	public static final int DEFAULT_INITIAL_LIMIT = DEFAULT_MAX_LIMIT;
+	public static final double DEFAULT_BACKOFF_RATIO = .9;
+	public static final double DEFAULT_LATENCY_TOLERANCE = 2;
+	public static final int DEFAULT_BASELINE_SAMPLES = 1000;
+	public static final Duration DEFAULT_COOLDOWN = Duration.ofSeconds(1);
+
+	private final Lock lock = new ReentrantLock();
+	private final Condition available = lock.newCondition();
+	private final Baseline pipelineBaseline = new Baseline();
+	private final Baseline itemBaseline = new Baseline();
+
+	private int minLimit = DEFAULT_MIN_LIMIT;
+	private int maxLimit = DEFAULT_MAX_LIMIT;
+	private double backoffRatio = DEFAULT_BACKOFF_RATIO;
+	private double latencyTolerance = DEFAULT_LATENCY_TOLERANCE;
+	private int baselineSamples = DEFAULT_BASELINE_SAMPLES;
+	private Duration cooldown = DEFAULT_COOLDOWN;
+
+	private double limit = DEFAULT_INITIAL_LIMIT;
+	private boolean initialLimit;
+	private int inFlight;
+	private int samples;
+	private boolean decreased;
+	private long lastDecrease;
+	private boolean backedOff;
+	private long lastBackoff;
+
+	@Override
+	public void acquire() throws InterruptedException {
+		lock.lock();
+		try {
+			while (inFlight >= getLimit()) {
+				available.await();
+			}
+			inFlight++;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public void release(long latency, int size, boolean success) {
+		lock.lock();
+		try {
+			boolean saturated = inFlight >= getLimit();
+			inFlight--;
+			long expected = expectedLatency(size);
+			updateBaseline(latency, size);
+			if (!success || latency > expected * latencyTolerance) {
+				long now = System.nanoTime();
+				// Only one decrease for all the pipelines that were in flight
+				if (!decreased || now - latency - lastDecrease >= 0) {
+					decrease(now);
+				}
+			} else if (saturated && !coolingDown()) {
+				// Only grow when the limit is what is actually holding pipelines back
+				limit = Math.min(maxLimit, limit + 1 / limit);
+			}
+			available.signalAll();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Multiplicatively decreases the limit regardless of pipeline outcomes and
+	 * suspends increases for the cooldown period.
+	 */
+	@Override
+	public void backoff() {
+		lock.lock();
+		try {
+			long now = System.nanoTime();
+			decrease(now);
+			backedOff = true;
+			lastBackoff = now;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private boolean coolingDown() {
+		return backedOff && System.nanoTime() - lastBackoff < cooldown.toNanos();
+	}
+
+	private void decrease(long now) {
+		limit = Math.max(minLimit, limit * backoffRatio);
+		decreased = true;
+		lastDecrease = now;
+	}
+
+	private long expectedLatency(int size) {
+		if (pipelineBaseline.value == Long.MAX_VALUE) {
+			return Long.MAX_VALUE;
+		}
+		return Math.max(pipelineBaseline.value, itemBaseline.value * Math.max(1, size));
+	}
+
+	/**
+	 * Keeps track of the lowest latencies over a sliding number of samples so the
+	 * baselines can adapt when the target itself gets slower or faster.
+	 */
+	private void updateBaseline(long latency, int size) {
+		pipelineBaseline.update(latency);
+		itemBaseline.update(latency / Math.max(1, size));
+		if (++samples >= baselineSamples) {
+			pipelineBaseline.slide();
+			itemBaseline.slide();
+			samples = 0;
+		}
+	}
+
+	private static class Baseline {
+
+		private long value = Long.MAX_VALUE;
+		private long next = Long.MAX_VALUE;
+
+		private void update(long latency) {
+			value = Math.min(value, latency);
+			next = Math.min(next, latency);
+		}
+
+		private void slide() {
+			value = next;
+			next = Long.MAX_VALUE;
+		}
+
+	}
+
+	@Override
+	public int getLimit() {
+		return (int) limit;
+	}
+
+	public int getInFlight() {
+		return inFlight;
+	}
+
+	/**
+	 * 
+	 * @param limit limit to start with, {@code maxLimit} by default
+	 */
+	public void setInitialLimit(int limit) {
+		this.limit = limit;
+		this.initialLimit = true;
+	}
+
+	public int getMinLimit() {
+		return minLimit;
+	}
+
+	public void setMinLimit(int limit) {
+		Assert.isTrue(limit > 0, "Min limit must be strictly positive");
+		this.minLimit = limit;
+	}
+
+	public int getMaxLimit() {
+		return maxLimit;
+	}
+
+	public void setMaxLimit(int limit) {
+		this.maxLimit = limit;
+		if (!initialLimit) {
+			this.limit = limit;
+		}
+	}
+
+	public double getBackoffRatio() {
+		return backoffRatio;
+	}
+
+	public void setBackoffRatio(double ratio) {
+		Assert.isTrue(ratio > 0 && ratio < 1, "Backoff ratio must be between 0 and 1");
+		this.backoffRatio = ratio;
+	}
+
+	public double getLatencyTolerance() {
+		return latencyTolerance;
+	}
+
+	public void setLatencyTolerance(double tolerance) {
+		Assert.isTrue(tolerance >= 1, "Latency tolerance must be greater than or equal to 1");
+		this.latencyTolerance = tolerance;
+	}
+
+	public Duration getCooldown() {
+		return cooldown;
+	}
+
+	public void setCooldown(Duration cooldown) {
+		this.cooldown = cooldown;
+	}
+
+	public int getBaselineSamples() {
+		return baselineSamples;
+	}
+
+	public void setBaselineSamples(int samples) {
+		this.baselineSamples = samples;
+	}
+
+}
@@ -6,21 +6,22 @@ import java.io.InputStreamReader;
 import java.nio.ByteBuffer;
 import java.time.Duration;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.function.BiFunction;
-import java.util.function.BiPredicate;
 import java.util.function.Function;
 import java.util.function.Supplier;
-import java.util.function.ToIntFunction;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
+import org.springframework.util.CompositeIterator;
 import org.springframework.util.FileCopyUtils;
 
 import com.redis.lettucemod.RedisModulesClient;
@@ -29,12 +30,16 @@ import com.redis.lettucemod.cluster.RedisModulesClusterClient;
 import com.redis.lettucemod.cluster.api.StatefulRedisModulesClusterConnection;
 
 import io.lettuce.core.AbstractRedisClient;
+import io.lettuce.core.KeyScanArgs;
 import io.lettuce.core.ReadFrom;
 import io.lettuce.core.RedisFuture;
+import io.lettuce.core.ScanIterator;
 import io.lettuce.core.api.async.RedisAsyncCommands;
+import io.lettuce.core.api.sync.RedisKeyCommands;
 import io.lettuce.core.codec.ByteArrayCodec;
 import io.lettuce.core.codec.RedisCodec;
 import io.lettuce.core.codec.StringCodec;
+import io.lettuce.core.internal.Exceptions;
 
 public abstract class BatchUtils {
 
@@ -134,16 +139,69 @@ public abstract class BatchUtils {
 		return items;
 	}
 
-	public static <K> BiPredicate<K, K> keyEqualityPredicate(RedisCodec<K, ?> codec) {
-		ToIntFunction<K> hashCode = hashCodeFunction(codec);
-		return (k1, k2) -> hashCode.applyAsInt(k1) == hashCode.applyAsInt(k2);
+	/**
+	 * Same as {@link #getAll(Duration, Iterable)} but for use within operations:
+	 * failures are rethrown as Redis runtime exceptions.
+	 */
+	public static <T> List<T> await(Duration timeout, Iterable<RedisFuture<T>> futures) {
+		try {
+			return getAll(timeout, futures);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw Exceptions.bubble(e);
+		} catch (ExecutionException | TimeoutException e) {
+			throw Exceptions.bubble(e);
+		}
+	}
+
+	/**
+	 * Function returning keys or values of the given codec in a form suitable for
+	 * hash-based collections, i.e. {@link BinaryKey} for byte arrays.
+	 *
+	 * @see BinaryKey#identity(Object)
+	 */
+	public static <T> Function<T, Object> identityFunction(RedisCodec<?, ?> codec) {
+		return BinaryKey::identity;
 	}
 
-	public static <K> ToIntFunction<K> hashCodeFunction(RedisCodec<?, ?> codec) {
-		if (codec instanceof ByteArrayCodec) {
-			return k -> Arrays.hashCode((byte[]) k);
+	/**
+	 * Scans keys matching any of the given patterns and of any of the given types.
+	 * A single pattern is matched server-side, several are matched client-side so
+	 * that each key is returned once. Types are scanned one after the other.
+	 *
+	 * @param count    SCAN COUNT hint, ignored if not positive
+	 * @param patterns key patterns, all keys if empty
+	 * @param types    key types, all types if empty
+	 */
+	public static <K, V> Iterator<K> scan(RedisKeyCommands<K, V> commands, RedisCodec<K, ?> codec, long count,
+			Collection<String> patterns, Collection<String> types) {
+		String match = patterns.size() == 1 ? patterns.iterator().next() : null;
+		CompositeIterator<K> keys = new CompositeIterator<>();
+		if (types.isEmpty()) {
+			keys.add(ScanIterator.scan(commands, scanArgs(count, match, null)));
+		} else {
+			types.forEach(t -> keys.add(ScanIterator.scan(commands, scanArgs(count, match, t))));
+		}
+		if (patterns.size() < 2) {
+			return keys;
+		}
+		GlobMatcher matcher = new GlobMatcher(patterns);
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(keys, Spliterator.ORDERED), false)
+				.filter(k -> matcher.matches(codec.encodeKey(k))).iterator();
+	}
+
+	private static KeyScanArgs scanArgs(long count, String match, String type) {
+		KeyScanArgs args = new KeyScanArgs();
+		if (count > 0) {
+			args.limit(count);
+		}
+		if (match != null) {
+			args.match(match);
+		}
+		if (type != null) {
+			args.type(type);
 		}
-		return Objects::hashCode;
+		return args;
 	}
 
 }
@@ -0,0 +1,101 @@
+package com.redis.spring.batch.item.redis.common;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Immutable wrapper around a binary key or value that compares contents and
+ * caches its hash code, for use as a hash map key. The wrapped array must not
+ * be modified after wrapping; use {@link #copyOf(byte[])} when the caller may
+ * reuse it.
+ */
+public final class BinaryKey implements Comparable<BinaryKey> {
+
+	private final byte[] bytes;
+	private final int hash;
+
+	private BinaryKey(byte[] bytes) {
+		this.bytes = bytes;
+		this.hash = Arrays.hashCode(bytes);
+	}
+
+	public static BinaryKey of(byte[] bytes) {
+		return new BinaryKey(bytes);
+	}
+
+	public static BinaryKey copyOf(byte[] bytes) {
+		return new BinaryKey(bytes.clone());
+	}
+
+	/**
+	 * @return a hash map key for the given key: a {@link BinaryKey} for byte
+	 *         arrays, the key itself otherwise
+	 */
+	public static Object identity(Object key) {
+		if (key instanceof byte[]) {
+			return new BinaryKey((byte[]) key);
+		}
+		return key;
+	}
+
+	/**
+	 * @return hash code of the given key, by content for byte arrays, without
+	 *         wrapping it
+	 */
+	public static int hash(Object key) {
+		if (key instanceof byte[]) {
+			return Arrays.hashCode((byte[]) key);
+		}
+		return key.hashCode();
+	}
+
+	/**
+	 * @return true if the given keys are equal, by content for byte arrays,
+	 *         without wrapping them
+	 */
+	public static boolean equal(Object key, Object other) {
+		if (key instanceof byte[] && other instanceof byte[]) {
+			return Arrays.equals((byte[]) key, (byte[]) other);
+		}
+		return key.equals(other);
+	}
+
+	/**
+	 * @return the wrapped array, which must not be modified
+	 */
+	public byte[] getBytes() {
+		return bytes;
+	}
+
+	public int length() {
+		return bytes.length;
+	}
+
+	@Override
+	public int hashCode() {
+		return hash;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof BinaryKey)) {
+			return false;
+		}
+		BinaryKey other = (BinaryKey) obj;
+		return hash == other.hash && Arrays.equals(bytes, other.bytes);
+	}
+
+	@Override
+	public int compareTo(BinaryKey other) {
+		return Arrays.compareUnsigned(bytes, other.bytes);
+	}
+
+	@Override
+	public String toString() {
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+}
@@ -0,0 +1,104 @@
+package com.redis.spring.batch.item.redis.common;
+
+import java.nio.ByteBuffer;
+
+import io.lettuce.core.codec.RedisCodec;
+import io.lettuce.core.codec.ToByteBufEncoder;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+
+/**
+ * Codec with byte array keys and pooled, reference-counted {@link ByteBuf}
+ * values. Values are written straight from their buffer into the outbound
+ * command buffer, and decoded values are copied once into a pooled buffer
+ * instead of a new byte array. Decoded values must be released by the caller.
+ */
+public class ByteBufCodec implements RedisCodec<byte[], ByteBuf>, ToByteBufEncoder<byte[], ByteBuf> {
+
+	public static final ByteBufCodec INSTANCE = new ByteBufCodec();
+
+	private static final byte[] EMPTY = new byte[0];
+
+	private final ByteBufAllocator allocator;
+
+	public ByteBufCodec() {
+		this(PooledByteBufAllocator.DEFAULT);
+	}
+
+	public ByteBufCodec(ByteBufAllocator allocator) {
+		this.allocator = allocator;
+	}
+
+	@Override
+	public byte[] decodeKey(ByteBuffer bytes) {
+		if (bytes == null) {
+			return EMPTY;
+		}
+		byte[] key = new byte[bytes.remaining()];
+		bytes.get(key);
+		return key;
+	}
+
+	@Override
+	public ByteBuf decodeValue(ByteBuffer bytes) {
+		return copy(allocator, bytes);
+	}
+
+	public static ByteBuf copy(ByteBufAllocator allocator, ByteBuffer bytes) {
+		if (bytes == null) {
+			return null;
+		}
+		ByteBuf buffer = allocator.directBuffer(bytes.remaining());
+		buffer.writeBytes(bytes);
+		return buffer;
+	}
+
+	@Override
+	public ByteBuffer encodeKey(byte[] key) {
+		if (key == null) {
+			return ByteBuffer.wrap(EMPTY);
+		}
+		return ByteBuffer.wrap(key);
+	}
+
+	@Override
+	public ByteBuffer encodeValue(ByteBuf value) {
+		if (value == null) {
+			return ByteBuffer.wrap(EMPTY);
+		}
+		return value.nioBuffer();
+	}
+
+	@Override
+	public void encodeKey(byte[] key, ByteBuf target) {
+		if (key != null) {
+			target.writeBytes(key);
+		}
+	}
+
+	@Override
+	public void encodeValue(ByteBuf value, ByteBuf target) {
+		if (value != null) {
+			// Leave the reader index untouched so the command can be encoded again
+			target.writeBytes(value, value.readerIndex(), value.readableBytes());
+		}
+	}
+
+	@Override
+	public int estimateSize(Object keyOrValue) {
+		if (keyOrValue instanceof byte[]) {
+			return ((byte[]) keyOrValue).length;
+		}
+		if (keyOrValue instanceof ByteBuf) {
+			return ((ByteBuf) keyOrValue).readableBytes();
+		}
+		return 0;
+	}
+
+	@Override
+	public boolean isEstimateExact() {
+		return true;
+	}
+
+}
@@ -0,0 +1,153 @@
+package com.redis.spring.batch.item.redis.common;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+import com.redis.lettucemod.api.StatefulRedisModulesConnection;
+
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.cluster.PartitionSelectorException;
+import io.lettuce.core.cluster.RedisClusterClient;
+import io.lettuce.core.cluster.SlotHash;
+import io.lettuce.core.cluster.api.StatefulRedisClusterConnection;
+import io.lettuce.core.cluster.models.partitions.Partitions;
+import io.lettuce.core.cluster.models.partitions.RedisClusterNode;
+import io.lettuce.core.codec.RedisCodec;
+
+/**
+ * OperationExecutor that splits each chunk by owning cluster node and writes
+ * every node's share on its own pinned connection. Node pipelines are flushed
+ * as soon as they are built so that nodes process their batches in parallel.
+ * Within a node, items are grouped by hash slot so that multi-key commands
+ * and transactions issued by operations (e.g. DEL, MULTI/EXEC) never span
+ * slots. Items for the same key keep their relative order.
+ * <p>
+ * Results are returned in input order only when the operation returns exactly
+ * one result per item, as reads do. Operations that send several commands per
+ * item or one command for several items (e.g. DEL, MSET fusion, MULTI/EXEC)
+ * return the results of each slot group one after the other, in an undefined
+ * node and slot order: such results must not be matched to items.
+ * <p>
+ * If a slot has no known owner the cluster topology is refreshed once, and the
+ * chunk fails with a {@link PartitionSelectorException} if the slot still has
+ * no owner.
+ */
+public class ClusterOperationExecutor<K, V, I, O> extends OperationExecutor<K, V, I, O> {
+
+	private final Function<I, K> keyFunction;
+
+	public ClusterOperationExecutor(RedisCodec<K, V> codec, Operation<K, V, I, O> operation,
+			Function<I, K> keyFunction) {
+		super(codec, operation);
+		this.keyFunction = keyFunction;
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	protected List<O> execute(StatefulRedisModulesConnection<K, V> connection, Iterable<? extends I> items,
+			WaitGroup<K, V>.Chunk chunk) throws TimeoutException, InterruptedException, ExecutionException {
+		if (!(connection instanceof StatefulRedisClusterConnection)) {
+			return super.execute(connection, items, chunk);
+		}
+		StatefulRedisClusterConnection<K, V> clusterConnection = (StatefulRedisClusterConnection<K, V>) connection;
+		List<I> inputs = new ArrayList<>();
+		items.forEach(inputs::add);
+		Map<String, Map<Integer, List<Integer>>> nodes = groupByNode(clusterConnection, inputs);
+		List<List<Integer>> groups = new ArrayList<>();
+		List<List<RedisFuture<O>>> groupFutures = new ArrayList<>();
+		List<RedisFuture<O>> futures = new ArrayList<>();
+		for (Map.Entry<String, Map<Integer, List<Integer>>> node : nodes.entrySet()) {
+			// Auto-flush is already off: it propagates from the cluster connection
+			StatefulRedisConnection<K, V> nodeConnection = clusterConnection.getConnection(node.getKey());
+			for (List<Integer> slot : node.getValue().values()) {
+				List<I> slotItems = new ArrayList<>();
+				slot.forEach(index -> slotItems.add(inputs.get(index)));
+				List<RedisFuture<O>> slotFutures = getOperation().execute(nodeConnection.async(), slotItems);
+				groups.add(slot);
+				groupFutures.add(slotFutures);
+				futures.addAll(slotFutures);
+			}
+			if (chunk != null) {
+				// One wait per node connection, after all its slots
+				chunk.written(connection.async(), nodeConnection.async());
+			}
+			nodeConnection.flushCommands();
+		}
+		List<O> results = BatchUtils.getAll(connection.getTimeout(), futures);
+		return charge(futures.size(), inputs.size(), inputOrder(inputs.size(), groups, groupFutures, results));
+	}
+
+	/**
+	 * 
+	 * @return results in input order if every group returned one result per item,
+	 *         otherwise results as returned, in undefined node and slot order
+	 */
+	private List<O> inputOrder(int size, List<List<Integer>> groups, List<List<RedisFuture<O>>> groupFutures,
+			List<O> results) {
+		if (!isOnePerItem(groups, groupFutures)) {
+			return results;
+		}
+		List<O> ordered = new ArrayList<>(Collections.nCopies(size, null));
+		int position = 0;
+		for (List<Integer> group : groups) {
+			for (int index : group) {
+				ordered.set(index, results.get(position++));
+			}
+		}
+		return ordered;
+	}
+
+	private boolean isOnePerItem(List<List<Integer>> groups, List<List<RedisFuture<O>>> groupFutures) {
+		for (int index = 0; index < groups.size(); index++) {
+			List<RedisFuture<O>> futures = groupFutures.get(index);
+			if (futures.size() != groups.get(index).size() || futures.contains(null)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private Map<String, Map<Integer, List<Integer>>> groupByNode(StatefulRedisClusterConnection<K, V> connection,
+			List<I> items) {
+		Map<String, Map<Integer, List<Integer>>> nodes = groupByNode(connection.getPartitions(), items);
+		if (nodes == null) {
+			// Slot owner unknown, e.g. during a resharding
+			if (getClient() instanceof RedisClusterClient) {
+				((RedisClusterClient) getClient()).refreshPartitions();
+			}
+			nodes = groupByNode(connection.getPartitions(), items);
+		}
+		if (nodes == null) {
+			throw new PartitionSelectorException("Cannot determine the owner of every slot in chunk",
+					connection.getPartitions().clone());
+		}
+		return nodes;
+	}
+
+	/**
+	 * 
+	 * @return item indexes grouped by node and slot, or null if a slot has no
+	 *         known owner
+	 */
+	private Map<String, Map<Integer, List<Integer>>> groupByNode(Partitions partitions, List<I> items) {
+		Map<String, Map<Integer, List<Integer>>> nodes = new LinkedHashMap<>();
+		for (int index = 0; index < items.size(); index++) {
+			int slot = SlotHash.getSlot(getCodec().encodeKey(keyFunction.apply(items.get(index))));
+			RedisClusterNode node = partitions.getPartitionBySlot(slot);
+			if (node == null) {
+				return null;
+			}
+			nodes.computeIfAbsent(node.getNodeId(), k -> new LinkedHashMap<>())
+					.computeIfAbsent(slot, k -> new ArrayList<>()).add(index);
+		}
+		return nodes;
+	}
+
+}
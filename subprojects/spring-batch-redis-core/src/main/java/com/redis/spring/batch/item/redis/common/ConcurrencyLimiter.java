@@ -0,0 +1,35 @@
+package com.redis.spring.batch.item.redis.common;
+
+public interface ConcurrencyLimiter {
+
+	/**
+	 * Blocks until a pipeline is allowed to execute.
+	 * 
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	void acquire() throws InterruptedException;
+
+	/**
+	 * Releases a pipeline previously admitted by {@link #acquire()}.
+	 * 
+	 * @param latency round-trip time of the pipeline in nanoseconds
+	 * @param size    number of items in the pipeline
+	 * @param success false if the pipeline failed
+	 */
+	void release(long latency, int size, boolean success);
+
+	/**
+	 * Lowers the limit independently of pipeline outcomes, e.g. when the Redis
+	 * server reports that it is under stress. Does nothing by default.
+	 */
+	default void backoff() {
+		// Limiters that only react to pipeline outcomes ignore external signals
+	}
+
+	/**
+	 * 
+	 * @return current maximum number of concurrently executing pipelines
+	 */
+	int getLimit();
+
+}
@@ -0,0 +1,122 @@
+package com.redis.spring.batch.item.redis.common;
+
+import java.util.Arrays;
+
+import org.springframework.util.Assert;
+
+/**
+ * Count-min sketch estimating the frequency of byte sequences in a fixed
+ * amount of memory. Estimates never undercount; conservative update keeps
+ * overcounting low. Counts can be halved to age out old events. Not
+ * thread-safe.
+ */
+public class CountMinSketch {
+
+	public static final int DEFAULT_DEPTH = 4;
+	public static final int DEFAULT_WIDTH = 1 << 12;
+	public static final int MAX_WIDTH = 1 << 20;
+
+	private final int depth;
+	private final int mask;
+	private final int[] counters;
+
+	public CountMinSketch() {
+		this(DEFAULT_DEPTH, DEFAULT_WIDTH);
+	}
+
+	/**
+	 * @param depth number of hash functions
+	 * @param width number of counters per hash function, a power of two
+	 */
+	public CountMinSketch(int depth, int width) {
+		Assert.isTrue(depth > 0, "Depth must be greater than zero");
+		Assert.isTrue(width > 0 && Integer.bitCount(width) == 1, "Width must be a power of two");
+		this.depth = depth;
+		this.mask = width - 1;
+		this.counters = new int[depth * width];
+	}
+
+	/**
+	 * @param count number of recorded occurrences
+	 * @param error maximum overcount
+	 * @return smallest power-of-two width, up to {@link #MAX_WIDTH}, for which
+	 *         estimates exceed actual counts by at most the given error with high
+	 *         probability after the given number of occurrences
+	 */
+	public static int width(long count, long error) {
+		double width = Math.ceil(Math.E * count / Math.max(1, error));
+		if (width >= MAX_WIDTH) {
+			return MAX_WIDTH;
+		}
+		if (width <= 1) {
+			return 1;
+		}
+		return Integer.highestOneBit((int) width - 1) << 1;
+	}
+
+	public int getWidth() {
+		return mask + 1;
+	}
+
+	private static long hash(byte[] bytes, int offset, int length) {
+		long hash = 0xcbf29ce484222325L;
+		for (int index = offset; index < offset + length; index++) {
+			hash = (hash ^ (bytes[index] & 0xff)) * 0x100000001b3L;
+		}
+		// Final avalanche so that both halves are usable
+		hash ^= hash >>> 33;
+		hash *= 0xff51afd7ed558ccdL;
+		hash ^= hash >>> 33;
+		return hash;
+	}
+
+	private int index(int row, long hash) {
+		int h1 = (int) hash;
+		int h2 = (int) (hash >>> 32);
+		return row * (mask + 1) + ((h1 + row * h2) & mask);
+	}
+
+	/**
+	 * Records one occurrence of the given bytes.
+	 *
+	 * @return estimated count including this occurrence
+	 */
+	public int add(byte[] bytes, int offset, int length) {
+		long hash = hash(bytes, offset, length);
+		int min = Integer.MAX_VALUE;
+		for (int row = 0; row < depth; row++) {
+			min = Math.min(min, counters[index(row, hash)]);
+		}
+		if (min == Integer.MAX_VALUE) {
+			return min;
+		}
+		int count = min + 1;
+		for (int row = 0; row < depth; row++) {
+			int index = index(row, hash);
+			if (counters[index] < count) {
+				counters[index] = count;
+			}
+		}
+		return count;
+	}
+
+	public int estimate(byte[] bytes, int offset, int length) {
+		long hash = hash(bytes, offset, length);
+		int min = Integer.MAX_VALUE;
+		for (int row = 0; row < depth; row++) {
+			min = Math.min(min, counters[index(row, hash)]);
+		}
+		return min;
+	}
+
+	public void halve() {
+		for (int index = 0; index < counters.length; index++) {
+			counters[index] >>>= 1;
+		}
+	}
+
+	public void clear() {
+		Arrays.fill(counters, 0);
+	}
+
+}
@@ -0,0 +1,39 @@
+package com.redis.spring.batch.item.redis.common;
+
+/**
+ * CRC-64/Jones as used by Redis to checksum DUMP payloads and RDB files
+ * (reflected, polynomial 0xad93d23594c935a9, initial value 0, no final xor).
+ */
+public abstract class Crc64 {
+
+	private static final long POLYNOMIAL = Long.reverse(0xad93d23594c935a9L);
+	private static final long[] TABLE = table();
+
+	private Crc64() {
+	}
+
+	private static long[] table() {
+		long[] table = new long[256];
+		for (int index = 0; index < table.length; index++) {
+			long crc = index;
+			for (int bit = 0; bit < 8; bit++) {
+				crc = (crc & 1) == 1 ? (crc >>> 1) ^ POLYNOMIAL : crc >>> 1;
+			}
+			table[index] = crc;
+		}
+		return table;
+	}
+
+	public static long checksum(byte[] bytes, int offset, int length) {
+		long crc = 0;
+		for (int index = offset; index < offset + length; index++) {
+			crc = TABLE[(int) ((crc ^ bytes[index]) & 0xff)] ^ (crc >>> 8);
+		}
+		return crc;
+	}
+
+	public static long checksum(byte[] bytes) {
+		return checksum(bytes, 0, bytes.length);
+	}
+
+}
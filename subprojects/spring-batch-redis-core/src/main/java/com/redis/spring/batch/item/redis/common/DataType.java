@@ -10,6 +10,8 @@ public enum DataType {
 	NONE("none"), HASH("hash"), JSON("ReJSON-RL"), LIST("list"), SET("set"), STREAM("stream"), STRING("string"),
 	TIMESERIES("TSDB-TYPE"), ZSET("zset");
 
+	private static final Map<String, DataType> STRING_MAP = Stream.of(DataType.values())
+			.collect(Collectors.toMap(DataType::getString, Function.identity()));
 	private static final Map<String, DataType> TYPE_MAP = Stream.of(DataType.values())
 			.collect(Collectors.toMap(t -> t.getString().toLowerCase(), Function.identity()));
 
@@ -24,6 +26,10 @@ public enum DataType {
 	}
 
 	public static DataType of(String string) {
+		DataType type = STRING_MAP.get(string);
+		if (type != null) {
+			return type;
+		}
 		return TYPE_MAP.get(string.toLowerCase());
 	}
 
@@ -0,0 +1,552 @@
+package com.redis.spring.batch.item.redis.common;
+
+import java.time.Duration;
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+import org.springframework.util.Assert;
+
+/**
+ * Bounded, insertion-ordered blocking queue holding at most one element per
+ * key. A hash index over a doubly-linked list gives constant-time offer, poll
+ * and removal by key. Offering an element whose key is already queued replaces
+ * the queued element and moves it to the tail; the replaced element is passed
+ * to the discard listener.
+ * <p>
+ * With a quiet period, an element is only released once its key has not been
+ * offered for that period, or once it has been queued for longer than the
+ * maximum delay. Elements are tracked both in update order and in arrival
+ * order so both conditions are checked in constant time.
+ * <p>
+ * Byte array keys are compared by content.
+ *
+ * @param <E> element type
+ */
+public class DedupBlockingQueue<E> extends AbstractQueue<E> implements BlockingQueue<E> {
+
+	public enum OfferStatus {
+		/**
+		 * Element added under a key that was not queued
+		 */
+		ADDED,
+		/**
+		 * Element replaced the one queued under the same key and moved to the tail
+		 */
+		TOUCHED,
+		/**
+		 * Key not queued and no space left
+		 */
+		FULL
+	}
+
+	private static class Node<E> {
+
+		private final Object key;
+		private E element;
+		private Node<E> prev;
+		private Node<E> next;
+		private Node<E> arrivalPrev;
+		private Node<E> arrivalNext;
+		private long arrival;
+		private long updated;
+
+		private Node(Object key, E element) {
+			this.key = key;
+			this.element = element;
+		}
+
+	}
+
+	private final int capacity;
+	private final Function<? super E, ?> keyFunction;
+	private final Map<Object, Node<E>> index = new HashMap<>();
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition notEmpty = lock.newCondition();
+	private final Condition notFull = lock.newCondition();
+
+	private Consumer<? super E> discardListener = e -> {
+	};
+	private LongSupplier nanoTime = System::nanoTime;
+	private long quietPeriod;
+	private long maxDelay = Long.MAX_VALUE;
+	// Update order: least recently offered first
+	private Node<E> head;
+	private Node<E> tail;
+	// Arrival order: longest queued first
+	private Node<E> arrivalHead;
+	private Node<E> arrivalTail;
+
+	public DedupBlockingQueue(int capacity, Function<? super E, ?> keyFunction) {
+		Assert.isTrue(capacity > 0, "Capacity must be greater than zero");
+		this.capacity = capacity;
+		this.keyFunction = keyFunction;
+	}
+
+	public static <E> DedupBlockingQueue<E> identity(int capacity) {
+		return new DedupBlockingQueue<>(capacity, Function.identity());
+	}
+
+	public void setDiscardListener(Consumer<? super E> listener) {
+		this.discardListener = listener;
+	}
+
+	/**
+	 * @param period how long a key must not have been offered before its element
+	 *               is released. Zero releases elements immediately.
+	 */
+	public void setQuietPeriod(Duration period) {
+		this.quietPeriod = period.toNanos();
+	}
+
+	/**
+	 * @param delay maximum time an element is held back by the quiet period
+	 */
+	public void setMaxDelay(Duration delay) {
+		this.maxDelay = delay.toNanos();
+	}
+
+	/**
+	 * @param nanoTime time source used for the quiet period and maximum delay
+	 */
+	void setNanoTime(LongSupplier nanoTime) {
+		this.nanoTime = nanoTime;
+	}
+
+	private Object key(E element) {
+		return BinaryKey.identity(keyFunction.apply(element));
+	}
+
+	private void link(Node<E> node) {
+		node.prev = tail;
+		node.next = null;
+		if (tail == null) {
+			head = node;
+		} else {
+			tail.next = node;
+		}
+		tail = node;
+	}
+
+	private void unlink(Node<E> node) {
+		if (node.prev == null) {
+			head = node.next;
+		} else {
+			node.prev.next = node.next;
+		}
+		if (node.next == null) {
+			tail = node.prev;
+		} else {
+			node.next.prev = node.prev;
+		}
+		node.prev = null;
+		node.next = null;
+	}
+
+	private void linkArrival(Node<E> node) {
+		node.arrivalPrev = arrivalTail;
+		if (arrivalTail == null) {
+			arrivalHead = node;
+		} else {
+			arrivalTail.arrivalNext = node;
+		}
+		arrivalTail = node;
+	}
+
+	private void unlinkArrival(Node<E> node) {
+		if (node.arrivalPrev == null) {
+			arrivalHead = node.arrivalNext;
+		} else {
+			node.arrivalPrev.arrivalNext = node.arrivalNext;
+		}
+		if (node.arrivalNext == null) {
+			arrivalTail = node.arrivalPrev;
+		} else {
+			node.arrivalNext.arrivalPrev = node.arrivalPrev;
+		}
+		node.arrivalPrev = null;
+		node.arrivalNext = null;
+	}
+
+	/**
+	 * Must be called with the lock held and space available or the key already
+	 * queued.
+	 */
+	private void enqueue(Object key, E element) {
+		long now = nanoTime.getAsLong();
+		Node<E> node = index.get(key);
+		E discarded = null;
+		if (node == null) {
+			node = new Node<>(key, element);
+			node.arrival = now;
+			index.put(key, node);
+			linkArrival(node);
+		} else {
+			unlink(node);
+			discarded = node.element;
+			node.element = element;
+		}
+		node.updated = now;
+		link(node);
+		notEmpty.signal();
+		if (discarded != null && discarded != element) {
+			discardListener.accept(discarded);
+		}
+	}
+
+	private E dequeue(Node<E> node) {
+		unlink(node);
+		unlinkArrival(node);
+		index.remove(node.key);
+		notFull.signal();
+		return node.element;
+	}
+
+	/**
+	 * @return node that can be released at the given time or null if none
+	 */
+	private Node<E> ready(long now) {
+		if (head == null || quietPeriod == 0) {
+			return head;
+		}
+		if (now - arrivalHead.arrival >= maxDelay) {
+			return arrivalHead;
+		}
+		if (now - head.updated >= quietPeriod) {
+			return head;
+		}
+		return null;
+	}
+
+	/**
+	 * @return nanoseconds until a node can be released, when the queue is not
+	 *         empty
+	 */
+	private long readyDelay(long now) {
+		return Math.min(quietPeriod - (now - head.updated), maxDelay - (now - arrivalHead.arrival));
+	}
+
+	@Override
+	public boolean offer(E e) {
+		Assert.notNull(e, "Element must not be null");
+		Object key = key(e);
+		lock.lock();
+		try {
+			if (index.size() >= capacity && !index.containsKey(key)) {
+				return false;
+			}
+			enqueue(key, e);
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Adds the given element or, if its key is already queued, replaces the
+	 * queued element and moves it to the tail, in a single step so that a
+	 * concurrent poll cannot take the queued element in between.
+	 *
+	 * @param listener called with the lock held before the element is queued,
+	 *                 with true if its key was already queued. Not called if the
+	 *                 queue is full.
+	 */
+	public OfferStatus offerOrTouch(E e, Consumer<Boolean> listener) {
+		Assert.notNull(e, "Element must not be null");
+		Object key = key(e);
+		lock.lock();
+		try {
+			boolean queued = index.containsKey(key);
+			if (!queued && index.size() >= capacity) {
+				return OfferStatus.FULL;
+			}
+			listener.accept(queued);
+			enqueue(key, e);
+			return queued ? OfferStatus.TOUCHED : OfferStatus.ADDED;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public void put(E e) throws InterruptedException {
+		Assert.notNull(e, "Element must not be null");
+		Object key = key(e);
+		lock.lockInterruptibly();
+		try {
+			while (index.size() >= capacity && !index.containsKey(key)) {
+				notFull.await();
+			}
+			enqueue(key, e);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public boolean offer(E e, long timeout, TimeUnit unit) throws InterruptedException {
+		Assert.notNull(e, "Element must not be null");
+		Object key = key(e);
+		long nanos = unit.toNanos(timeout);
+		lock.lockInterruptibly();
+		try {
+			while (index.size() >= capacity && !index.containsKey(key)) {
+				if (nanos <= 0) {
+					return false;
+				}
+				nanos = notFull.awaitNanos(nanos);
+			}
+			enqueue(key, e);
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public E poll() {
+		lock.lock();
+		try {
+			Node<E> node = ready(nanoTime.getAsLong());
+			return node == null ? null : dequeue(node);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public E take() throws InterruptedException {
+		lock.lockInterruptibly();
+		try {
+			while (true) {
+				if (head == null) {
+					notEmpty.await();
+					continue;
+				}
+				long now = nanoTime.getAsLong();
+				Node<E> node = ready(now);
+				if (node != null) {
+					return dequeue(node);
+				}
+				notEmpty.awaitNanos(readyDelay(now));
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+		long nanos = unit.toNanos(timeout);
+		lock.lockInterruptibly();
+		try {
+			while (true) {
+				long now = nanoTime.getAsLong();
+				Node<E> node = ready(now);
+				if (node != null) {
+					return dequeue(node);
+				}
+				if (nanos <= 0) {
+					return null;
+				}
+				if (head == null) {
+					nanos = notEmpty.awaitNanos(nanos);
+				} else {
+					long delay = Math.min(nanos, readyDelay(now));
+					nanos -= delay - notEmpty.awaitNanos(delay);
+				}
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public E peek() {
+		lock.lock();
+		try {
+			Node<E> node = ready(nanoTime.getAsLong());
+			return node == null ? null : node.element;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Removes the element queued under the given key.
+	 *
+	 * @param key key as returned by the key function
+	 * @return the removed element or null if no element was queued for that key
+	 */
+	public E removeKey(Object key) {
+		lock.lock();
+		try {
+			Node<E> node = index.get(BinaryKey.identity(key));
+			if (node == null) {
+				return null;
+			}
+			return dequeue(node);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	public boolean containsKey(Object key) {
+		lock.lock();
+		try {
+			return index.containsKey(BinaryKey.identity(key));
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public boolean contains(Object o) {
+		if (o == null) {
+			return false;
+		}
+		Object key = key((E) o);
+		lock.lock();
+		try {
+			Node<E> node = index.get(key);
+			return node != null && Objects.deepEquals(node.element, o);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public boolean remove(Object o) {
+		if (o == null) {
+			return false;
+		}
+		Object key = key((E) o);
+		lock.lock();
+		try {
+			Node<E> node = index.get(key);
+			if (node == null || !Objects.deepEquals(node.element, o)) {
+				return false;
+			}
+			dequeue(node);
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public int size() {
+		lock.lock();
+		try {
+			return index.size();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public int remainingCapacity() {
+		lock.lock();
+		try {
+			return capacity - index.size();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public void clear() {
+		lock.lock();
+		try {
+			index.clear();
+			head = null;
+			tail = null;
+			arrivalHead = null;
+			arrivalTail = null;
+			notFull.signalAll();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public int drainTo(Collection<? super E> c) {
+		return drainTo(c, Integer.MAX_VALUE);
+	}
+
+	@Override
+	public int drainTo(Collection<? super E> c, int maxElements) {
+		Assert.isTrue(c != this, "Cannot drain to self");
+		lock.lock();
+		try {
+			long now = nanoTime.getAsLong();
+			int count = 0;
+			Node<E> node;
+			while (count < maxElements && (node = ready(now)) != null) {
+				c.add(dequeue(node));
+				count++;
+			}
+			return count;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns a weakly consistent iterator over a snapshot of the queue.
+	 */
+	@Override
+	public Iterator<E> iterator() {
+		List<E> snapshot = new ArrayList<>();
+		lock.lock();
+		try {
+			for (Node<E> node = head; node != null; node = node.next) {
+				snapshot.add(node.element);
+			}
+		} finally {
+			lock.unlock();
+		}
+		Iterator<E> iterator = snapshot.iterator();
+		return new Iterator<E>() {
+
+			private E last;
+
+			@Override
+			public boolean hasNext() {
+				return iterator.hasNext();
+			}
+
+			@Override
+			public E next() {
+				if (!iterator.hasNext()) {
+					throw new NoSuchElementException();
+				}
+				last = iterator.next();
+				return last;
+			}
+
+			@Override
+			public void remove() {
+				Assert.state(last != null, "No element to remove");
+				DedupBlockingQueue.this.remove(last);
+				last = null;
+			}
+		};
+	}
+
+}
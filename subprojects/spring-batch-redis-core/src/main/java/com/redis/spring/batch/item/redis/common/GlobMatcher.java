@@ -0,0 +1,182 @@
+package com.redis.spring.batch.item.redis.common;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Byte-level matcher for Redis glob-style patterns with the same semantics as
+ * the server's <code>stringmatchlen</code>: <code>*</code>, <code>?</code>,
+ * character classes with ranges and negation, and backslash escapes. A string
+ * matches if any of the patterns matches it.
+ */
+public class GlobMatcher {
+
+	private final byte[][] patterns;
+
+	public GlobMatcher(String... patterns) {
+		this(Arrays.asList(patterns));
+	}
+
+	public GlobMatcher(Collection<String> patterns) {
+		this.patterns = patterns.stream().map(p -> p.getBytes(StandardCharsets.UTF_8)).toArray(byte[][]::new);
+	}
+
+	public boolean matches(byte[] string) {
+		return matches(string, 0, string.length);
+	}
+
+	public boolean matches(byte[] string, int offset, int length) {
+		for (byte[] pattern : patterns) {
+			if (match(pattern, 0, string, offset, offset + length)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	public boolean matches(ByteBuffer string) {
+		if (string.hasArray()) {
+			return matches(string.array(), string.arrayOffset() + string.position(), string.remaining());
+		}
+		byte[] bytes = new byte[string.remaining()];
+		string.duplicate().get(bytes);
+		return matches(bytes);
+	}
+
+	/**
+	 * @return literal prefix of the given pattern, up to its first special
+	 *         character
+	 */
+	public static String prefix(String pattern) {
+		for (int index = 0; index < pattern.length(); index++) {
+			switch (pattern.charAt(index)) {
+			case '*':
+			case '?':
+			case '[':
+			case '\\':
+				return pattern.substring(0, index);
+			default:
+				break;
+			}
+		}
+		return pattern;
+	}
+
+	/**
+	 * @return literal prefixes of the given patterns, without prefixes that
+	 *         extend another one, or an empty list if a pattern has no literal
+	 *         prefix
+	 */
+	public static List<String> prefixes(Collection<String> patterns) {
+		List<String> prefixes = new ArrayList<>();
+		patterns.stream().map(GlobMatcher::prefix).sorted(Comparator.comparingInt(String::length)).forEach(p -> {
+			if (prefixes.stream().noneMatch(p::startsWith)) {
+				prefixes.add(p);
+			}
+		});
+		if (prefixes.contains("")) {
+			return Collections.emptyList();
+		}
+		return prefixes;
+	}
+
+	private static boolean match(byte[] p, int pi, byte[] s, int si, int sEnd) {
+		int pEnd = p.length;
+		while (pi < pEnd && si < sEnd) {
+			switch (p[pi]) {
+			case '*':
+				while (pi + 1 < pEnd && p[pi + 1] == '*') {
+					pi++;
+				}
+				if (pi + 1 == pEnd) {
+					return true;
+				}
+				for (int start = si; start < sEnd; start++) {
+					if (match(p, pi + 1, s, start, sEnd)) {
+						return true;
+					}
+				}
+				return false;
+			case '?':
+				si++;
+				break;
+			case '[':
+				pi++;
+				boolean not = pi < pEnd && p[pi] == '^';
+				if (not) {
+					pi++;
+				}
+				boolean match = false;
+				while (true) {
+					if (pi >= pEnd) {
+						// Unterminated class: stay on the last pattern byte
+						pi--;
+						break;
+					}
+					if (p[pi] == '\\' && pi + 1 < pEnd) {
+						pi++;
+						if (p[pi] == s[si]) {
+							match = true;
+						}
+					} else if (p[pi] == ']') {
+						break;
+					} else if (pi + 2 < pEnd && p[pi + 1] == '-') {
+						int start = p[pi] & 0xff;
+						int end = p[pi + 2] & 0xff;
+						int c = s[si] & 0xff;
+						if (start > end) {
+							int tmp = start;
+							start = end;
+							end = tmp;
+						}
+						pi += 2;
+						if (c >= start && c <= end) {
+							match = true;
+						}
+					} else if (p[pi] == s[si]) {
+						match = true;
+					}
+					pi++;
+				}
+				if (not) {
+					match = !match;
+				}
+				if (!match) {
+					return false;
+				}
+				si++;
+				break;
+			case '\\':
+				if (pi + 1 < pEnd) {
+					pi++;
+				}
+				if (p[pi] != s[si]) {
+					return false;
+				}
+				si++;
+				break;
+			default:
+				if (p[pi] != s[si]) {
+					return false;
+				}
+				si++;
+				break;
+			}
+			pi++;
+			if (si == sEnd) {
+				while (pi < pEnd && p[pi] == '*') {
+					pi++;
+				}
+				break;
+			}
+		}
+		return pi == pEnd && si == sEnd;
+	}
+
+}
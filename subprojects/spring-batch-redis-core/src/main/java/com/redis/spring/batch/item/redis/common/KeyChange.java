@@ -0,0 +1,27 @@
+package com.redis.spring.batch.item.redis.common;
+
+/**
+ * Change that a key value stands for when its value was not read because key
+ * notifications showed that only the key's metadata changed.
+ */
+public enum KeyChange {
+
+	/**
+	 * Key was deleted, expired or evicted. The TTL is
+	 * {@link KeyValue#TTL_NO_KEY}.
+	 */
+	DELETE,
+
+	/**
+	 * Only the expiration changed. The TTL is the new TTL, or
+	 * {@link KeyValue#TTL_NONE} if the key was persisted.
+	 */
+	TTL,
+
+	/**
+	 * Key was renamed from {@link KeyValue#getRenamedFrom()} and did not change
+	 * otherwise.
+	 */
+	RENAME
+
+}
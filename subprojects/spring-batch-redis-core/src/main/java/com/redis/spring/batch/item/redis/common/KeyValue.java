@@ -1,7 +1,17 @@
 package com.redis.spring.batch.item.redis.common;
 
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.Map;
+
 import org.springframework.util.StringUtils;
 
+import com.redis.lettucemod.timeseries.Sample;
+
+import io.lettuce.core.ScoredValue;
+import io.lettuce.core.StreamMessage;
+import io.netty.buffer.ByteBuf;
+
 public class KeyValue<K, T> {
 
 	public static final long TTL_NONE = -1;
@@ -13,6 +23,9 @@ public class KeyValue<K, T> {
 	private long time;
 	private long ttl;
 	private long memoryUsage;
+	private KeyChange change;
+	private K renamedFrom;
+	private String digest;
 
 	public KeyValue() {
 	}
@@ -24,6 +37,9 @@ public class KeyValue<K, T> {
 		this.value = other.value;
 		this.memoryUsage = other.memoryUsage;
 		this.time = other.time;
+		this.change = other.change;
+		this.renamedFrom = other.renamedFrom;
+		this.digest = other.digest;
 	}
 
 	public static boolean exists(KeyValue<?, ?> keyValue) {
@@ -54,6 +70,62 @@ public class KeyValue<K, T> {
 		return null;
 	}
 
+	/**
+	 * 
+	 * @param keyValue the KeyValue to get the size of
+	 * @return length of the value if it is a byte array or buffer (e.g. a DUMP
+	 *         payload), otherwise an estimate of the number of bytes of its data
+	 *         structure, or 0 if it has no value. Memory usage is not used as it
+	 *         is not read unless a memory usage limit is set.
+	 */
+	public static long size(KeyValue<?, ?> keyValue) {
+		return size(keyValue.getValue());
+	}
+
+	@SuppressWarnings("unchecked")
+	private static long size(Object value) {
+		if (value == null) {
+			return 0;
+		}
+		if (value instanceof byte[]) {
+			return ((byte[]) value).length;
+		}
+		if (value instanceof ByteBuf) {
+			return ((ByteBuf) value).readableBytes();
+		}
+		if (value instanceof ByteBuffer) {
+			return ((ByteBuffer) value).remaining();
+		}
+		if (value instanceof CharSequence) {
+			return ((CharSequence) value).length();
+		}
+		if (value instanceof Map) {
+			long size = 0;
+			for (Map.Entry<Object, Object> entry : ((Map<Object, Object>) value).entrySet()) {
+				size += size(entry.getKey()) + size(entry.getValue());
+			}
+			return size;
+		}
+		if (value instanceof Collection) {
+			long size = 0;
+			for (Object element : (Collection<Object>) value) {
+				size += size(element);
+			}
+			return size;
+		}
+		if (value instanceof ScoredValue) {
+			return size(((ScoredValue<?>) value).getValue()) + Double.BYTES;
+		}
+		if (value instanceof StreamMessage) {
+			StreamMessage<?, ?> message = (StreamMessage<?, ?>) value;
+			return size(message.getId()) + size(message.getBody());
+		}
+		if (value instanceof Sample) {
+			return Long.BYTES + Double.BYTES;
+		}
+		return Long.BYTES;
+	}
+
 	/**
 	 * 
 	 * @param keyValue the KeyValue to get expiration time from
@@ -129,6 +201,45 @@ public class KeyValue<K, T> {
 		this.time = time;
 	}
 
+	/**
+	 * 
+	 * @return metadata-only change this key value stands for, or null if its value
+	 *         was read
+	 */
+	public KeyChange getChange() {
+		return change;
+	}
+
+	public void setChange(KeyChange change) {
+		this.change = change;
+	}
+
+	/**
+	 * 
+	 * @return previous name of the key if the change is a
+	 *         {@link KeyChange#RENAME}
+	 */
+	public K getRenamedFrom() {
+		return renamedFrom;
+	}
+
+	public void setRenamedFrom(K key) {
+		this.renamedFrom = key;
+	}
+
+	/**
+	 * 
+	 * @return hex-encoded CRC64 checksum of the key's DUMP payload, or null if it
+	 *         was not read
+	 */
+	public String getDigest() {
+		return digest;
+	}
+
+	public void setDigest(String digest) {
+		this.digest = digest;
+	}
+
 	@Override
 	public String toString() {
 		return "KeyValue [key=" + key + "]";
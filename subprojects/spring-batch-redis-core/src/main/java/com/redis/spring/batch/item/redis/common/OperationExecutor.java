@@ -1,5 +1,7 @@
 package com.redis.spring.batch.item.redis.common;
 
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeoutException;
@@ -32,6 +34,10 @@ public class OperationExecutor<K, V, I, O> implements ItemStream, ItemProcessor<
 	private AbstractRedisClient client;
 	private ReadFrom readFrom;
 	private int poolSize = DEFAULT_POOL_SIZE;
+	private ConcurrencyLimiter concurrencyLimiter;
+	private RateLimiter rateLimiter;
+	private RedisHealthMonitor healthMonitor;
+	private WaitGroup<K, V> waitGroup;
 
 	private GenericObjectPool<StatefulRedisModulesConnection<K, V>> pool;
 
@@ -40,6 +46,10 @@ public class OperationExecutor<K, V, I, O> implements ItemStream, ItemProcessor<
 		this.operation = operation;
 	}
 
+	public AbstractRedisClient getClient() {
+		return client;
+	}
+
 	public void setClient(AbstractRedisClient client) {
 		this.client = client;
 	}
@@ -52,6 +62,22 @@ public class OperationExecutor<K, V, I, O> implements ItemStream, ItemProcessor<
 		config.setMaxTotal(poolSize);
 		Supplier<StatefulRedisModulesConnection<K, V>> supplier = BatchUtils.supplier(client, codec, readFrom);
 		pool = ConnectionPoolSupport.createGenericObjectPool(supplier, config);
+		if (healthMonitor != null) {
+			openHealthMonitor();
+		}
+	}
+
+	private void openHealthMonitor() {
+		if (concurrencyLimiter == null) {
+			// Start at full concurrency: the health monitor only backs off under stress
+			AimdConcurrencyLimiter limiter = new AimdConcurrencyLimiter();
+			limiter.setMaxLimit(poolSize);
+			limiter.setInitialLimit(poolSize);
+			concurrencyLimiter = limiter;
+		}
+		healthMonitor.setClient(client);
+		healthMonitor.setLimiter(concurrencyLimiter);
+		healthMonitor.open();
 	}
 
 	private void initializeOperation() {
@@ -68,6 +94,9 @@ public class OperationExecutor<K, V, I, O> implements ItemStream, ItemProcessor<
 
 	@Override
 	public synchronized void close() {
+		if (healthMonitor != null) {
+			healthMonitor.close();
+		}
 		if (pool != null) {
 			pool.close();
 			pool = null;
@@ -76,25 +105,139 @@ public class OperationExecutor<K, V, I, O> implements ItemStream, ItemProcessor<
 
 	@Override
 	public List<O> process(Iterable<? extends I> items) throws Exception {
+		// Throttle before taking a permit and a connection so that time spent
+		// throttled neither holds them nor counts as pipeline latency
+		throttle(items);
+		if (concurrencyLimiter != null) {
+			concurrencyLimiter.acquire();
+		}
+		long start = System.nanoTime();
+		WaitGroup<K, V>.Chunk chunk = waitGroup == null ? null : waitGroup.enter();
+		boolean success = false;
+		List<O> results;
+		try {
+			results = doProcess(items, chunk);
+			success = true;
+		} finally {
+			// Release before the group wait so that its time is not taken for
+			// pipeline latency and does not hold back other pipelines
+			if (concurrencyLimiter != null) {
+				concurrencyLimiter.release(System.nanoTime() - start, count(items), success);
+			}
+			if (chunk != null) {
+				waitGroup.leave(chunk, success);
+			}
+		}
+		if (chunk != null) {
+			waitGroup.await(chunk);
+		}
+		return results;
+	}
+
+	private List<O> doProcess(Iterable<? extends I> items, WaitGroup<K, V>.Chunk chunk) throws Exception {
 		try (StatefulRedisModulesConnection<K, V> connection = pool.borrowObject()) {
-			connection.setAutoFlushCommands(false);
-			try {
-				return execute(connection, items);
-			} catch (RedisNoScriptException e) {
-				// Potential fail-over of Redis shard(s). Need to reload the LUA script.
-				initializeOperation();
-				return execute(connection, items);
-			} finally {
-				connection.setAutoFlushCommands(true);
+			// Pooled connections are wrapped on each borrow: lock on the commands of the
+			// underlying connection, which group waits hold while sending
+			synchronized (connection.async()) {
+				connection.setAutoFlushCommands(false);
+				try {
+					return execute(connection, items, chunk);
+				} catch (RedisNoScriptException e) {
+					// Potential fail-over of Redis shard(s). Need to reload the LUA script.
+					initializeOperation();
+					return execute(connection, items, chunk);
+				} finally {
+					connection.setAutoFlushCommands(true);
+				}
 			}
 		}
 	}
 
-	private List<O> execute(StatefulRedisModulesConnection<K, V> connection, Iterable<? extends I> items)
-			throws TimeoutException, InterruptedException, ExecutionException {
+	/**
+	 * 
+	 * @param chunk wait group chunk to record the written connections with, or
+	 *              null if there is no wait group
+	 */
+	protected List<O> execute(StatefulRedisModulesConnection<K, V> connection, Iterable<? extends I> items,
+			WaitGroup<K, V>.Chunk chunk) throws TimeoutException, InterruptedException, ExecutionException {
 		List<RedisFuture<O>> futures = operation.execute(connection.async(), items);
+		if (chunk != null) {
+			chunk.written(connection.async(), connection.async());
+		}
 		connection.flushCommands();
-		return BatchUtils.getAll(connection.getTimeout(), futures);
+		return charge(futures.size(), count(items), BatchUtils.getAll(connection.getTimeout(), futures));
+	}
+
+	/**
+	 * Waits for the rate limiter, if any, to allow sending one command per item.
+	 * Payload bytes are measured for KeyValue items.
+	 */
+	private void throttle(Iterable<?> items) throws InterruptedException {
+		if (rateLimiter != null) {
+			rateLimiter.acquire(count(items), size(items));
+		}
+	}
+
+	/**
+	 * Charges the rate limiter, if any, with the commands sent beyond one per item
+	 * and with the payload bytes of the results. Later pipelines pay it back.
+	 */
+	protected List<O> charge(int commandCount, int itemCount, List<O> results) {
+		if (rateLimiter != null) {
+			rateLimiter.charge(commandCount - itemCount, size(results));
+		}
+		return results;
+	}
+
+	private static int count(Iterable<?> items) {
+		if (items instanceof Collection) {
+			return ((Collection<?>) items).size();
+		}
+		int count = 0;
+		for (Iterator<?> iterator = items.iterator(); iterator.hasNext(); iterator.next()) {
+			count++;
+		}
+		return count;
+	}
+
+	private long size(Iterable<?> items) {
+		long size = 0;
+		for (Object item : items) {
+			if (item instanceof KeyValue) {
+				size += KeyValue.size((KeyValue<?, ?>) item);
+			}
+		}
+		return size;
+	}
+
+	public RedisHealthMonitor getHealthMonitor() {
+		return healthMonitor;
+	}
+
+	/**
+	 * 
+	 * @param monitor health monitor that backs off the concurrency limiter while
+	 *                the server is under stress. An AIMD concurrency limiter
+	 *                bounded by the pool size is created if none is set.
+	 */
+	public void setHealthMonitor(RedisHealthMonitor monitor) {
+		this.healthMonitor = monitor;
+	}
+
+	public RateLimiter getRateLimiter() {
+		return rateLimiter;
+	}
+
+	public void setRateLimiter(RateLimiter rateLimiter) {
+		this.rateLimiter = rateLimiter;
+	}
+
+	public Operation<K, V, I, O> getOperation() {
+		return operation;
+	}
+
+	public RedisCodec<K, V> getCodec() {
+		return codec;
 	}
 
 	public void setReadFrom(ReadFrom readFrom) {
@@ -113,4 +256,25 @@ public class OperationExecutor<K, V, I, O> implements ItemStream, ItemProcessor<
 		return poolSize;
 	}
 
+	public WaitGroup<K, V> getWaitGroup() {
+		return waitGroup;
+	}
+
+	/**
+	 * 
+	 * @param waitGroup durability wait sent on every connection a chunk wrote to.
+	 *                  Results are only returned once the wait has returned.
+	 */
+	public void setWaitGroup(WaitGroup<K, V> waitGroup) {
+		this.waitGroup = waitGroup;
+	}
+
+	public ConcurrencyLimiter getConcurrencyLimiter() {
+		return concurrencyLimiter;
+	}
+
+	public void setConcurrencyLimiter(ConcurrencyLimiter limiter) {
+		this.concurrencyLimiter = limiter;
+	}
+
 }
@@ -0,0 +1,139 @@
+package com.redis.spring.batch.item.redis.common;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.springframework.batch.core.observability.BatchMetrics;
+
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Token-bucket rate limiter for commands and payload bytes. Each bucket holds
+ * up to one second worth of tokens. Callers wait until enough tokens are
+ * available; a request larger than the bucket is let through and its excess
+ * is paid back by subsequent callers. Rates can be changed at any time, 0
+ * meaning unlimited. Time spent waiting is recorded in the
+ * {@value #METRIC_NAME} timer.
+ */
+public class RateLimiter {
+
+	public static final String METRIC_NAME = "redis.throttle";
+	public static final String DEFAULT_NAME = "default";
+
+	private final Bucket commands = new Bucket();
+	private final Bucket bytes = new Bucket();
+	private final Timer timer;
+
+	public RateLimiter() {
+		this(DEFAULT_NAME);
+	}
+
+	public RateLimiter(String name) {
+		this.timer = BatchMetrics.createTimer(Metrics.globalRegistry, METRIC_NAME, "Time spent throttled",
+				Tag.of("name", name));
+	}
+
+	/**
+	 * Blocks until the given number of commands and bytes can be sent.
+	 *
+	 * @param commandCount number of commands about to be sent
+	 * @param byteCount    number of payload bytes about to be sent
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public void acquire(long commandCount, long byteCount) throws InterruptedException {
+		long wait = Math.max(commands.reserve(commandCount), bytes.reserve(byteCount));
+		if (wait <= 0) {
+			return;
+		}
+		long deadline = System.nanoTime() + wait;
+		long remaining = wait;
+		while (remaining > 0) {
+			LockSupport.parkNanos(remaining);
+			if (Thread.interrupted()) {
+				throw new InterruptedException();
+			}
+			remaining = deadline - System.nanoTime();
+		}
+		timer.record(wait, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Consumes payload bytes without waiting, e.g. bytes received in replies.
+	 * Subsequent callers wait for the debt to be paid back.
+	 *
+	 * @param byteCount number of payload bytes transferred
+	 */
+	public void charge(long byteCount) {
+		charge(0, byteCount);
+	}
+
+	/**
+	 * Consumes commands and payload bytes without waiting, e.g. commands sent
+	 * beyond those acquired. Subsequent callers wait for the debt to be paid back.
+	 *
+	 * @param commandCount number of commands sent
+	 * @param byteCount    number of payload bytes transferred
+	 */
+	public void charge(long commandCount, long byteCount) {
+		commands.reserve(commandCount);
+		bytes.reserve(byteCount);
+	}
+
+	public double getCommandsPerSecond() {
+		return commands.rate;
+	}
+
+	public void setCommandsPerSecond(double rate) {
+		commands.setRate(rate);
+	}
+
+	public double getBytesPerSecond() {
+		return bytes.rate;
+	}
+
+	public void setBytesPerSecond(double rate) {
+		bytes.setRate(rate);
+	}
+
+	public Duration getThrottledTime() {
+		return Duration.ofNanos((long) timer.totalTime(TimeUnit.NANOSECONDS));
+	}
+
+	/**
+	 * Virtual-time token bucket: tokens are represented by the time at which the
+	 * next permit becomes free.
+	 */
+	private static class Bucket {
+
+		private static final long CAPACITY_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+		private volatile double rate;
+		private long next = System.nanoTime();
+
+		private synchronized void setRate(double rate) {
+			this.rate = rate;
+			this.next = Math.min(next, System.nanoTime());
+		}
+
+		/**
+		 *
+		 * @return nanoseconds to wait before the reserved tokens can be used
+		 */
+		private synchronized long reserve(long tokens) {
+			double currentRate = rate;
+			if (currentRate <= 0 || tokens <= 0) {
+				return 0;
+			}
+			long now = System.nanoTime();
+			next = Math.max(next, now - CAPACITY_NANOS);
+			long wait = Math.max(0, next - now);
+			next += (long) (tokens * TimeUnit.SECONDS.toNanos(1) / currentRate);
+			return wait;
+		}
+
+	}
+
+}
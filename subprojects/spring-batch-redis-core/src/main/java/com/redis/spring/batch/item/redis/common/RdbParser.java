@@ -0,0 +1,511 @@
+package com.redis.spring.batch.item.redis.common;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.lettuce.core.ScoredValue;
+
+/**
+ * Parser for DUMP payloads. Decodes the serialized value regardless of the RDB
+ * version that produced it so that it can be written with regular commands to a
+ * server that rejects the payload. Supports strings, lists, sets, sorted sets
+ * and hashes in all their encodings up to RDB 12 (ziplist, listpack, intset,
+ * zipmap, quicklist). Streams and module types are not supported.
+ * <p>
+ * Values are returned as in struct mode, with byte array elements: byte[] for
+ * strings, List&lt;byte[]&gt; for lists and sets, Map&lt;byte[], byte[]&gt; for
+ * hashes and List&lt;ScoredValue&lt;byte[]&gt;&gt; for sorted sets.
+ */
+public class RdbParser {
+
+	public static final int TYPE_STRING = 0;
+	public static final int TYPE_LIST = 1;
+	public static final int TYPE_SET = 2;
+	public static final int TYPE_ZSET = 3;
+	public static final int TYPE_HASH = 4;
+	public static final int TYPE_ZSET_2 = 5;
+	public static final int TYPE_HASH_ZIPMAP = 9;
+	public static final int TYPE_LIST_ZIPLIST = 10;
+	public static final int TYPE_SET_INTSET = 11;
+	public static final int TYPE_ZSET_ZIPLIST = 12;
+	public static final int TYPE_HASH_ZIPLIST = 13;
+	public static final int TYPE_LIST_QUICKLIST = 14;
+	public static final int TYPE_HASH_LISTPACK = 16;
+	public static final int TYPE_ZSET_LISTPACK = 17;
+	public static final int TYPE_LIST_QUICKLIST_2 = 18;
+	public static final int TYPE_SET_LISTPACK = 20;
+
+	private static final int FOOTER_SIZE = 10;
+	private static final int ENC_INT8 = 0;
+	private static final int ENC_INT16 = 1;
+	private static final int ENC_INT32 = 2;
+	private static final int ENC_LZF = 3;
+	private static final int QUICKLIST_NODE_PLAIN = 1;
+
+	private final ByteBuffer buffer;
+
+	private RdbParser(ByteBuffer buffer) {
+		this.buffer = buffer;
+	}
+
+	/**
+	 *
+	 * @param payload DUMP payload
+	 * @return RDB version of the payload
+	 */
+	public static int version(byte[] payload) {
+		checkLength(payload);
+		ByteBuffer buffer = ByteBuffer.wrap(payload).order(ByteOrder.LITTLE_ENDIAN);
+		return buffer.getShort(payload.length - FOOTER_SIZE) & 0xffff;
+	}
+
+	private static void checkLength(byte[] payload) {
+		if (payload == null || payload.length <= FOOTER_SIZE) {
+			throw new IllegalArgumentException("DUMP payload too short");
+		}
+	}
+
+	/**
+	 *
+	 * @param payload DUMP payload
+	 * @return KeyValue holding the type and value of the payload (no key)
+	 * @throws IllegalArgumentException if the checksum is wrong or the type is not
+	 *                                  supported
+	 */
+	public static KeyValue<byte[], Object> parse(byte[] payload) {
+		checkLength(payload);
+		int length = payload.length - Long.BYTES;
+		long crc = ByteBuffer.wrap(payload).order(ByteOrder.LITTLE_ENDIAN).getLong(length);
+		// A zero checksum means the server skipped it
+		if (crc != 0 && crc != Crc64.checksum(payload, 0, length)) {
+			throw new IllegalArgumentException("Wrong DUMP payload checksum");
+		}
+		ByteBuffer buffer = ByteBuffer.wrap(payload, 0, payload.length - FOOTER_SIZE)
+				.order(ByteOrder.LITTLE_ENDIAN);
+		RdbParser parser = new RdbParser(buffer);
+		int type = buffer.get() & 0xff;
+		KeyValue<byte[], Object> keyValue = new KeyValue<>();
+		keyValue.setType(dataType(type).getString());
+		keyValue.setValue(parser.value(type));
+		return keyValue;
+	}
+
+	private static DataType dataType(int type) {
+		switch (type) {
+		case TYPE_STRING:
+			return DataType.STRING;
+		case TYPE_LIST:
+		case TYPE_LIST_ZIPLIST:
+		case TYPE_LIST_QUICKLIST:
+		case TYPE_LIST_QUICKLIST_2:
+			return DataType.LIST;
+		case TYPE_SET:
+		case TYPE_SET_INTSET:
+		case TYPE_SET_LISTPACK:
+			return DataType.SET;
+		case TYPE_ZSET:
+		case TYPE_ZSET_2:
+		case TYPE_ZSET_ZIPLIST:
+		case TYPE_ZSET_LISTPACK:
+			return DataType.ZSET;
+		case TYPE_HASH:
+		case TYPE_HASH_ZIPMAP:
+		case TYPE_HASH_ZIPLIST:
+		case TYPE_HASH_LISTPACK:
+			return DataType.HASH;
+		default:
+			throw new IllegalArgumentException("Unsupported RDB type: " + type);
+		}
+	}
+
+	private Object value(int type) {
+		switch (type) {
+		case TYPE_STRING:
+			return string();
+		case TYPE_LIST:
+		case TYPE_SET:
+			return strings(length());
+		case TYPE_ZSET:
+		case TYPE_ZSET_2:
+			return zset(type);
+		case TYPE_HASH:
+			return hash();
+		case TYPE_HASH_ZIPMAP:
+			return zipmap(string());
+		case TYPE_LIST_ZIPLIST:
+			return ziplist(string());
+		case TYPE_SET_INTSET:
+			return intset(string());
+		case TYPE_ZSET_ZIPLIST:
+			return scoredValues(ziplist(string()));
+		case TYPE_HASH_ZIPLIST:
+			return map(ziplist(string()));
+		case TYPE_LIST_QUICKLIST:
+			return quicklist();
+		case TYPE_HASH_LISTPACK:
+			return map(listpack(string()));
+		case TYPE_ZSET_LISTPACK:
+			return scoredValues(listpack(string()));
+		case TYPE_LIST_QUICKLIST_2:
+			return quicklist2();
+		case TYPE_SET_LISTPACK:
+			return listpack(string());
+		default:
+			throw new IllegalArgumentException("Unsupported RDB type: " + type);
+		}
+	}
+
+	private List<byte[]> strings(long count) {
+		List<byte[]> strings = new ArrayList<>();
+		for (long index = 0; index < count; index++) {
+			strings.add(string());
+		}
+		return strings;
+	}
+
+	private List<ScoredValue<byte[]>> zset(int type) {
+		long count = length();
+		List<ScoredValue<byte[]>> values = new ArrayList<>();
+		for (long index = 0; index < count; index++) {
+			byte[] member = string();
+			double score = type == TYPE_ZSET_2 ? buffer.getDouble() : stringScore();
+			values.add(ScoredValue.just(score, member));
+		}
+		return values;
+	}
+
+	private double stringScore() {
+		int length = buffer.get() & 0xff;
+		switch (length) {
+		case 253:
+			return Double.NaN;
+		case 254:
+			return Double.POSITIVE_INFINITY;
+		case 255:
+			return Double.NEGATIVE_INFINITY;
+		default:
+			byte[] score = new byte[length];
+			buffer.get(score);
+			return Double.parseDouble(new String(score, StandardCharsets.US_ASCII));
+		}
+	}
+
+	private Map<byte[], byte[]> hash() {
+		long count = length();
+		Map<byte[], byte[]> hash = new LinkedHashMap<>();
+		for (long index = 0; index < count; index++) {
+			hash.put(string(), string());
+		}
+		return hash;
+	}
+
+	private List<byte[]> quicklist() {
+		long count = length();
+		List<byte[]> list = new ArrayList<>();
+		for (long index = 0; index < count; index++) {
+			list.addAll(ziplist(string()));
+		}
+		return list;
+	}
+
+	private List<byte[]> quicklist2() {
+		long count = length();
+		List<byte[]> list = new ArrayList<>();
+		for (long index = 0; index < count; index++) {
+			long container = length();
+			byte[] node = string();
+			if (container == QUICKLIST_NODE_PLAIN) {
+				list.add(node);
+			} else {
+				list.addAll(listpack(node));
+			}
+		}
+		return list;
+	}
+
+	/**
+	 * Length encoding: the two most significant bits of the first byte tell if
+	 * the length fits in 6 bits, 14 bits, 32 or 64 bits (big endian), or if the
+	 * value is a specially encoded string.
+	 */
+	private long length() {
+		int first = buffer.get() & 0xff;
+		switch (first >> 6) {
+		case 0:
+			return first & 0x3f;
+		case 1:
+			return ((first & 0x3f) << 8) | (buffer.get() & 0xff);
+		case 2:
+			if (first == 0x80) {
+				return Integer.toUnsignedLong(Integer.reverseBytes(buffer.getInt()));
+			}
+			if (first == 0x81) {
+				return Long.reverseBytes(buffer.getLong());
+			}
+			throw new IllegalArgumentException("Unknown length encoding: " + first);
+		default:
+			return -1 - (first & 0x3f);
+		}
+	}
+
+	private byte[] string() {
+		long length = length();
+		if (length >= 0) {
+			return bytes((int) length);
+		}
+		int encoding = (int) (-1 - length);
+		switch (encoding) {
+		case ENC_INT8:
+			return integer(buffer.get());
+		case ENC_INT16:
+			return integer(buffer.getShort());
+		case ENC_INT32:
+			return integer(buffer.getInt());
+		case ENC_LZF:
+			int compressedLength = (int) length();
+			int uncompressedLength = (int) length();
+			return Lzf.decompress(bytes(compressedLength), uncompressedLength);
+		default:
+			throw new IllegalArgumentException("Unknown string encoding: " + encoding);
+		}
+	}
+
+	private byte[] bytes(int length) {
+		byte[] bytes = new byte[length];
+		buffer.get(bytes);
+		return bytes;
+	}
+
+	private static byte[] integer(long value) {
+		return Long.toString(value).getBytes(StandardCharsets.US_ASCII);
+	}
+
+	private static Map<byte[], byte[]> map(List<byte[]> entries) {
+		Map<byte[], byte[]> map = new LinkedHashMap<>();
+		for (int index = 0; index + 1 < entries.size(); index += 2) {
+			map.put(entries.get(index), entries.get(index + 1));
+		}
+		return map;
+	}
+
+	private static List<ScoredValue<byte[]>> scoredValues(List<byte[]> entries) {
+		List<ScoredValue<byte[]>> values = new ArrayList<>();
+		for (int index = 0; index + 1 < entries.size(); index += 2) {
+			double score = Double.parseDouble(new String(entries.get(index + 1), StandardCharsets.US_ASCII));
+			values.add(ScoredValue.just(score, entries.get(index)));
+		}
+		return values;
+	}
+
+	private static List<byte[]> intset(byte[] bytes) {
+		ByteBuffer intset = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+		int encoding = intset.getInt();
+		int count = intset.getInt();
+		List<byte[]> members = new ArrayList<>(count);
+		for (int index = 0; index < count; index++) {
+			switch (encoding) {
+			case 2:
+				members.add(integer(intset.getShort()));
+				break;
+			case 4:
+				members.add(integer(intset.getInt()));
+				break;
+			case 8:
+				members.add(integer(intset.getLong()));
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown intset encoding: " + encoding);
+			}
+		}
+		return members;
+	}
+
+	private static Map<byte[], byte[]> zipmap(byte[] bytes) {
+		ByteBuffer zipmap = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+		zipmap.get(); // zmlen
+		Map<byte[], byte[]> map = new LinkedHashMap<>();
+		while (true) {
+			int length = zipmapLength(zipmap);
+			if (length < 0) {
+				return map;
+			}
+			byte[] field = new byte[length];
+			zipmap.get(field);
+			length = zipmapLength(zipmap);
+			int free = zipmap.get() & 0xff;
+			byte[] value = new byte[length];
+			zipmap.get(value);
+			zipmap.position(zipmap.position() + free);
+			map.put(field, value);
+		}
+	}
+
+	private static int zipmapLength(ByteBuffer zipmap) {
+		int length = zipmap.get() & 0xff;
+		if (length == 0xff) {
+			return -1;
+		}
+		if (length == 254) {
+			return zipmap.getInt();
+		}
+		return length;
+	}
+
+	static List<byte[]> ziplist(byte[] bytes) {
+		ByteBuffer ziplist = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+		ziplist.getInt(); // zlbytes
+		ziplist.getInt(); // zltail
+		ziplist.getShort(); // zllen, not reliable above 65535 entries
+		List<byte[]> entries = new ArrayList<>();
+		while ((ziplist.get(ziplist.position()) & 0xff) != 0xff) {
+			int prevlen = ziplist.get() & 0xff;
+			if (prevlen == 254) {
+				ziplist.getInt();
+			}
+			entries.add(ziplistEntry(ziplist));
+		}
+		return entries;
+	}
+
+	private static byte[] ziplistEntry(ByteBuffer ziplist) {
+		int encoding = ziplist.get() & 0xff;
+		switch (encoding >> 6) {
+		case 0:
+			return bytes(ziplist, encoding & 0x3f);
+		case 1:
+			return bytes(ziplist, ((encoding & 0x3f) << 8) | (ziplist.get() & 0xff));
+		case 2:
+			return bytes(ziplist, Integer.reverseBytes(ziplist.getInt()));
+		default:
+			break;
+		}
+		switch (encoding) {
+		case 0xc0:
+			return integer(ziplist.getShort());
+		case 0xd0:
+			return integer(ziplist.getInt());
+		case 0xe0:
+			return integer(ziplist.getLong());
+		case 0xf0:
+			return integer(int24(ziplist));
+		case 0xfe:
+			return integer(ziplist.get());
+		default:
+			// 1111xxxx: immediate value xxxx - 1 between 0 and 12
+			return integer((encoding & 0x0f) - 1);
+		}
+	}
+
+	static List<byte[]> listpack(byte[] bytes) {
+		ByteBuffer listpack = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+		listpack.getInt(); // total bytes
+		listpack.getShort(); // number of elements, not reliable above 65535
+		List<byte[]> entries = new ArrayList<>();
+		while ((listpack.get(listpack.position()) & 0xff) != 0xff) {
+			int start = listpack.position();
+			entries.add(listpackEntry(listpack));
+			skipBacklen(listpack, listpack.position() - start);
+		}
+		return entries;
+	}
+
+	private static byte[] listpackEntry(ByteBuffer listpack) {
+		int encoding = listpack.get() & 0xff;
+		if ((encoding & 0x80) == 0) {
+			return integer(encoding & 0x7f);
+		}
+		if ((encoding & 0xc0) == 0x80) {
+			return bytes(listpack, encoding & 0x3f);
+		}
+		if ((encoding & 0xe0) == 0xc0) {
+			int value = ((encoding & 0x1f) << 8) | (listpack.get() & 0xff);
+			return integer(value >= 1 << 12 ? value - (1 << 13) : value);
+		}
+		if ((encoding & 0xf0) == 0xe0) {
+			return bytes(listpack, ((encoding & 0x0f) << 8) | (listpack.get() & 0xff));
+		}
+		switch (encoding) {
+		case 0xf0:
+			return bytes(listpack, listpack.getInt());
+		case 0xf1:
+			return integer(listpack.getShort());
+		case 0xf2:
+			return integer(int24(listpack));
+		case 0xf3:
+			return integer(listpack.getInt());
+		case 0xf4:
+			return integer(listpack.getLong());
+		default:
+			throw new IllegalArgumentException("Unknown listpack encoding: " + encoding);
+		}
+	}
+
+	private static void skipBacklen(ByteBuffer listpack, int entryLength) {
+		int backlen;
+		if (entryLength <= 127) {
+			backlen = 1;
+		} else if (entryLength < 16383) {
+			backlen = 2;
+		} else if (entryLength < 2097151) {
+			backlen = 3;
+		} else if (entryLength < 268435455) {
+			backlen = 4;
+		} else {
+			backlen = 5;
+		}
+		listpack.position(listpack.position() + backlen);
+	}
+
+	private static int int24(ByteBuffer buffer) {
+		return (buffer.get() & 0xff) | ((buffer.get() & 0xff) << 8) | (buffer.get() << 16);
+	}
+
+	private static byte[] bytes(ByteBuffer buffer, int length) {
+		byte[] bytes = new byte[length];
+		buffer.get(bytes);
+		return bytes;
+	}
+
+	/**
+	 * LZF decompression as implemented by liblzf.
+	 */
+	private static class Lzf {
+
+		private Lzf() {
+		}
+
+		static byte[] decompress(byte[] in, int length) {
+			byte[] out = new byte[length];
+			int ip = 0;
+			int op = 0;
+			while (ip < in.length) {
+				int ctrl = in[ip++] & 0xff;
+				if (ctrl < 32) {
+					int literal = ctrl + 1;
+					System.arraycopy(in, ip, out, op, literal);
+					ip += literal;
+					op += literal;
+				} else {
+					int len = ctrl >> 5;
+					int ref = op - ((ctrl & 0x1f) << 8) - 1;
+					if (len == 7) {
+						len += in[ip++] & 0xff;
+					}
+					ref -= in[ip++] & 0xff;
+					len += 2;
+					for (int index = 0; index < len; index++) {
+						out[op++] = out[ref++];
+					}
+				}
+			}
+			return out;
+		}
+
+	}
+
+}
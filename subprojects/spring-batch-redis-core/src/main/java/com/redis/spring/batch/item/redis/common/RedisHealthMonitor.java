@@ -0,0 +1,246 @@
+package com.redis.spring.batch.item.redis.common;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.util.Assert;
+
+import com.redis.lettucemod.api.StatefulRedisModulesConnection;
+import com.redis.lettucemod.cluster.api.StatefulRedisModulesClusterConnection;
+import com.redis.lettucemod.util.RedisModulesUtils;
+
+import io.lettuce.core.AbstractRedisClient;
+import io.lettuce.core.codec.StringCodec;
+
+/**
+ * Periodically polls INFO on a Redis server (all upstream nodes for a cluster)
+ * and backs off a {@link ConcurrencyLimiter} while the server reports stress:
+ * high instantaneous ops/sec, used memory close to maxmemory, replicas lagging
+ * behind, or blocked clients. Thresholds set to 0 are ignored.
+ */
+public class RedisHealthMonitor {
+
+	public static final Duration DEFAULT_INTERVAL = Duration.ofSeconds(1);
+	public static final double DEFAULT_MAX_MEMORY_RATIO = .9;
+	public static final long DEFAULT_MAX_REPLICATION_LAG = 10 * 1024 * 1024;
+
+	private final Log log = LogFactory.getLog(getClass());
+
+	private AbstractRedisClient client;
+	private ConcurrencyLimiter limiter;
+	private Duration interval = DEFAULT_INTERVAL;
+	private long maxOpsPerSecond;
+	private double maxMemoryRatio = DEFAULT_MAX_MEMORY_RATIO;
+	private long maxReplicationLag = DEFAULT_MAX_REPLICATION_LAG;
+	private long maxBlockedClients;
+
+	private StatefulRedisModulesConnection<String, String> connection;
+	private ScheduledExecutorService executor;
+	private volatile String stress;
+
+	public synchronized void open() {
+		Assert.notNull(client, "Redis client not set");
+		Assert.notNull(limiter, "Concurrency limiter not set");
+		if (executor == null) {
+			connection = RedisModulesUtils.connection(client, StringCodec.UTF8);
+			executor = Executors.newSingleThreadScheduledExecutor();
+			long millis = interval.toMillis();
+			executor.scheduleWithFixedDelay(this::poll, millis, millis, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	public synchronized void close() {
+		if (executor != null) {
+			executor.shutdownNow();
+			executor = null;
+		}
+		if (connection != null) {
+			connection.close();
+			connection = null;
+		}
+	}
+
+	private void poll() {
+		String current;
+		try {
+			current = stress(infos());
+		} catch (Exception e) {
+			log.debug("Could not get server info", e);
+			return;
+		}
+		if (current != null) {
+			if (stress == null) {
+				log.info(String.format("Backing off: %s", current));
+			}
+			limiter.backoff();
+		}
+		stress = current;
+	}
+
+	private List<String> infos() {
+		if (connection instanceof StatefulRedisModulesClusterConnection) {
+			List<String> infos = new ArrayList<>();
+			((StatefulRedisModulesClusterConnection<String, String>) connection).sync().upstream().commands().info()
+					.forEach(infos::add);
+			return infos;
+		}
+		List<String> infos = new ArrayList<>();
+		infos.add(connection.sync().info());
+		return infos;
+	}
+
+	private String stress(List<String> infos) {
+		for (String info : infos) {
+			String stress = stress(parse(info));
+			if (stress != null) {
+				return stress;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 *
+	 * @param info INFO fields
+	 * @return description of the first threshold exceeded, or null if the server
+	 *         is healthy
+	 */
+	String stress(Map<String, String> info) {
+		long ops = longValue(info, "instantaneous_ops_per_sec");
+		if (maxOpsPerSecond > 0 && ops > maxOpsPerSecond) {
+			return String.format("%,d ops/sec", ops);
+		}
+		long maxMemory = longValue(info, "maxmemory");
+		long usedMemory = longValue(info, "used_memory");
+		if (maxMemoryRatio > 0 && maxMemory > 0 && usedMemory > maxMemory * maxMemoryRatio) {
+			return String.format("used memory %,d of %,d bytes", usedMemory, maxMemory);
+		}
+		long lag = replicationLag(info);
+		if (maxReplicationLag > 0 && lag > maxReplicationLag) {
+			return String.format("replication lag %,d bytes", lag);
+		}
+		long blockedClients = longValue(info, "blocked_clients");
+		if (maxBlockedClients > 0 && blockedClients > maxBlockedClients) {
+			return String.format("%,d blocked clients", blockedClients);
+		}
+		return null;
+	}
+
+	/**
+	 *
+	 * @return number of bytes between the primary replication offset and the
+	 *         offset of the furthest behind replica
+	 */
+	private long replicationLag(Map<String, String> info) {
+		long masterOffset = longValue(info, "master_repl_offset");
+		long lag = 0;
+		for (Map.Entry<String, String> entry : info.entrySet()) {
+			if (entry.getKey().matches("slave\\d+")) {
+				for (String property : entry.getValue().split(",")) {
+					if (property.startsWith("offset=")) {
+						long offset = Long.parseLong(property.substring("offset=".length()));
+						lag = Math.max(lag, masterOffset - offset);
+					}
+				}
+			}
+		}
+		return lag;
+	}
+
+	private long longValue(Map<String, String> info, String field) {
+		String value = info.get(field);
+		if (value == null) {
+			return 0;
+		}
+		try {
+			return Long.parseLong(value.trim());
+		} catch (NumberFormatException e) {
+			return 0;
+		}
+	}
+
+	static Map<String, String> parse(String info) {
+		Map<String, String> fields = new HashMap<>();
+		for (String line : info.split("\r?\n")) {
+			int index = line.indexOf(':');
+			if (index > 0 && !line.startsWith("#")) {
+				fields.put(line.substring(0, index), line.substring(index + 1).trim());
+			}
+		}
+		return fields;
+	}
+
+	/**
+	 *
+	 * @return description of the current stress condition, or null if the server
+	 *         was healthy at the last poll
+	 */
+	public String getStress() {
+		return stress;
+	}
+
+	public void setClient(AbstractRedisClient client) {
+		this.client = client;
+	}
+
+	public ConcurrencyLimiter getLimiter() {
+		return limiter;
+	}
+
+	public void setLimiter(ConcurrencyLimiter limiter) {
+		this.limiter = limiter;
+	}
+
+	public Duration getInterval() {
+		return interval;
+	}
+
+	public void setInterval(Duration interval) {
+		this.interval = interval;
+	}
+
+	public long getMaxOpsPerSecond() {
+		return maxOpsPerSecond;
+	}
+
+	public void setMaxOpsPerSecond(long max) {
+		this.maxOpsPerSecond = max;
+	}
+
+	public double getMaxMemoryRatio() {
+		return maxMemoryRatio;
+	}
+
+	public void setMaxMemoryRatio(double ratio) {
+		this.maxMemoryRatio = ratio;
+	}
+
+	public long getMaxReplicationLag() {
+		return maxReplicationLag;
+	}
+
+	/**
+	 *
+	 * @param max max number of bytes replicas can be behind the primary
+	 */
+	public void setMaxReplicationLag(long max) {
+		this.maxReplicationLag = max;
+	}
+
+	public long getMaxBlockedClients() {
+		return maxBlockedClients;
+	}
+
+	public void setMaxBlockedClients(long max) {
+		this.maxBlockedClients = max;
+	}
+
+}
@@ -0,0 +1,208 @@
+package com.redis.spring.batch.item.redis.common;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.api.async.RedisAsyncCommands;
+
+/**
+ * Durability wait (e.g. WAIT or WAITAOF) for the chunks processed by an
+ * {@link OperationExecutor}. A WAIT only covers the writes of the connection it
+ * is sent on, so the wait operation is sent on every connection a chunk wrote
+ * to.
+ * <p>
+ * With the default group size of 1 and no group interval, the wait is
+ * pipelined with each chunk's writes. Otherwise chunks that finish writing
+ * join the current group, and the group is closed once it holds
+ * {@code size} chunks, once it has been open for {@code interval}, or once no
+ * other chunk is writing. Closing a group sends one wait on each connection
+ * written by its chunks. A chunk is only acknowledged once the wait of its
+ * group has returned.
+ */
+public class WaitGroup<K, V> {
+
+	public static final int DEFAULT_SIZE = 1;
+	public static final Duration DEFAULT_INTERVAL = Duration.ZERO;
+
+	private final Operation<K, V, Object, Object> wait;
+
+	private int size = DEFAULT_SIZE;
+	private Duration interval = DEFAULT_INTERVAL;
+
+	private int writers;
+	private Group group;
+
+	/**
+	 *
+	 * @param wait operation that only issues the wait command, e.g. a
+	 *             ReplicaWait with a no-op delegate
+	 */
+	public WaitGroup(Operation<K, V, Object, Object> wait) {
+		this.wait = wait;
+	}
+
+	public boolean isPipelined() {
+		return size <= 1 && interval.isZero();
+	}
+
+	/**
+	 * Registers a chunk that is about to be written.
+	 */
+	public synchronized Chunk enter() {
+		writers++;
+		return new Chunk();
+	}
+
+	/**
+	 * Registers the end of a chunk's writes and closes the current group if it is
+	 * due. The connections of the chunk must have been flushed and released.
+	 *
+	 * @param chunk   chunk returned by {@link #enter()}
+	 * @param written true if all the chunk's writes succeeded, false if the chunk
+	 *                failed and does not need a wait
+	 */
+	public void leave(Chunk chunk, boolean written) {
+		Group closed = null;
+		synchronized (this) {
+			writers--;
+			if (written && !isPipelined() && !chunk.connections.isEmpty()) {
+				if (group == null) {
+					group = new Group();
+				}
+				group.add(chunk);
+			}
+			if (group != null && (writers == 0 || group.chunks >= size || intervalElapsed())) {
+				closed = group;
+				group = null;
+			}
+		}
+		if (closed != null) {
+			closed.send();
+		}
+	}
+
+	private boolean intervalElapsed() {
+		return !interval.isZero() && System.nanoTime() - group.opened >= interval.toNanos();
+	}
+
+	/**
+	 * Blocks until the wait covering the given chunk has returned.
+	 *
+	 * @throws ExecutionException if the wait failed, e.g. because of insufficient
+	 *                            replicas
+	 */
+	public void await(Chunk chunk) throws InterruptedException, ExecutionException {
+		for (RedisFuture<Object> future : chunk.futures) {
+			future.get();
+		}
+		if (chunk.group != null) {
+			chunk.group.future.get();
+		}
+	}
+
+	public int getSize() {
+		return size;
+	}
+
+	/**
+	 *
+	 * @param size max number of chunks covered by a single wait
+	 */
+	public void setSize(int size) {
+		this.size = size;
+	}
+
+	public Duration getInterval() {
+		return interval;
+	}
+
+	/**
+	 *
+	 * @param interval max time a group stays open while other chunks are still
+	 *                 writing. Zero means groups are only bounded by size.
+	 */
+	public void setInterval(Duration interval) {
+		this.interval = interval;
+	}
+
+	public class Chunk {
+
+		private final Map<RedisAsyncCommands<K, V>, Object> connections = new IdentityHashMap<>();
+		private final List<RedisFuture<Object>> futures = new ArrayList<>();
+		private Group group;
+
+		/**
+		 * Records that this chunk wrote to the given connection. Must be called before
+		 * the connection is flushed.
+		 *
+		 * @param lock     object the connection is synchronized on while in use. The
+		 *                 group wait is sent while holding it.
+		 * @param commands commands of the connection that was written to
+		 */
+		public void written(Object lock, RedisAsyncCommands<K, V> commands) {
+			if (isPipelined()) {
+				futures.addAll(wait.execute(commands, Collections.emptyList()));
+			} else {
+				connections.put(commands, lock);
+			}
+		}
+
+		/**
+		 *
+		 * @return true if the wait covering this chunk has returned successfully
+		 */
+		public boolean isAcknowledged() {
+			if (futures.stream().anyMatch(f -> !f.toCompletableFuture().isDone()
+					|| f.toCompletableFuture().isCompletedExceptionally())) {
+				return false;
+			}
+			return group == null || (group.future.isDone() && !group.future.isCompletedExceptionally());
+		}
+
+	}
+
+	private class Group {
+
+		private final long opened = System.nanoTime();
+		private final Map<RedisAsyncCommands<K, V>, Object> connections = new IdentityHashMap<>();
+		private final CompletableFuture<Void> future = new CompletableFuture<>();
+		private int chunks;
+
+		private void add(Chunk chunk) {
+			connections.putAll(chunk.connections);
+			chunk.group = this;
+			chunks++;
+		}
+
+		private void send() {
+			List<CompletableFuture<Object>> futures = new ArrayList<>();
+			try {
+				for (Map.Entry<RedisAsyncCommands<K, V>, Object> connection : connections.entrySet()) {
+					synchronized (connection.getValue()) {
+						wait.execute(connection.getKey(), Collections.emptyList())
+								.forEach(f -> futures.add(f.toCompletableFuture()));
+					}
+				}
+			} catch (RuntimeException e) {
+				future.completeExceptionally(e);
+				return;
+			}
+			CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).whenComplete((v, e) -> {
+				if (e == null) {
+					future.complete(null);
+				} else {
+					future.completeExceptionally(e);
+				}
+			});
+		}
+
+	}
+
+}
@@ -8,7 +8,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
-import java.util.function.ToIntFunction;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import org.springframework.util.CollectionUtils;
@@ -26,23 +26,23 @@ public class DefaultKeyComparator<K, V> implements KeyComparator<K> {
 
 	public static final Duration DEFAULT_TTL_TOLERANCE = Duration.ofMillis(100);
 
-	private final ToIntFunction<K> keyHashCode;
-	private final ToIntFunction<V> valueHashCode;
+	private final Function<K, Object> keyIdentity;
+	private final Function<V, Object> valueIdentity;
 
 	private Duration ttlTolerance = DEFAULT_TTL_TOLERANCE;
 	private boolean ignoreStreamMessageId;
 
 	public DefaultKeyComparator(RedisCodec<K, V> codec) {
-		this.keyHashCode = BatchUtils.hashCodeFunction(codec);
-		this.valueHashCode = BatchUtils.hashCodeFunction(codec);
+		this.keyIdentity = BatchUtils.identityFunction(codec);
+		this.valueIdentity = BatchUtils.identityFunction(codec);
 	}
 
-	private int keyHashCode(K key) {
-		return keyHashCode.applyAsInt(key);
+	private Object keyIdentity(K key) {
+		return keyIdentity.apply(key);
 	}
 
-	private int valueHashCode(V value) {
-		return valueHashCode.applyAsInt(value);
+	private Object valueIdentity(V value) {
+		return valueIdentity.apply(value);
 	}
 
 	@Override
@@ -116,42 +116,42 @@ public class DefaultKeyComparator<K, V> implements KeyComparator<K> {
 	}
 
 	private boolean zsetEquals(Collection<ScoredValue<V>> source, Collection<ScoredValue<V>> target) {
-		return Objects.deepEquals(hashCodeZset(source), hashCodeZset(target));
+		return identityZset(source).equals(identityZset(target));
 	}
 
 	private boolean setEquals(Collection<V> source, Collection<V> target) {
-		return Objects.deepEquals(hashCodeSet(source), hashCodeSet(target));
+		return identitySet(source).equals(identitySet(target));
 	}
 
 	private boolean collectionEquals(Collection<V> source, Collection<V> target) {
-		return Objects.deepEquals(hashCodeList(source), hashCodeList(target));
+		return identityList(source).equals(identityList(target));
 	}
 
 	private boolean mapEquals(Map<K, V> source, Map<K, V> target) {
-		return Objects.deepEquals(hashCodeMap(source), hashCodeMap(target));
+		return identityMap(source).equals(identityMap(target));
 	}
 
-	private Set<ScoredValue<Integer>> hashCodeZset(Collection<ScoredValue<V>> zset) {
-		return zset.stream().map(v -> ScoredValue.just(v.getScore(), valueHashCode(v.getValue())))
+	private Set<ScoredValue<Object>> identityZset(Collection<ScoredValue<V>> zset) {
+		return zset.stream().map(v -> ScoredValue.just(v.getScore(), valueIdentity(v.getValue())))
 				.collect(Collectors.toSet());
 	}
 
-	private Set<Integer> hashCodeSet(Collection<V> set) {
-		return set.stream().map(this::valueHashCode).collect(Collectors.toSet());
+	private Set<Object> identitySet(Collection<V> set) {
+		return set.stream().map(this::valueIdentity).collect(Collectors.toSet());
 	}
 
-	private List<Integer> hashCodeList(Collection<V> collection) {
-		return collection.stream().map(this::valueHashCode).collect(Collectors.toList());
+	private List<Object> identityList(Collection<V> collection) {
+		return collection.stream().map(this::valueIdentity).collect(Collectors.toList());
 	}
 
-	private Map<Integer, Integer> hashCodeMap(Map<K, V> map) {
-		Map<Integer, Integer> intMap = new HashMap<>();
-		map.forEach((k, v) -> intMap.put(keyHashCode(k), valueHashCode(v)));
-		return intMap;
+	private Map<Object, Object> identityMap(Map<K, V> map) {
+		Map<Object, Object> identityMap = new HashMap<>();
+		map.forEach((k, v) -> identityMap.put(keyIdentity(k), valueIdentity(v)));
+		return identityMap;
 	}
 
 	private boolean valueEquals(V source, V target) {
-		return valueHashCode(source) == valueHashCode(target);
+		return Objects.equals(valueIdentity(source), valueIdentity(target));
 	}
 
 	private boolean streamEquals(Collection<StreamMessage<K, V>> source, Collection<StreamMessage<K, V>> target) {
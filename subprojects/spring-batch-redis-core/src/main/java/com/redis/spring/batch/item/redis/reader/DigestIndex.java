@@ -0,0 +1,374 @@
+package com.redis.spring.batch.item.redis.reader;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import org.springframework.util.Assert;
+
+import com.redis.spring.batch.item.redis.common.BinaryKey;
+
+/**
+ * Persistent key to 64-bit digest index used for incremental synchronization.
+ * The index written by the previous run is memory-mapped and looked up through
+ * an off-heap open-addressing table, so neither keys nor digests are held on
+ * the heap. Digests seen during the current run are appended to a temporary
+ * file which replaces the previous index on {@link #commit()}. Digests of
+ * changed keys are held in memory until the keys have been written.
+ * <p>
+ * File layout: a header (magic, version, record count) followed by records
+ * made of the key length, the key bytes and the digest. Records never straddle
+ * a {@value #REGION_SIZE}-byte boundary so that each one can be read from a
+ * single mapped region.
+ */
+public class DigestIndex {
+
+	static final int REGION_SIZE = 1 << 30;
+
+	private static final int MAGIC = 0x53425244;
+	private static final int VERSION = 1;
+	private static final int HEADER_SIZE = 16;
+	private static final int COUNT_OFFSET = 8;
+	private static final int PADDING = -1;
+	private static final int SEGMENT_SIZE = 1 << 27;
+	private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+	private static final String TEMP_SUFFIX = ".tmp";
+
+	private final Path file;
+	private final Path tempFile;
+	private final Map<BinaryKey, Long> pending = new HashMap<>();
+
+	private List<MappedByteBuffer> regions;
+	private LongBuffer[] table;
+	private long mask;
+	private FileChannel output;
+	private ByteBuffer writeBuffer;
+	private long position;
+	private long count;
+
+	public DigestIndex(Path file) {
+		this.file = file;
+		this.tempFile = file.resolveSibling(file.getFileName() + TEMP_SUFFIX);
+	}
+
+	public synchronized boolean isOpen() {
+		return output != null;
+	}
+
+	public synchronized void open() throws IOException {
+		if (isOpen()) {
+			return;
+		}
+		regions = new ArrayList<>();
+		table = null;
+		if (Files.exists(file)) {
+			load();
+		}
+		output = FileChannel.open(tempFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING);
+		writeBuffer = ByteBuffer.allocate(WRITE_BUFFER_SIZE);
+		writeBuffer.putInt(MAGIC).putInt(VERSION).putLong(0);
+		position = HEADER_SIZE;
+		count = 0;
+	}
+
+	private void load() throws IOException {
+		long size;
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			size = channel.size();
+			for (long offset = 0; offset < size; offset += REGION_SIZE) {
+				regions.add(channel.map(MapMode.READ_ONLY, offset, Math.min(REGION_SIZE, size - offset)));
+			}
+		}
+		if (size < HEADER_SIZE || regions.get(0).getInt(0) != MAGIC || regions.get(0).getInt(4) != VERSION) {
+			throw new IOException("Invalid digest index file: " + file);
+		}
+		long records = regions.get(0).getLong(COUNT_OFFSET);
+		long capacity = Long.highestOneBit(Math.max(16, records * 2) - 1) << 1;
+		table = new LongBuffer[(int) ((capacity + SEGMENT_SIZE - 1) / SEGMENT_SIZE)];
+		for (int index = 0; index < table.length; index++) {
+			int segmentSize = (int) Math.min(SEGMENT_SIZE, capacity - (long) index * SEGMENT_SIZE);
+			table[index] = ByteBuffer.allocateDirect(segmentSize * Long.BYTES).asLongBuffer();
+		}
+		mask = capacity - 1;
+		long offset = HEADER_SIZE;
+		while (offset < size) {
+			int remaining = REGION_SIZE - (int) (offset % REGION_SIZE);
+			if (remaining < Integer.BYTES || keyLength(offset) == PADDING) {
+				offset += remaining;
+				continue;
+			}
+			insert(offset);
+			offset += recordSize(keyLength(offset));
+		}
+	}
+
+	private void insert(long offset) {
+		ByteBuffer key = key(offset);
+		long slot = slot(key);
+		while (get(slot) != 0 && !key.equals(key(get(slot)))) {
+			slot = (slot + 1) & mask;
+		}
+		// Later records win over earlier ones for the same key
+		put(slot, offset);
+	}
+
+	private long slot(ByteBuffer key) {
+		long hash = key.hashCode() * 0x9E3779B97F4A7C15L;
+		return (hash ^ (hash >>> 32)) & mask;
+	}
+
+	private long get(long slot) {
+		return table[(int) (slot / SEGMENT_SIZE)].get((int) (slot % SEGMENT_SIZE));
+	}
+
+	private void put(long slot, long offset) {
+		table[(int) (slot / SEGMENT_SIZE)].put((int) (slot % SEGMENT_SIZE), offset);
+	}
+
+	private long find(ByteBuffer key) {
+		if (table == null) {
+			return -1;
+		}
+		long slot = slot(key);
+		long offset;
+		while ((offset = get(slot)) != 0) {
+			if (key.equals(key(Math.abs(offset)))) {
+				return slot;
+			}
+			slot = (slot + 1) & mask;
+		}
+		return -1;
+	}
+
+	private int keyLength(long offset) {
+		return region(offset).getInt(index(offset));
+	}
+
+	private ByteBuffer key(long offset) {
+		return region(offset).slice(index(offset) + Integer.BYTES, keyLength(offset));
+	}
+
+	private long digest(long offset) {
+		return region(offset).getLong(index(offset) + Integer.BYTES + keyLength(offset));
+	}
+
+	private MappedByteBuffer region(long offset) {
+		return regions.get((int) (offset / REGION_SIZE));
+	}
+
+	private int index(long offset) {
+		return (int) (offset % REGION_SIZE);
+	}
+
+	private static int recordSize(int keyLength) {
+		return Integer.BYTES + keyLength + Long.BYTES;
+	}
+
+	/**
+	 * Records the digest of the given key for the current run. The digest of a
+	 * changed key is only recorded once the key has been {@link #written}, so
+	 * that a key that could not be written is read again by the next run.
+	 *
+	 * @param key    encoded key
+	 * @param digest digest of the key's current value
+	 * @return true if the key was not in the previous index or if its digest
+	 *         changed since then
+	 */
+	public synchronized boolean update(ByteBuffer key, long digest) {
+		Assert.state(isOpen(), "Digest index not open");
+		boolean changed = true;
+		long slot = find(key);
+		if (slot >= 0) {
+			long offset = get(slot);
+			changed = digest(Math.abs(offset)) != digest;
+			// Negative offsets mark keys seen during this run
+			put(slot, -Math.abs(offset));
+		}
+		if (changed) {
+			pending.put(BinaryKey.of(bytes(key)), digest);
+		} else {
+			write(key.duplicate(), digest);
+		}
+		return changed;
+	}
+
+	/**
+	 * Records the digest of a changed key once it has been written to the target.
+	 * Keys that were removed since the previous run are dropped from the index.
+	 *
+	 * @param key encoded key
+	 */
+	public synchronized void written(ByteBuffer key) {
+		Assert.state(isOpen(), "Digest index not open");
+		Long digest = pending.remove(BinaryKey.of(bytes(key)));
+		if (digest != null) {
+			write(key.duplicate(), digest);
+		}
+	}
+
+	/**
+	 * Forgets the digest of a changed key that could not be written, so that the
+	 * next run reads it again. A removed key that could not be deleted is kept
+	 * with its previous digest, so that the next run deletes it again.
+	 *
+	 * @param key encoded key
+	 */
+	public synchronized void failed(ByteBuffer key) {
+		Assert.state(isOpen(), "Digest index not open");
+		if (pending.remove(BinaryKey.of(bytes(key))) != null) {
+			return;
+		}
+		long slot = find(key);
+		if (slot >= 0 && get(slot) > 0) {
+			long offset = get(slot);
+			write(key.duplicate(), digest(offset));
+			put(slot, -offset);
+		}
+	}
+
+	private static byte[] bytes(ByteBuffer key) {
+		byte[] bytes = new byte[key.remaining()];
+		key.duplicate().get(bytes);
+		return bytes;
+	}
+
+	private void write(ByteBuffer key, long digest) {
+		try {
+			append(key, digest);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private void append(ByteBuffer key, long digest) throws IOException {
+		int size = recordSize(key.remaining());
+		int remaining = REGION_SIZE - (int) (position % REGION_SIZE);
+		if (size > remaining) {
+			ByteBuffer padding = ByteBuffer.allocate(remaining);
+			if (remaining >= Integer.BYTES) {
+				padding.putInt(0, PADDING);
+			}
+			append(padding);
+			position += remaining;
+		}
+		append(ByteBuffer.allocate(Integer.BYTES).putInt(0, key.remaining()));
+		append(key);
+		append(ByteBuffer.allocate(Long.BYTES).putLong(0, digest));
+		position += size;
+		count++;
+	}
+
+	private void append(ByteBuffer bytes) throws IOException {
+		while (bytes.hasRemaining()) {
+			if (!writeBuffer.hasRemaining()) {
+				flush();
+			}
+			int length = Math.min(bytes.remaining(), writeBuffer.remaining());
+			ByteBuffer chunk = bytes.slice();
+			chunk.limit(length);
+			writeBuffer.put(chunk);
+			bytes.position(bytes.position() + length);
+		}
+	}
+
+	private void flush() throws IOException {
+		writeBuffer.flip();
+		while (writeBuffer.hasRemaining()) {
+			output.write(writeBuffer);
+		}
+		writeBuffer.clear();
+	}
+
+	/**
+	 *
+	 * @return keys of the previous index that were not updated during this run,
+	 *         i.e. keys that no longer exist
+	 */
+	public synchronized Iterator<ByteBuffer> removedKeys() {
+		return new Iterator<ByteBuffer>() {
+
+			private long slot = next(0);
+
+			private long next(long from) {
+				if (table == null) {
+					return -1;
+				}
+				for (long index = from; index <= mask; index++) {
+					if (get(index) > 0) {
+						return index;
+					}
+				}
+				return -1;
+			}
+
+			@Override
+			public boolean hasNext() {
+				return slot >= 0;
+			}
+
+			@Override
+			public ByteBuffer next() {
+				if (slot < 0) {
+					throw new NoSuchElementException();
+				}
+				ByteBuffer key = key(get(slot));
+				slot = next(slot + 1);
+				return key;
+			}
+		};
+	}
+
+	/**
+	 * Replaces the previous index with the digests recorded during this run and
+	 * closes the index.
+	 */
+	public synchronized void commit() throws IOException {
+		Assert.state(isOpen(), "Digest index not open");
+		flush();
+		output.write(ByteBuffer.allocate(Long.BYTES).putLong(0, count), COUNT_OFFSET);
+		output.force(false);
+		output.close();
+		output = null;
+		release();
+		Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Closes the index without committing: the previous index is left untouched.
+	 */
+	public synchronized void close() throws IOException {
+		if (output != null) {
+			output.close();
+			output = null;
+			Files.deleteIfExists(tempFile);
+		}
+		release();
+	}
+
+	private void release() {
+		regions = null;
+		table = null;
+		writeBuffer = null;
+		pending.clear();
+	}
+
+	public Path getFile() {
+		return file;
+	}
+
+}
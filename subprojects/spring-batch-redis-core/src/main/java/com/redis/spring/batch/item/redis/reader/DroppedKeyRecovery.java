@@ -0,0 +1,147 @@
+package com.redis.spring.batch.item.redis.reader;
+
+import java.time.Duration;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+import com.redis.spring.batch.item.redis.common.DedupBlockingQueue;
+
+import io.lettuce.core.cluster.SlotHash;
+import io.lettuce.core.codec.RedisCodec;
+
+/**
+ * Keeps track of keys whose notification was dropped because the notification
+ * queue was full so they can be read once the queue drains. Dropped keys are
+ * kept in a bounded set; when that set is full only the hash slot of the key
+ * is recorded and the affected slots are later recovered by the scanner, which
+ * is given the slots to recover. Keys it yields outside of those slots are
+ * skipped, so a scanner may iterate over the whole keyspace. Such scanners
+ * should be given a scan interval: slots dropped within the interval after a
+ * scan started wait for the next one.
+ */
+class DroppedKeyRecovery<K> {
+
+	private final RedisCodec<K, ?> codec;
+	private final DedupBlockingQueue<K> keys;
+	private final Function<BitSet, Iterator<K>> scanner;
+	private final int maxScanSteps;
+	private final BitSet slots = new BitSet(SlotHash.SLOT_COUNT);
+
+	private LongSupplier nanoTime = System::nanoTime;
+	private Duration scanInterval = Duration.ZERO;
+	private boolean scanned;
+	private long lastScan;
+	private BitSet scanSlots;
+	private Iterator<K> scan;
+
+	DroppedKeyRecovery(RedisCodec<K, ?> codec, int capacity, Function<BitSet, Iterator<K>> scanner,
+			int maxScanSteps) {
+		this.codec = codec;
+		this.keys = DedupBlockingQueue.identity(capacity);
+		this.scanner = scanner;
+		this.maxScanSteps = maxScanSteps;
+	}
+
+	public void add(K key) {
+		if (!keys.offer(key)) {
+			synchronized (slots) {
+				slots.set(slot(key));
+			}
+		}
+	}
+
+	/**
+	 * Schedules the recovery of all slots, e.g. because notifications may have
+	 * been missed.
+	 */
+	public void addAll() {
+		synchronized (slots) {
+			slots.set(0, SlotHash.SLOT_COUNT);
+		}
+	}
+
+	private int slot(K key) {
+		return SlotHash.getSlot(codec.encodeKey(key));
+	}
+
+	public boolean isEmpty() {
+		if (!keys.isEmpty() || scan != null) {
+			return false;
+		}
+		synchronized (slots) {
+			return slots.isEmpty();
+		}
+	}
+
+	public int size() {
+		return keys.size();
+	}
+
+	/**
+	 * @return next key to recover or null if there is none, or if no key in the
+	 *         affected slots was found within the maximum number of scan steps
+	 */
+	public K poll() {
+		K key = keys.poll();
+		if (key != null) {
+			return key;
+		}
+		if (scan == null && !startScan()) {
+			return null;
+		}
+		for (int step = 0; step < maxScanSteps; step++) {
+			if (!scan.hasNext()) {
+				scan = null;
+				scanSlots = null;
+				return null;
+			}
+			key = scan.next();
+			if (scanSlots.get(slot(key))) {
+				return key;
+			}
+		}
+		return null;
+	}
+
+	private boolean startScan() {
+		long now = nanoTime.getAsLong();
+		if (scanned && now - lastScan < scanInterval.toNanos()) {
+			return false;
+		}
+		synchronized (slots) {
+			if (slots.isEmpty()) {
+				return false;
+			}
+			// Slots dropped while scanning are recovered by the next scan
+			scanSlots = (BitSet) slots.clone();
+			slots.clear();
+		}
+		scanned = true;
+		lastScan = now;
+		scan = scanner.apply(scanSlots);
+		return true;
+	}
+
+	/**
+	 * @param interval minimum time between the starts of two scans
+	 */
+	public void setScanInterval(Duration interval) {
+		this.scanInterval = interval;
+	}
+
+	void setNanoTime(LongSupplier nanoTime) {
+		this.nanoTime = nanoTime;
+	}
+
+	public void clear() {
+		keys.clear();
+		scan = null;
+		scanSlots = null;
+		synchronized (slots) {
+			slots.clear();
+		}
+	}
+
+}
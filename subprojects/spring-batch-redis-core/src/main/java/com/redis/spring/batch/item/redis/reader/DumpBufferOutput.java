@@ -0,0 +1,40 @@
+package com.redis.spring.batch.item.redis.reader;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.redis.spring.batch.item.redis.common.ByteBufCodec;
+
+import io.lettuce.core.codec.RedisCodec;
+import io.lettuce.core.output.CommandOutput;
+import io.netty.buffer.PooledByteBufAllocator;
+
+/**
+ * Output for the key-value script in DUMP mode that copies the DUMP payload
+ * straight from the reply into a pooled buffer. Other elements are decoded
+ * with the codec.
+ */
+class DumpBufferOutput<K, V> extends CommandOutput<K, V, List<Object>> {
+
+	private static final int VALUE_INDEX = 5;
+
+	public DumpBufferOutput(RedisCodec<K, V> codec) {
+		super(codec, new ArrayList<>());
+	}
+
+	@Override
+	public void set(ByteBuffer bytes) {
+		if (output.size() == VALUE_INDEX) {
+			output.add(ByteBufCodec.copy(PooledByteBufAllocator.DEFAULT, bytes));
+		} else {
+			output.add(bytes == null ? null : codec.decodeValue(bytes));
+		}
+	}
+
+	@Override
+	public void set(long integer) {
+		output.add(integer);
+	}
+
+}
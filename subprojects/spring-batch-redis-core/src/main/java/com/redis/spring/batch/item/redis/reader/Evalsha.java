@@ -2,6 +2,7 @@ package com.redis.spring.batch.item.redis.reader;
 
 import java.util.List;
 import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 
@@ -12,19 +13,25 @@ import io.lettuce.core.RedisFuture;
 import io.lettuce.core.ScriptOutputType;
 import io.lettuce.core.api.async.RedisAsyncCommands;
 import io.lettuce.core.codec.RedisCodec;
+import io.lettuce.core.output.CommandOutput;
+import io.lettuce.core.protocol.CommandArgs;
+import io.lettuce.core.protocol.CommandType;
 
 @SuppressWarnings("unchecked")
 public class Evalsha<K, V, I> implements Operation<K, V, I, List<Object>> {
 
 	private static final Object[] EMPTY_ARRAY = new Object[0];
 
+	private final RedisCodec<K, V> codec;
 	private final Function<I, K> keyFunction;
 	private final Function<String, V> stringValueFunction;
 
 	private Function<I, V[]> argsFunction = t -> (V[]) EMPTY_ARRAY;
+	private Supplier<CommandOutput<K, V, List<Object>>> outputSupplier;
 	private String digest;
 
 	public Evalsha(RedisCodec<K, V> codec, Function<I, K> key) {
+		this.codec = codec;
 		this.stringValueFunction = BatchUtils.stringValueFunction(codec);
 		this.keyFunction = key;
 	}
@@ -38,7 +45,22 @@ public class Evalsha<K, V, I> implements Operation<K, V, I, List<Object>> {
 	public RedisFuture<List<Object>> execute(RedisAsyncCommands<K, V> commands, I item) {
 		K[] keys = (K[]) new Object[] { keyFunction.apply(item) };
 		V[] args = argsFunction.apply(item);
-		return commands.evalsha(digest, ScriptOutputType.MULTI, keys, args);
+		if (outputSupplier == null) {
+			return commands.evalsha(digest, ScriptOutputType.MULTI, keys, args);
+		}
+		CommandArgs<K, V> commandArgs = new CommandArgs<>(codec).add(digest).add(keys.length).addKeys(keys)
+				.addValues(args);
+		return commands.dispatch(CommandType.EVALSHA, outputSupplier.get(), commandArgs);
+	}
+
+	/**
+	 * 
+	 * @param supplier supplier of custom outputs for the script reply, e.g. to
+	 *                 decode some elements differently. Null means the reply is
+	 *                 decoded as a nested multi-bulk.
+	 */
+	public void setOutputSupplier(Supplier<CommandOutput<K, V, List<Object>>> supplier) {
+		this.outputSupplier = supplier;
 	}
 
 	public void setArgsFunction(Function<I, V[]> function) {
@@ -0,0 +1,29 @@
+package com.redis.spring.batch.item.redis.reader;
+
+public class HotKey<T> {
+
+	private final T key;
+	private final long count;
+
+	public HotKey(T key, long count) {
+		this.key = key;
+		this.count = count;
+	}
+
+	public T getKey() {
+		return key;
+	}
+
+	/**
+	 * @return estimated number of recent notifications, decayed over time
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	@Override
+	public String toString() {
+		return "HotKey [key=" + key + ", count=" + count + "]";
+	}
+
+}
@@ -0,0 +1,16 @@
+package com.redis.spring.batch.item.redis.reader;
+
+public enum HotKeyPolicy {
+
+	/**
+	 * Hot keys are only reported.
+	 */
+	NONE,
+
+	/**
+	 * Hot keys are moved to a separate queue that is debounced over a longer
+	 * window and polled with lower priority than other keys.
+	 */
+	LANE
+
+}
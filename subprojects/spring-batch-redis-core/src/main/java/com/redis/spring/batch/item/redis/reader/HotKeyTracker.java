@@ -0,0 +1,188 @@
+package com.redis.spring.batch.item.redis.reader;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import com.redis.spring.batch.item.redis.common.BinaryKey;
+import com.redis.spring.batch.item.redis.common.CountMinSketch;
+
+/**
+ * Streaming detection of hot keys and key prefixes. Notifications are counted
+ * in a count-min sketch whose counts are halved every decay interval, so
+ * counts approximate a moving window. A key is hot when its estimated count
+ * reaches the threshold; the hottest keys and prefixes are kept in bounded
+ * top-K tables, which are only touched for hot keys.
+ * <p>
+ * The sketch is sized from the threshold and the notification rate: when the
+ * number of recent notifications would let estimates overcount by more than
+ * half the threshold, the sketch is replaced by a wider one at the next decay.
+ */
+class HotKeyTracker<K> {
+
+	public static final Duration DEFAULT_DECAY_INTERVAL = Duration.ofSeconds(1);
+
+	private static final byte PREFIX_SEPARATOR = ':';
+
+	private static class Entry<T> {
+
+		private final T key;
+		private int count;
+
+		private Entry(T key, int count) {
+			this.key = key;
+			this.count = count;
+		}
+
+	}
+
+	private final Map<Object, Entry<K>> keys = new HashMap<>();
+	private final Map<Object, Entry<String>> prefixes = new HashMap<>();
+	private final int threshold;
+	private final int capacity;
+	private final long decayInterval;
+
+	private CountMinSketch sketch = new CountMinSketch();
+	private Consumer<List<HotKey<K>>> listener;
+	private long lastDecay = System.nanoTime();
+	private long events;
+	private long total;
+
+	HotKeyTracker(int threshold, int capacity, Duration decayInterval) {
+		this.threshold = threshold;
+		this.capacity = capacity;
+		this.decayInterval = decayInterval.toNanos();
+	}
+
+	/**
+	 * Records a notification for the given key.
+	 *
+	 * @param key    decoded key
+	 * @param bytes  buffer holding the raw key
+	 * @param offset offset of the raw key
+	 * @param length length of the raw key
+	 * @return true if the key is hot
+	 */
+	public synchronized boolean add(K key, byte[] bytes, int offset, int length) {
+		decayIfDue();
+		int prefixLength = prefixLength(bytes, offset, length);
+		if (prefixLength > 0) {
+			events++;
+			int count = sketch.add(bytes, offset, prefixLength);
+			if (count >= threshold) {
+				BinaryKey prefix = BinaryKey.of(Arrays.copyOfRange(bytes, offset, offset + prefixLength));
+				track(prefixes, prefix, () -> new String(prefix.getBytes(), StandardCharsets.UTF_8), count);
+			}
+		}
+		events++;
+		int count = sketch.add(bytes, offset, length);
+		if (count < threshold) {
+			return false;
+		}
+		track(keys, BinaryKey.identity(key), () -> key, count);
+		return true;
+	}
+
+	private static int prefixLength(byte[] bytes, int offset, int length) {
+		// Prefix includes the separator; keys without a separator have none
+		for (int index = offset; index < offset + length - 1; index++) {
+			if (bytes[index] == PREFIX_SEPARATOR) {
+				return index - offset + 1;
+			}
+		}
+		return 0;
+	}
+
+	private <T> void track(Map<Object, Entry<T>> entries, Object identity, Supplier<T> key, int count) {
+		Entry<T> entry = entries.get(identity);
+		if (entry != null) {
+			entry.count = count;
+			return;
+		}
+		if (entries.size() >= capacity) {
+			Map.Entry<Object, Entry<T>> coldest = null;
+			for (Map.Entry<Object, Entry<T>> candidate : entries.entrySet()) {
+				if (coldest == null || candidate.getValue().count < coldest.getValue().count) {
+					coldest = candidate;
+				}
+			}
+			if (coldest == null || coldest.getValue().count >= count) {
+				return;
+			}
+			entries.remove(coldest.getKey());
+		}
+		entries.put(identity, new Entry<>(key.get(), count));
+	}
+
+	private void decayIfDue() {
+		long now = System.nanoTime();
+		if (now - lastDecay < decayInterval) {
+			return;
+		}
+		lastDecay = now;
+		decay();
+	}
+
+	/**
+	 * Halves all counts and widens the sketch if needed. A wider sketch starts
+	 * from zero while tracked hot keys and prefixes keep their counts.
+	 */
+	synchronized void decay() {
+		sketch.halve();
+		decay(keys);
+		decay(prefixes);
+		// Same recurrence as the sketch's total count
+		total = (total >>> 1) + events;
+		events = 0;
+		int width = CountMinSketch.width(total, Math.max(1, threshold / 2));
+		if (width > sketch.getWidth()) {
+			sketch = new CountMinSketch(CountMinSketch.DEFAULT_DEPTH, width);
+		}
+		if (listener != null) {
+			listener.accept(list(keys));
+		}
+	}
+
+	private <T> void decay(Map<Object, Entry<T>> entries) {
+		entries.values().removeIf(e -> {
+			e.count >>>= 1;
+			return e.count < threshold;
+		});
+	}
+
+	synchronized int getSketchWidth() {
+		return sketch.getWidth();
+	}
+
+	/**
+	 * @param listener called with the current hot keys after each decay
+	 */
+	synchronized void setListener(Consumer<List<HotKey<K>>> listener) {
+		this.listener = listener;
+	}
+
+	public synchronized List<HotKey<K>> hotKeys() {
+		return list(keys);
+	}
+
+	public synchronized List<HotKey<String>> hotPrefixes() {
+		return list(prefixes);
+	}
+
+	private <T> List<HotKey<T>> list(Map<Object, Entry<T>> entries) {
+		List<HotKey<T>> list = new ArrayList<>();
+		for (Entry<T> entry : entries.values()) {
+			list.add(new HotKey<>(entry.key, entry.count));
+		}
+		list.sort(Comparator.comparingLong(HotKey<T>::getCount).reversed());
+		return list;
+	}
+
+}
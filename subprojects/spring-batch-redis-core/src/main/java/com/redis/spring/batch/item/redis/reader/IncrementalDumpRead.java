@@ -0,0 +1,110 @@
+package com.redis.spring.batch.item.redis.reader;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.springframework.util.Assert;
+
+import com.redis.spring.batch.item.redis.common.BatchUtils;
+import com.redis.spring.batch.item.redis.common.InitializingOperation;
+import com.redis.spring.batch.item.redis.common.KeyValue;
+
+import io.lettuce.core.AbstractRedisClient;
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.RedisURI;
+import io.lettuce.core.api.async.RedisAsyncCommands;
+import io.lettuce.core.codec.RedisCodec;
+
+/**
+ * Read operation for incremental synchronization: pipelines a server-side
+ * digest of each key (CRC64 of its DUMP payload), records it in a
+ * {@link DigestIndex} and only reads the full DUMP payload of keys whose digest
+ * changed since the previous run. Unchanged keys produce no item. Digests of
+ * changed keys are only committed to the index once the writer reports them as
+ * written (see {@link com.redis.spring.batch.item.redis.RedisItemWriter#setDigestIndex(DigestIndex)}).
+ */
+public class IncrementalDumpRead<K, V> implements InitializingOperation<K, V, K, KeyValue<K, byte[]>> {
+
+	public static final Duration DEFAULT_TIMEOUT = RedisURI.DEFAULT_TIMEOUT_DURATION;
+
+	private final RedisCodec<K, V> codec;
+	private final DigestIndex index;
+	private final KeyValueRead<K, V, byte[]> digestRead;
+	private final KeyValueRead<K, V, byte[]> dumpRead;
+
+	private Duration timeout = DEFAULT_TIMEOUT;
+
+	public IncrementalDumpRead(RedisCodec<K, V> codec, DigestIndex index) {
+		this.codec = codec;
+		this.index = index;
+		this.digestRead = KeyValueRead.digest(codec);
+		this.digestRead.setMemUsageLimit(KeyValueRead.MEM_USAGE_OFF);
+		this.dumpRead = KeyValueRead.dump(codec);
+	}
+
+	@Override
+	public void setClient(AbstractRedisClient client) {
+		digestRead.setClient(client);
+		dumpRead.setClient(client);
+	}
+
+	@Override
+	public void afterPropertiesSet() throws Exception {
+		Assert.state(index.isOpen(), "Digest index not open");
+		digestRead.afterPropertiesSet();
+		dumpRead.afterPropertiesSet();
+	}
+
+	@Override
+	public List<RedisFuture<KeyValue<K, byte[]>>> execute(RedisAsyncCommands<K, V> commands,
+			Iterable<? extends K> items) {
+		List<RedisFuture<KeyValue<K, byte[]>>> digestFutures = digestRead.execute(commands, items);
+		commands.flushCommands();
+		List<K> changedKeys = new ArrayList<>();
+		for (KeyValue<K, byte[]> digest : BatchUtils.await(timeout, digestFutures)) {
+			if (!KeyValue.exists(digest) || !KeyValue.hasValue(digest)
+					|| index.update(codec.encodeKey(digest.getKey()), digest(digest))) {
+				changedKeys.add(digest.getKey());
+			}
+		}
+		if (changedKeys.isEmpty()) {
+			return Collections.emptyList();
+		}
+		return dumpRead.execute(commands, changedKeys);
+	}
+
+	/**
+	 * DUMP payloads do not include the expiration so it is folded into the
+	 * digest. The expiration time is read with PEXPIRETIME where available and is
+	 * then exact; second granularity absorbs the read-time jitter of older
+	 * servers.
+	 */
+	@SuppressWarnings("unchecked")
+	private long digest(KeyValue<K, byte[]> keyValue) {
+		Object value = keyValue.getValue();
+		ByteBuffer checksum = value instanceof byte[] ? ByteBuffer.wrap((byte[]) value)
+				: codec.encodeValue((V) value);
+		long expireAt = KeyValue.hasTtl(keyValue) ? KeyValue.absoluteTTL(keyValue) / 1000 : 0;
+		return 31 * checksum.getLong(checksum.position()) + expireAt;
+	}
+
+	public DigestIndex getIndex() {
+		return index;
+	}
+
+	public KeyValueRead<K, V, byte[]> getDumpRead() {
+		return dumpRead;
+	}
+
+	public Duration getTimeout() {
+		return timeout;
+	}
+
+	public void setTimeout(Duration timeout) {
+		this.timeout = timeout;
+	}
+
+}
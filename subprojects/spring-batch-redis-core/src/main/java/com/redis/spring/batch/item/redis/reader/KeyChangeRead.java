@@ -0,0 +1,80 @@
+package com.redis.spring.batch.item.redis.reader;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+import com.redis.spring.batch.item.redis.common.CompositeOperation;
+import com.redis.spring.batch.item.redis.common.KeyChange;
+import com.redis.spring.batch.item.redis.common.KeyValue;
+import com.redis.spring.batch.item.redis.common.Operation;
+
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.api.async.RedisAsyncCommands;
+
+/**
+ * Read operation that skips the value read of keys whose pending change is
+ * metadata-only: deleted keys become tombstones, TTL changes only read the TTL
+ * and renamed keys are not read at all. Other keys are read by the delegate.
+ */
+public class KeyChangeRead<K, V, T> extends CompositeOperation<K, V, K, KeyValue<K, T>> {
+
+	private final KeyChanges<K> changes;
+
+	public KeyChangeRead(Operation<K, V, K, KeyValue<K, T>> delegate, KeyChanges<K> changes) {
+		super(delegate);
+		this.changes = changes;
+	}
+
+	@Override
+	public List<RedisFuture<KeyValue<K, T>>> execute(RedisAsyncCommands<K, V> commands,
+			Iterable<? extends K> items) {
+		List<RedisFuture<KeyValue<K, T>>> futures = new ArrayList<>();
+		List<K> keys = new ArrayList<>();
+		for (K key : items) {
+			KeyChanges.Change<K> change = changes.take(key);
+			if (change == null) {
+				keys.add(key);
+				continue;
+			}
+			// Read the keys before this one first so that results keep the key order
+			read(commands, keys, futures);
+			if (change.getType() == KeyChange.TTL) {
+				futures.add(new MappingRedisFuture<>(commands.pttl(key), ttl -> ttl(key, ttl)));
+			} else {
+				KeyValue<K, T> keyValue = keyValue(key, change.getType());
+				keyValue.setRenamedFrom(change.getRenamedFrom());
+				if (change.getType() == KeyChange.DELETE) {
+					keyValue.setTtl(KeyValue.TTL_NO_KEY);
+				}
+				futures.add(new MappingRedisFuture<>(CompletableFuture.completedFuture(keyValue), Function.identity()));
+			}
+		}
+		read(commands, keys, futures);
+		return futures;
+	}
+
+	private void read(RedisAsyncCommands<K, V> commands, List<K> keys, List<RedisFuture<KeyValue<K, T>>> futures) {
+		if (!keys.isEmpty()) {
+			futures.addAll(delegate.execute(commands, keys));
+			keys.clear();
+		}
+	}
+
+	private KeyValue<K, T> ttl(K key, long ttl) {
+		// Key may have expired since its TTL changed
+		KeyValue<K, T> keyValue = keyValue(key, ttl == KeyValue.TTL_NO_KEY ? KeyChange.DELETE : KeyChange.TTL);
+		keyValue.setTtl(ttl);
+		return keyValue;
+	}
+
+	private KeyValue<K, T> keyValue(K key, KeyChange change) {
+		KeyValue<K, T> keyValue = new KeyValue<>();
+		keyValue.setKey(key);
+		keyValue.setTime(System.currentTimeMillis());
+		keyValue.setChange(change);
+		return keyValue;
+	}
+
+}
@@ -0,0 +1,188 @@
+package com.redis.spring.batch.item.redis.reader;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import com.redis.spring.batch.item.redis.common.BatchUtils;
+import com.redis.spring.batch.item.redis.common.KeyChange;
+
+import io.lettuce.core.cluster.SlotHash;
+import io.lettuce.core.codec.RedisCodec;
+
+/**
+ * Pending change of queued keys as told by their notifications, so that keys
+ * whose metadata only changed are not read in full. A key without a pending
+ * change must be read in full: events merged into a key that is already queued
+ * can only downgrade its change.
+ */
+public class KeyChanges<K> {
+
+	private static final String RENAME_FROM = "rename_from";
+	private static final String RENAME_TO = "rename_to";
+	private static final Set<String> DELETE_EVENTS = Set.of("del", "expired", "evicted", "move_from", RENAME_FROM);
+	private static final Set<String> TTL_EVENTS = Set.of("expire", "persist");
+
+	private final Change<K> delete = new Change<>(KeyChange.DELETE, null);
+	private final Change<K> ttl = new Change<>(KeyChange.TTL, null);
+	private final Map<Object, Change<K>> changes = new ConcurrentHashMap<>();
+	private final ThreadLocal<K> renamedKey = new ThreadLocal<>();
+	private final RedisCodec<K, ?> codec;
+	private final Function<K, Object> identity;
+
+	private boolean renames;
+	private Consumer<K> fallback;
+
+	public KeyChanges(RedisCodec<K, ?> codec) {
+		this.codec = codec;
+		this.identity = BatchUtils.identityFunction(codec);
+	}
+
+	public static class Change<K> {
+
+		private final KeyChange type;
+		private final K renamedFrom;
+
+		private Change(KeyChange type, K renamedFrom) {
+			this.type = type;
+			this.renamedFrom = renamedFrom;
+		}
+
+		public KeyChange getType() {
+			return type;
+		}
+
+		public K getRenamedFrom() {
+			return renamedFrom;
+		}
+
+	}
+
+	private Change<K> change(KeyEvent event) {
+		if (DELETE_EVENTS.contains(event.getName())) {
+			return delete;
+		}
+		if (TTL_EVENTS.contains(event.getName())) {
+			return ttl;
+		}
+		return null;
+	}
+
+	/**
+	 * Records an event before its key is offered to the queue.
+	 *
+	 * @param queued true if the key is already queued
+	 */
+	void event(K key, KeyEvent event, boolean queued) {
+		Object id = identity.apply(key);
+		Change<K> change = change(event);
+		if (change == null) {
+			changes.remove(id);
+		} else if (queued) {
+			changes.computeIfPresent(id, (k, previous) -> merge(previous, change));
+		} else {
+			changes.merge(id, change, this::merge);
+		}
+	}
+
+	private Change<K> merge(Change<K> previous, Change<K> change) {
+		if (change == delete || (change == ttl && previous == ttl)) {
+			return change;
+		}
+		// Value must be read
+		return null;
+	}
+
+	/**
+	 * Forgets the change of a key that is queued without its notification, which
+	 * means it must be read in full.
+	 */
+	void reset(K key) {
+		changes.remove(identity.apply(key));
+	}
+
+	/**
+	 * Pairs the <code>rename_from</code> and <code>rename_to</code> events the
+	 * server sends one after the other on the same connection. The new key then
+	 * stands for a RENAME of the old key, provided both were newly queued and
+	 * both keys hash to the same slot, so that the RENAME also works on a cluster
+	 * target. Otherwise the old key is deleted and the new key read in full.
+	 *
+	 * @param accepted true if the key was newly queued by this event
+	 * @return old key that must be removed from the queue, or null if the events
+	 *         are not paired
+	 */
+	K renamed(K key, KeyEvent event, boolean accepted) {
+		if (!renames) {
+			return null;
+		}
+		K from = renamedKey.get();
+		if (RENAME_FROM.equals(event.getName())) {
+			renamedKey.set(accepted ? key : null);
+			return null;
+		}
+		if (from == null) {
+			return null;
+		}
+		renamedKey.remove();
+		if (!accepted || !RENAME_TO.equals(event.getName())) {
+			return null;
+		}
+		Object fromId = identity.apply(from);
+		Object toId = identity.apply(key);
+		if (fromId.equals(toId) || slot(from) != slot(key) || !changes.remove(fromId, delete)) {
+			return null;
+		}
+		changes.put(toId, new Change<>(KeyChange.RENAME, from));
+		return from;
+	}
+
+	private int slot(K key) {
+		return SlotHash.getSlot(codec.encodeKey(key));
+	}
+
+	/**
+	 * Reads the given key in full, e.g. because the target did not hold the old
+	 * key of its RENAME.
+	 */
+	public void fallback(K key) {
+		changes.remove(identity.apply(key));
+		if (fallback != null) {
+			fallback.accept(key);
+		}
+	}
+
+	/**
+	 * @return pending change of the given key, or null if it must be read in full
+	 */
+	public Change<K> take(K key) {
+		return changes.remove(identity.apply(key));
+	}
+
+	public int size() {
+		return changes.size();
+	}
+
+	public boolean isRenames() {
+		return renames;
+	}
+
+	/**
+	 * @param renames whether to pair rename events into a single RENAME. Renames
+	 *                whose old key is missing on the target must be passed to
+	 *                {@link #fallback(Object)}.
+	 */
+	public void setRenames(boolean renames) {
+		this.renames = renames;
+	}
+
+	/**
+	 * @param fallback queues a key again so that it is read in full
+	 */
+	public void setFallback(Consumer<K> fallback) {
+		this.fallback = fallback;
+	}
+
+}
@@ -0,0 +1,140 @@
+package com.redis.spring.batch.item.redis.reader;
+
+import java.nio.charset.StandardCharsets;
+
+import com.redis.spring.batch.item.redis.common.DataType;
+
+/**
+ * Keyspace notification event. Known events are interned in a table that is
+ * looked up straight from the notification bytes, so that parsing an event
+ * does not allocate.
+ */
+public final class KeyEvent {
+
+	private static final String[] NONE_EVENTS = { "del", "expire", "expired", "evicted", "rename_from", "rename_to",
+			"persist", "new", "move_from", "move_to", "copy_to", "restore", "overwritten", "type_changed",
+			"invalidate" };
+	private static final String[] STRING_EVENTS = { "set", "setrange", "incrby", "incrbyfloat", "append" };
+	private static final String[] LIST_EVENTS = { "lpush", "rpush", "rpop", "lpop", "linsert", "lset", "lrem",
+			"ltrim" };
+	private static final String[] HASH_EVENTS = { "hset", "hincrby", "hincrbyfloat", "hdel" };
+	private static final String[] SET_EVENTS = { "sadd", "spop", "sinterstore", "sunionstore", "sdiffstore" };
+	private static final String[] ZSET_EVENTS = { "zincr", "zadd", "zrem", "zrembyscore", "zrembyrank", "zdiffstore",
+			"zinterstore", "zunionstore" };
+	private static final String[] STREAM_EVENTS = { "xadd", "xtrim", "xdel", "xsetid", "xgroup-create",
+			"xgroup-createconsumer", "xgroup-delconsumer", "xgroup-destroy", "xgroup-setid" };
+	private static final String[] TIMESERIES_EVENTS = { "ts.add", "ts.incrby", "ts.decrby", "ts.create",
+			"ts.alter", "ts.del", "ts.createrule", "ts.deleterule" };
+	private static final String[] JSON_EVENTS = { "json.set", "json.del", "json.merge", "json.mset",
+			"json.arrappend", "json.arrinsert", "json.arrpop", "json.arrtrim", "json.numincrby", "json.nummultby",
+			"json.strappend", "json.toggle", "json.clear" };
+
+	private static final KeyEvent[] TABLE = new KeyEvent[256];
+	private static final int MASK = TABLE.length - 1;
+
+	static {
+		intern(DataType.NONE, NONE_EVENTS);
+		intern(DataType.STRING, STRING_EVENTS);
+		intern(DataType.LIST, LIST_EVENTS);
+		intern(DataType.HASH, HASH_EVENTS);
+		intern(DataType.SET, SET_EVENTS);
+		intern(DataType.ZSET, ZSET_EVENTS);
+		intern(DataType.STREAM, STREAM_EVENTS);
+		intern(DataType.TIMESERIES, TIMESERIES_EVENTS);
+		intern(DataType.JSON, JSON_EVENTS);
+	}
+
+	private final String name;
+	private final byte[] bytes;
+	private final DataType type;
+
+	private KeyEvent(String name, DataType type) {
+		this.name = name;
+		this.bytes = name.getBytes(StandardCharsets.US_ASCII);
+		this.type = type;
+	}
+
+	private static void intern(DataType type, String... names) {
+		for (String name : names) {
+			KeyEvent event = new KeyEvent(name, type);
+			int slot = hash(event.bytes, 0, event.bytes.length) & MASK;
+			while (TABLE[slot] != null) {
+				slot = (slot + 1) & MASK;
+			}
+			TABLE[slot] = event;
+		}
+	}
+
+	private static byte lowerCase(byte b) {
+		return b >= 'A' && b <= 'Z' ? (byte) (b + ('a' - 'A')) : b;
+	}
+
+	private static int hash(byte[] bytes, int offset, int length) {
+		int hash = 0x811c9dc5;
+		for (int index = offset; index < offset + length; index++) {
+			hash = (hash ^ lowerCase(bytes[index])) * 0x01000193;
+		}
+		return hash ^ (hash >>> 16);
+	}
+
+	private boolean matches(byte[] bytes, int offset, int length) {
+		if (this.bytes.length != length) {
+			return false;
+		}
+		for (int index = 0; index < length; index++) {
+			if (this.bytes[index] != lowerCase(bytes[offset + index])) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Looks up the event with the given name, ignoring ASCII case. Events missing
+	 * from the table are created with a type derived from their prefix.
+	 */
+	public static KeyEvent of(byte[] bytes, int offset, int length) {
+		int slot = hash(bytes, offset, length) & MASK;
+		KeyEvent event;
+		while ((event = TABLE[slot]) != null) {
+			if (event.matches(bytes, offset, length)) {
+				return event;
+			}
+			slot = (slot + 1) & MASK;
+		}
+		String name = new String(bytes, offset, length, StandardCharsets.UTF_8).toLowerCase();
+		return new KeyEvent(name, prefixType(name));
+	}
+
+	public static KeyEvent of(String name) {
+		byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+		return of(bytes, 0, bytes.length);
+	}
+
+	private static DataType prefixType(String name) {
+		if (name.startsWith("xgroup-")) {
+			return DataType.STREAM;
+		}
+		if (name.startsWith("ts.")) {
+			return DataType.TIMESERIES;
+		}
+		if (name.startsWith("json.")) {
+			return DataType.JSON;
+		}
+		return DataType.NONE;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public DataType getType() {
+		return type;
+	}
+
+	@Override
+	public String toString() {
+		return name;
+	}
+
+}
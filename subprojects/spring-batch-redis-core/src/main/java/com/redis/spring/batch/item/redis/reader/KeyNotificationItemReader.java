@@ -1,81 +1,154 @@
 package com.redis.spring.batch.item.redis.reader;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.TreeSet;
 import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.function.BiPredicate;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import org.springframework.batch.core.observability.BatchMetrics;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
 
 import com.redis.spring.batch.item.AbstractPollableItemReader;
 import com.redis.spring.batch.item.redis.common.BatchUtils;
-import com.redis.spring.batch.item.redis.common.DataType;
+import com.redis.spring.batch.item.redis.common.DedupBlockingQueue;
+import com.redis.spring.batch.item.redis.common.DedupBlockingQueue.OfferStatus;
+import com.redis.spring.batch.item.redis.common.GlobMatcher;
 
 import io.lettuce.core.AbstractRedisClient;
 import io.lettuce.core.RedisClient;
+import io.lettuce.core.api.StatefulConnection;
+import io.lettuce.core.api.StatefulRedisConnection;
 import io.lettuce.core.cluster.RedisClusterClient;
+import io.lettuce.core.cluster.api.StatefulRedisClusterConnection;
 import io.lettuce.core.cluster.pubsub.RedisClusterPubSubListener;
+import io.lettuce.core.codec.ByteArrayCodec;
 import io.lettuce.core.codec.RedisCodec;
 import io.lettuce.core.pubsub.RedisPubSubListener;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.MultiGauge;
+import io.micrometer.core.instrument.Tags;
 
 public class KeyNotificationItemReader<K, V> extends AbstractPollableItemReader<K> {
 
 	public static final int DEFAULT_QUEUE_CAPACITY = 10000;
+	public static final int DEFAULT_DROPPED_KEY_CAPACITY = 10000;
+	public static final Duration DEFAULT_RECOVERY_SCAN_INTERVAL = Duration.ofMinutes(1);
+	public static final Duration DEFAULT_QUIET_PERIOD = Duration.ZERO;
+	public static final Duration DEFAULT_MAX_DELAY = Duration.ofSeconds(1);
+	public static final int DEFAULT_HOT_KEY_CAPACITY = 10;
+	public static final HotKeyPolicy DEFAULT_HOT_KEY_POLICY = HotKeyPolicy.NONE;
+	public static final Duration DEFAULT_HOT_KEY_DELAY = Duration.ofSeconds(1);
+	public static final String HOT_KEY_METRIC_NAME = "redis.notification.hot";
+	public static final String HOT_KEY_COUNT_METRIC_NAME = "redis.notification.hot.count";
+	public static final long DEFAULT_SPILL_CAPACITY = 1L << 30;
+	public static final String SPILL_METRIC_NAME = "redis.notification.spill";
+	public static final KeyNotificationSource DEFAULT_SOURCE = KeyNotificationSource.KEYSPACE;
 
 	private static final String KEYSPACE_PATTERN = "__keyspace@%s__:%s";
 	private static final String KEYEVENT_PATTERN = "__keyevent@%s__:*";
-	private static final String SEPARATOR = ":";
+	private static final byte SEPARATOR = ':';
+	private static final int RECOVERY_SCAN_STEPS = 1000;
+	private static final int RECOVERY_PAGE_SIZE = 1000;
+	// Hot lane gets one poll in this many when other keys are ready
+	private static final int HOT_LANE_SHARE = 10;
+	private static final String INVALIDATE_EVENT = "invalidate";
 
 	private final AbstractRedisClient client;
 	private final RedisCodec<K, V> codec;
-	private final BiPredicate<K, K> keyEquals;
-	private final Function<String, K> keyEncoder;
-	private final Function<K, String> keyDecoder;
-	private final Function<V, String> valueDecoder;
+	private final boolean binaryKeys;
+	private final ThreadLocal<KeyNotification<K>> notifications = ThreadLocal.withInitial(KeyNotification::new);
 	private final Map<KeyNotificationStatus, AtomicLong> statusCounts = Stream.of(KeyNotificationStatus.values())
 			.collect(Collectors.toMap(Function.identity(), s -> new AtomicLong()));
+	private final AtomicInteger polls = new AtomicInteger();
 
 	private int queueCapacity = DEFAULT_QUEUE_CAPACITY;
+	private int droppedKeyCapacity = DEFAULT_DROPPED_KEY_CAPACITY;
+	private Duration recoveryScanInterval = DEFAULT_RECOVERY_SCAN_INTERVAL;
+	private Duration quietPeriod = DEFAULT_QUIET_PERIOD;
+	private Duration maxDelay = DEFAULT_MAX_DELAY;
+	private int hotKeyThreshold;
+	private int hotKeyCapacity = DEFAULT_HOT_KEY_CAPACITY;
+	private HotKeyPolicy hotKeyPolicy = DEFAULT_HOT_KEY_POLICY;
+	private Duration hotKeyDelay = DEFAULT_HOT_KEY_DELAY;
+	private Path spillDirectory;
+	private long spillCapacity = DEFAULT_SPILL_CAPACITY;
+	private KeyNotificationSource source = DEFAULT_SOURCE;
 	private int database;
-	private String keyPattern;
-	private String keyType;
+	private Set<String> keyPatterns = Collections.emptySet();
+	private Set<String> keyTypes = Collections.emptySet();
 	private Set<KeyNotificationListener<K>> listeners = new LinkedHashSet<>();
 
-	protected BlockingQueue<K> queue;
+	protected DedupBlockingQueue<K> queue;
 	private KeyNotificationPublisher publisher;
+	private DroppedKeyRecovery<K> recovery;
+	private StatefulConnection<K, V> scanConnection;
+	private HotKeyTracker<K> hotKeys;
+	private DedupBlockingQueue<K> hotLane;
+	private Counter hotKeyCounter;
+	private MultiGauge hotKeyGauge;
+	private SpillFile spill;
+	private Gauge spillGauge;
+	private GlobMatcher keyMatcher;
+	private KeyChanges<K> keyChanges;
 
 	public KeyNotificationItemReader(AbstractRedisClient client, RedisCodec<K, V> codec) {
 		setName(ClassUtils.getShortName(getClass()));
 		this.client = client;
 		this.codec = codec;
-		this.keyEquals = BatchUtils.keyEqualityPredicate(codec);
-		this.keyEncoder = BatchUtils.stringKeyFunction(codec);
-		this.keyDecoder = BatchUtils.toStringKeyFunction(codec);
-		this.valueDecoder = BatchUtils.toStringValueFunction(codec);
+		this.binaryKeys = codec instanceof ByteArrayCodec;
 	}
 
 	public void addListener(KeyNotificationListener<K> listener) {
 		this.listeners.add(listener);
 	}
 
+	/**
+	 * @return first pub/sub channel pattern
+	 * @deprecated use {@link #pubSubPatterns()}
+	 */
+	@Deprecated
 	public String pubSubPattern() {
+		return pubSubPatterns().get(0);
+	}
+
+	/**
+	 * @return keyevent channel pattern if no key pattern is set, otherwise one
+	 *         keyspace channel pattern per key pattern
+	 */
+	public List<String> pubSubPatterns() {
 		if (isKeyEvents()) {
-			return String.format(KEYEVENT_PATTERN, database);
+			return Collections.singletonList(String.format(KEYEVENT_PATTERN, database));
 		}
-		return String.format(KEYSPACE_PATTERN, database, keyPattern);
+		return keyPatterns.stream().map(p -> String.format(KEYSPACE_PATTERN, database, p))
+				.collect(Collectors.toList());
 	}
 
 	private boolean isKeyEvents() {
-		return keyPattern == null;
+		return keyPatterns.isEmpty();
 	}
 
 	@Override
@@ -85,8 +158,40 @@ public class KeyNotificationItemReader<K, V> extends AbstractPollableItemReader<
 
 	@Override
 	protected synchronized void doOpen() throws Exception {
+		Assert.isTrue(source != KeyNotificationSource.TRACKING || keyTypes.isEmpty(),
+				"Key types cannot be filtered with tracking notifications");
 		if (queue == null) {
-			queue = new LinkedBlockingQueue<>(queueCapacity);
+			queue = DedupBlockingQueue.identity(queueCapacity);
+			queue.setQuietPeriod(quietPeriod);
+			queue.setMaxDelay(maxDelay);
+		}
+		if (recovery == null) {
+			recovery = new DroppedKeyRecovery<>(codec, droppedKeyCapacity, this::scan, RECOVERY_SCAN_STEPS);
+			// Only cluster recoveries are scoped to the affected slots
+			if (!(client instanceof RedisClusterClient)) {
+				recovery.setScanInterval(recoveryScanInterval);
+			}
+		}
+		if (spill == null && spillDirectory != null) {
+			spill = new SpillFile(Files.createTempFile(spillDirectory, getName(), ".spill"), spillCapacity);
+			spill.open();
+			spillGauge = Gauge.builder(BatchMetrics.METRICS_PREFIX + SPILL_METRIC_NAME, spill, SpillFile::size)
+					.description("Bytes of spilled notification keys").baseUnit("bytes").tag("name", getName())
+					.register(Metrics.globalRegistry);
+		}
+		if (hotKeys == null && hotKeyThreshold > 0) {
+			hotKeys = new HotKeyTracker<>(hotKeyThreshold, hotKeyCapacity, HotKeyTracker.DEFAULT_DECAY_INTERVAL);
+			hotKeyCounter = Counter.builder(BatchMetrics.METRICS_PREFIX + HOT_KEY_METRIC_NAME)
+					.description("Notifications for hot keys").tag("name", getName()).register(Metrics.globalRegistry);
+			hotKeyGauge = MultiGauge.builder(BatchMetrics.METRICS_PREFIX + HOT_KEY_COUNT_METRIC_NAME)
+					.description("Decayed notification count of the current hot keys").tag("name", getName())
+					.register(Metrics.globalRegistry);
+			hotKeys.setListener(hotKeyRows(hotKeyGauge));
+			if (hotKeyPolicy == HotKeyPolicy.LANE) {
+				hotLane = DedupBlockingQueue.identity(queueCapacity);
+				hotLane.setQuietPeriod(hotKeyDelay);
+				hotLane.setMaxDelay(hotKeyDelay);
+			}
 		}
 		if (publisher == null) {
 			publisher = publisher();
@@ -104,147 +209,313 @@ public class KeyNotificationItemReader<K, V> extends AbstractPollableItemReader<
 			publisher.close();
 			publisher = null;
 		}
+		if (scanConnection != null) {
+			scanConnection.close();
+			scanConnection = null;
+		}
+		if (spill != null) {
+			Metrics.globalRegistry.remove(spillGauge);
+			spill.close();
+			spill = null;
+		}
+		if (hotKeyGauge != null) {
+			hotKeyGauge.register(Collections.emptyList(), true);
+			hotKeyGauge = null;
+		}
 		queue = null;
+		keyMatcher = null;
+		recovery = null;
+		hotKeys = null;
+		hotLane = null;
+	}
+
+	private Consumer<List<HotKey<K>>> hotKeyRows(MultiGauge gauge) {
+		Function<K, String> toStringKeyFunction = BatchUtils.toStringKeyFunction(codec);
+		return keys -> gauge.register(keys.stream()
+				.map(k -> MultiGauge.Row.of(Tags.of("key", toStringKeyFunction.apply(k.getKey())), k.getCount()))
+				.collect(Collectors.toList()), true);
+	}
+
+	private void keySpaceNotification(byte[] channel, byte[] message) {
+		int separator = separator(channel);
+		if (separator < 0) {
+			return;
+		}
+		int offset = separator + 1;
+		int length = channel.length - offset;
+		K key = codec.decodeKey(ByteBuffer.wrap(channel, offset, length));
+		notification(key, channel, offset, length, KeyEvent.of(message, 0, message.length));
+	}
+
+	@SuppressWarnings("unchecked")
+	private void keyEventNotification(byte[] channel, byte[] message) {
+		int separator = separator(channel);
+		if (separator < 0) {
+			return;
+		}
+		K key = binaryKeys ? (K) message : codec.decodeKey(ByteBuffer.wrap(message));
+		notification(key, message, 0, message.length,
+				KeyEvent.of(channel, separator + 1, channel.length - separator - 1));
 	}
 
-	private void keySpaceNotification(K channel, V message) {
-		K key = keyEncoder.apply(suffix(channel));
-		String event = valueDecoder.apply(message);
-		notification(key, event);
+	/**
+	 * Recovers the whole keyspace once the queue drains, e.g. after tracking
+	 * invalidations may have been missed.
+	 */
+	private void rescan() {
+		DroppedKeyRecovery<K> keyRecovery = recovery;
+		if (keyRecovery != null) {
+			keyRecovery.addAll();
+		}
 	}
 
+	/**
+	 * Tracking invalidations only carry the key, and broadcast prefixes are
+	 * coarser than the key pattern so it is matched here.
+	 */
 	@SuppressWarnings("unchecked")
-	private void keyEventNotification(K channel, V message) {
-		K key = (K) message;
-		String event = suffix(channel);
-		notification(key, event);
+	private void trackingNotification(byte[] key) {
+		if (keyMatcher != null && !keyMatcher.matches(key)) {
+			return;
+		}
+		K decoded = binaryKeys ? (K) key : codec.decodeKey(ByteBuffer.wrap(key));
+		notification(decoded, key, 0, key.length, KeyEvent.of(INVALIDATE_EVENT));
+	}
+
+	/**
+	 * @return index of the separator following the
+	 *         <code>__keyspace@&lt;db&gt;__</code> or
+	 *         <code>__keyevent@&lt;db&gt;__</code> channel prefix
+	 */
+	private static int separator(byte[] channel) {
+		for (int index = 0; index < channel.length; index++) {
+			if (channel[index] == SEPARATOR) {
+				return index;
+			}
+		}
+		return -1;
 	}
 
-	private void notification(K key, String event) {
-		KeyNotification<K> notification = new KeyNotification<>();
+	/**
+	 * Notifications are reused per subscriber thread: listeners must not retain
+	 * them.
+	 */
+	private void notification(K key, byte[] keyBytes, int keyOffset, int keyLength, KeyEvent event) {
+		KeyNotification<K> notification = notifications.get();
 		notification.setKey(key);
-		notification.setEvent(event);
+		notification.setEvent(event.getName());
 		notification.setTime(System.currentTimeMillis());
-		notification.setType(eventDataType(event).getString());
-		KeyNotificationStatus status = process(notification);
+		notification.setType(event.getType().getString());
+		KeyNotificationStatus status = process(notification, event, keyBytes, keyOffset, keyLength);
+		if (keyChanges != null) {
+			renamed(key, event, status);
+		}
 		statusCounts.get(status).incrementAndGet();
 		for (KeyNotificationListener<K> listener : listeners) {
 			listener.notification(notification, status);
 		}
+		notification.setKey(null);
 	}
 
 	private boolean accept(String type) {
-		return keyType == null || keyType.equalsIgnoreCase(type);
+		return keyTypes.isEmpty() || keyTypes.contains(type);
 	}
 
-	private KeyNotificationStatus process(KeyNotification<K> notification) {
+	private KeyNotificationStatus process(KeyNotification<K> notification, KeyEvent event, byte[] keyBytes,
+			int keyOffset, int keyLength) {
 		if (!accept(notification.getType())) {
 			return KeyNotificationStatus.REJECTED;
 		}
-		boolean removed = queue.removeIf(k -> keyEquals.test(k, notification.getKey()));
-		if (removed) {
+		K key = notification.getKey();
+		if (hotKeys != null && hotKeys.add(key, keyBytes, keyOffset, keyLength)) {
+			hotKeyCounter.increment();
+			if (hotLane != null && !queue.containsKey(key)) {
+				return enqueue(hotLane, key, event);
+			}
+		}
+		return enqueue(queue, key, event);
+	}
+
+	private KeyNotificationStatus enqueue(DedupBlockingQueue<K> target, K key, KeyEvent event) {
+		// The change is recorded before the key can be polled so that it is there
+		// when the key is read. A key already queued is moved to the tail so that it
+		// is read after this event.
+		OfferStatus status = target.offerOrTouch(key, queued -> changed(key, event, queued));
+		if (status == OfferStatus.TOUCHED) {
 			return KeyNotificationStatus.DEBOUNCED;
 		}
-		boolean added = queue.offer(notification.getKey());
-		if (added) {
+		if (status == OfferStatus.ADDED) {
 			return KeyNotificationStatus.ACCEPTED;
 		}
+		resetChange(key);
+		if (spill(key)) {
+			return KeyNotificationStatus.SPILLED;
+		}
+		recovery.add(key);
 		return KeyNotificationStatus.DROPPED;
 	}
 
-	private DataType eventDataType(String event) {
-		if (event == null) {
-			return DataType.NONE;
-		}
-		String code = event.toLowerCase();
-		if (code.startsWith("xgroup-")) {
-			return DataType.STREAM;
-		}
-		if (code.startsWith("ts.")) {
-			return DataType.TIMESERIES;
-		}
-		if (code.startsWith("json.")) {
-			return DataType.JSON;
-		}
-		switch (code) {
-		case "set":
-		case "setrange":
-		case "incrby":
-		case "incrbyfloat":
-		case "append":
-			return DataType.STRING;
-		case "lpush":
-		case "rpush":
-		case "rpop":
-		case "lpop":
-		case "linsert":
-		case "lset":
-		case "lrem":
-		case "ltrim":
-			return DataType.LIST;
-		case "hset":
-		case "hincrby":
-		case "hincrbyfloat":
-		case "hdel":
-			return DataType.HASH;
-		case "sadd":
-		case "spop":
-		case "sinterstore":
-		case "sunionstore":
-		case "sdiffstore":
-			return DataType.SET;
-		case "zincr":
-		case "zadd":
-		case "zrem":
-		case "zrembyscore":
-		case "zrembyrank":
-		case "zdiffstore":
-		case "zinterstore":
-		case "zunionstore":
-			return DataType.ZSET;
-		case "xadd":
-		case "xtrim":
-		case "xdel":
-		case "xsetid":
-			return DataType.STREAM;
-		default:
-			return DataType.NONE;
-		}
-	}
-
-	private KeyNotificationConsumer<K, V> notificationConsumer() {
-		if (isKeyEvents()) {
-			return this::keyEventNotification;
+	private void changed(K key, KeyEvent event, boolean queued) {
+		if (keyChanges != null) {
+			keyChanges.event(key, event, queued);
 		}
-		return this::keySpaceNotification;
 	}
 
-	private String suffix(K key) {
-		String string = keyDecoder.apply(key);
-		int index = string.indexOf(SEPARATOR);
-		if (index > 0) {
-			return string.substring(index + 1);
+	private void resetChange(K key) {
+		if (keyChanges != null) {
+			keyChanges.reset(key);
+		}
+	}
+
+	/**
+	 * Queues a key again without its pending change so that it is read in full.
+	 */
+	private void readFully(K key) {
+		if (!queue.offer(key) && !spill(key)) {
+			recovery.add(key);
+		}
+		resetChange(key);
+	}
+
+	private void renamed(K key, KeyEvent event, KeyNotificationStatus status) {
+		K renamedFrom = keyChanges.renamed(key, event, status == KeyNotificationStatus.ACCEPTED);
+		if (renamedFrom != null) {
+			// The RENAME of the new key replaces the deletion of the old one
+			queue.removeKey(renamedFrom);
+			if (hotLane != null) {
+				hotLane.removeKey(renamedFrom);
+			}
+		}
+	}
+
+	private KeyNotificationConsumer<byte[], byte[]> notificationConsumer() {
+		if (isKeyEvents()) {
+			return this::keyEventNotification;
 		}
-		return null;
+		return this::keySpaceNotification;
 	}
 
 	private KeyNotificationPublisher publisher() {
-		String pubSubPattern = pubSubPattern();
-		K pattern = keyEncoder.apply(pubSubPattern);
-		KeyNotificationConsumer<K, V> consumer = notificationConsumer();
+		if (source == KeyNotificationSource.TRACKING) {
+			if (!keyPatterns.isEmpty()) {
+				keyMatcher = new GlobMatcher(keyPatterns);
+			}
+			return new TrackingKeyNotificationPublisher(client, GlobMatcher.prefixes(keyPatterns),
+					this::trackingNotification, this::rescan);
+		}
+		// Subscribe with raw bytes so that channels and events are parsed in place
+		byte[][] patterns = pubSubPatterns().stream().map(p -> p.getBytes(StandardCharsets.UTF_8))
+				.toArray(byte[][]::new);
+		KeyNotificationConsumer<byte[], byte[]> consumer = notificationConsumer();
+		ByteArrayCodec byteCodec = ByteArrayCodec.INSTANCE;
 		if (client instanceof RedisClusterClient) {
-			RedisClusterPubSubListener<K, V> listener = new RedisClusterKeyNotificationListener<>(consumer);
-			return new RedisClusterKeyNotificationPublisher<>((RedisClusterClient) client, codec, listener, pattern);
+			RedisClusterPubSubListener<byte[], byte[]> listener = new RedisClusterKeyNotificationListener<>(consumer);
+			return new RedisClusterKeyNotificationPublisher<>((RedisClusterClient) client, byteCodec, listener,
+					patterns);
 		}
-		RedisPubSubListener<K, V> listener = new RedisKeyNotificationListener<>(consumer);
-		return new RedisKeyNotificationPublisher<>((RedisClient) client, codec, listener, pattern);
+		RedisPubSubListener<byte[], byte[]> listener = new RedisKeyNotificationListener<>(consumer);
+		return new RedisKeyNotificationPublisher<>((RedisClient) client, byteCodec, listener, patterns);
 	}
 
 	@Override
 	protected K doPoll(long timeout, TimeUnit unit) throws InterruptedException {
+		recover();
+		if (hotLane == null) {
+			return queue.poll(timeout, unit);
+		}
+		if (polls.incrementAndGet() % HOT_LANE_SHARE != 0) {
+			K key = queue.poll();
+			if (key != null) {
+				return key;
+			}
+		}
+		K key = hotLane.poll();
+		if (key != null) {
+			return key;
+		}
 		return queue.poll(timeout, unit);
 	}
 
+	private boolean spill(K key) {
+		if (spill == null) {
+			return false;
+		}
+		try {
+			return spill.offer(codec.encodeKey(key));
+		} catch (IOException e) {
+			// Fall back to dropped key recovery
+			return false;
+		}
+	}
+
+	/**
+	 * Re-enqueues spilled keys, then dropped keys, while the queue is less than
+	 * half full, leaving room for live notifications. Keys already queued are
+	 * deduplicated by the queue.
+	 */
+	private void recover() {
+		while (queue.size() < Math.max(1, queueCapacity / 2)) {
+			K key = unspill();
+			if (key == null) {
+				key = recovery.poll();
+			}
+			if (key == null) {
+				return;
+			}
+			resetChange(key);
+			queue.offer(key);
+		}
+	}
+
+	private K unspill() {
+		if (spill == null) {
+			return null;
+		}
+		try {
+			return spill.poll(codec::decodeKey);
+		} catch (IOException e) {
+			throw new ItemStreamException("Could not read spill file " + spill.getFile(), e);
+		}
+	}
+
+	/**
+	 * @return number of bytes of keys waiting in the spill file
+	 */
+	public long spilledBytes() {
+		SpillFile file = spill;
+		return file == null ? 0 : file.size();
+	}
+
+	/**
+	 * In cluster mode only the keys of the given slots are listed (see
+	 * {@link SlotKeyIterator}). Otherwise the whole keyspace is scanned, at most
+	 * once per recovery scan interval.
+	 */
+	@SuppressWarnings("unchecked")
+	private Iterator<K> scan(BitSet slots) {
+		if (scanConnection == null) {
+			if (client instanceof RedisClusterClient) {
+				scanConnection = ((RedisClusterClient) client).connect(codec);
+			} else {
+				scanConnection = ((RedisClient) client).connect(codec);
+			}
+		}
+		if (scanConnection instanceof StatefulRedisClusterConnection) {
+			return new SlotKeyIterator<>((StatefulRedisClusterConnection<K, V>) scanConnection, codec, slots,
+					keyPatterns, keyTypes, RECOVERY_PAGE_SIZE);
+		}
+		return BatchUtils.scan(((StatefulRedisConnection<K, V>) scanConnection).sync(), codec, 0, keyPatterns,
+				keyTypes);
+	}
+
+	/**
+	 * @return number of dropped keys waiting to be re-enqueued, not counting
+	 *         keys only recorded by their slot
+	 */
+	public int droppedKeyCount() {
+		return recovery == null ? 0 : recovery.size();
+	}
+
 	public BlockingQueue<K> getQueue() {
 		return queue;
 	}
@@ -257,6 +528,25 @@ public class KeyNotificationItemReader<K, V> extends AbstractPollableItemReader<
 		return new KeyNotificationStatusCount(entry.getKey(), entry.getValue().get());
 	}
 
+	/**
+	 * @return hottest keys by decreasing notification rate, empty unless a hot
+	 *         key threshold is set. They are also published with their counts
+	 *         in the {@value #HOT_KEY_COUNT_METRIC_NAME} gauge, tagged by key.
+	 */
+	public List<HotKey<K>> hotKeys() {
+		HotKeyTracker<K> tracker = hotKeys;
+		return tracker == null ? Collections.emptyList() : tracker.hotKeys();
+	}
+
+	/**
+	 * @return hottest key prefixes (up to and including the first ':') by
+	 *         decreasing notification rate
+	 */
+	public List<HotKey<String>> hotKeyPrefixes() {
+		HotKeyTracker<K> tracker = hotKeys;
+		return tracker == null ? Collections.emptyList() : tracker.hotPrefixes();
+	}
+
 	public long count(KeyNotificationStatus status) {
 		return statusCounts.get(status).get();
 	}
@@ -269,6 +559,153 @@ public class KeyNotificationItemReader<K, V> extends AbstractPollableItemReader<
 		this.queueCapacity = queueCapacity;
 	}
 
+	public int getDroppedKeyCapacity() {
+		return droppedKeyCapacity;
+	}
+
+	/**
+	 * @param capacity maximum number of dropped keys remembered individually.
+	 *                 Beyond that only their hash slots are remembered and
+	 *                 recovered with a scan.
+	 */
+	public void setDroppedKeyCapacity(int capacity) {
+		this.droppedKeyCapacity = capacity;
+	}
+
+	public Duration getRecoveryScanInterval() {
+		return recoveryScanInterval;
+	}
+
+	/**
+	 * @param interval minimum time between two recovery scans of a standalone
+	 *                 server. Such a scan cannot be scoped to the slots of the
+	 *                 dropped keys and covers the whole keyspace. Cluster
+	 *                 recoveries only list the affected slots and are not
+	 *                 limited.
+	 */
+	public void setRecoveryScanInterval(Duration interval) {
+		this.recoveryScanInterval = interval;
+	}
+
+	public Duration getQuietPeriod() {
+		return quietPeriod;
+	}
+
+	/**
+	 * @param period how long a key must go without notifications before it is
+	 *               read. Zero reads keys as soon as they are polled.
+	 */
+	public void setQuietPeriod(Duration period) {
+		this.quietPeriod = period;
+	}
+
+	public Duration getMaxDelay() {
+		return maxDelay;
+	}
+
+	/**
+	 * @param delay maximum time a continuously modified key is held back by the
+	 *              quiet period
+	 */
+	public void setMaxDelay(Duration delay) {
+		this.maxDelay = delay;
+	}
+
+	public int getHotKeyThreshold() {
+		return hotKeyThreshold;
+	}
+
+	/**
+	 * @param threshold decayed notification count from which a key is considered
+	 *                  hot, counts being halved every second. Zero disables hot
+	 *                  key detection.
+	 */
+	public void setHotKeyThreshold(int threshold) {
+		this.hotKeyThreshold = threshold;
+	}
+
+	public int getHotKeyCapacity() {
+		return hotKeyCapacity;
+	}
+
+	/**
+	 * @param capacity number of hot keys and prefixes reported
+	 */
+	public void setHotKeyCapacity(int capacity) {
+		this.hotKeyCapacity = capacity;
+	}
+
+	public HotKeyPolicy getHotKeyPolicy() {
+		return hotKeyPolicy;
+	}
+
+	public void setHotKeyPolicy(HotKeyPolicy policy) {
+		this.hotKeyPolicy = policy;
+	}
+
+	public Duration getHotKeyDelay() {
+		return hotKeyDelay;
+	}
+
+	/**
+	 * @param delay debounce window of the hot key lane: a hot key is read at most
+	 *              once per delay
+	 */
+	public void setHotKeyDelay(Duration delay) {
+		this.hotKeyDelay = delay;
+	}
+
+	public Path getSpillDirectory() {
+		return spillDirectory;
+	}
+
+	/**
+	 * @param directory directory of the file that keys are spilled to when the
+	 *                  queue is full. Null disables spilling.
+	 */
+	public void setSpillDirectory(Path directory) {
+		this.spillDirectory = directory;
+	}
+
+	public long getSpillCapacity() {
+		return spillCapacity;
+	}
+
+	/**
+	 * @param capacity maximum size in bytes of the spill file
+	 */
+	public void setSpillCapacity(long capacity) {
+		this.spillCapacity = capacity;
+	}
+
+	public KeyChanges<K> getKeyChanges() {
+		return keyChanges;
+	}
+
+	/**
+	 * @param changes where to record the pending change of queued keys, or null
+	 *                to not record them
+	 */
+	public void setKeyChanges(KeyChanges<K> changes) {
+		this.keyChanges = changes;
+		if (changes != null) {
+			changes.setFallback(this::readFully);
+		}
+	}
+
+	public KeyNotificationSource getSource() {
+		return source;
+	}
+
+	/**
+	 * @param source where key changes come from. With
+	 *               {@link KeyNotificationSource#TRACKING} the key type cannot
+	 *               be filtered and the database is ignored.
+	 */
+	public void setSource(KeyNotificationSource source) {
+		this.source = source;
+	}
+
 	public int getDatabase() {
 		return database;
 	}
@@ -277,20 +714,61 @@ public class KeyNotificationItemReader<K, V> extends AbstractPollableItemReader<
 		this.database = database;
 	}
 
+	/**
+	 * @return first key pattern, or null if all keys are read
+	 * @deprecated use {@link #getKeyPatterns()}
+	 */
+	@Deprecated
 	public String getKeyPattern() {
-		return keyPattern;
+		return keyPatterns.isEmpty() ? null : keyPatterns.iterator().next();
 	}
 
+	public Set<String> getKeyPatterns() {
+		return keyPatterns;
+	}
+
+	/**
+	 * @param patterns keys to read, all keys if empty. Each pattern gets its own
+	 *                 keyspace subscription on the same connection.
+	 */
+	public void setKeyPatterns(Collection<String> patterns) {
+		this.keyPatterns = new LinkedHashSet<>(patterns);
+	}
+
+	/**
+	 * @param pattern only key pattern to read, all keys if null
+	 */
 	public void setKeyPattern(String pattern) {
-		this.keyPattern = pattern;
+		setKeyPatterns(pattern == null ? Collections.emptySet() : Collections.singleton(pattern));
 	}
 
+	/**
+	 * @return first key type, or null if all types are read
+	 * @deprecated use {@link #getKeyTypes()}
+	 */
+	@Deprecated
 	public String getKeyType() {
-		return keyType;
+		return keyTypes.isEmpty() ? null : keyTypes.iterator().next();
+	}
+
+	public Set<String> getKeyTypes() {
+		return keyTypes;
+	}
+
+	/**
+	 * @param types key types to read, case-insensitive, all types if empty
+	 */
+	public void setKeyTypes(Collection<String> types) {
+		Set<String> set = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+		set.addAll(types);
+		this.keyTypes = set;
 	}
 
+	/**
+	 * @param type only key type to read, all types if null
+	 */
 	public void setKeyType(String type) {
-		this.keyType = type;
+		setKeyTypes(type == null ? Collections.emptySet() : Collections.singleton(type));
 	}
 
 }
\ No newline at end of file
@@ -1,5 +1,10 @@
 package com.redis.spring.batch.item.redis.reader;
 
+/**
+ * Called on the subscriber thread for each keyspace notification. The
+ * notification instance is reused for subsequent events and must not be
+ * retained.
+ */
 public interface KeyNotificationListener<K> {
 
 	void notification(KeyNotification<K> notification, KeyNotificationStatus status);
@@ -0,0 +1,18 @@
+package com.redis.spring.batch.item.redis.reader;
+
+public enum KeyNotificationSource {
+
+	/**
+	 * Keyspace notifications over pub/sub. Requires
+	 * <code>notify-keyspace-events</code> to be configured on the server.
+	 */
+	KEYSPACE,
+
+	/**
+	 * RESP3 invalidation messages from client-side caching in broadcasting mode
+	 * (<code>CLIENT TRACKING ON BCAST</code>). Needs no server configuration but
+	 * only carries key names, not events or types, and is not database-aware.
+	 */
+	TRACKING
+
+}
@@ -2,6 +2,6 @@ package com.redis.spring.batch.item.redis.reader;
 
 public enum KeyNotificationStatus {
 
-	DEBOUNCED, REJECTED, ACCEPTED, DROPPED
+	DEBOUNCED, REJECTED, ACCEPTED, SPILLED, DROPPED
 
 }
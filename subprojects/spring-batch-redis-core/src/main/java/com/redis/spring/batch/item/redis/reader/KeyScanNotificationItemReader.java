@@ -19,9 +19,9 @@ public class KeyScanNotificationItemReader<K, V> extends KeyNotificationItemRead
 
 	@Override
 	protected K doPoll(long timeout, TimeUnit unit) throws InterruptedException {
-		if (queue.isEmpty()) {
+		if (queue.peek() == null) {
 			K key = scanReader.read();
-			if (key != null && !queue.contains(key)) {
+			if (key != null && !queue.containsKey(key)) {
 				return key;
 			}
 		}
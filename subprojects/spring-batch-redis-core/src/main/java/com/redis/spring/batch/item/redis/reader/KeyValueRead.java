@@ -18,11 +18,12 @@ import io.lettuce.core.AbstractRedisClient;
 import io.lettuce.core.RedisFuture;
 import io.lettuce.core.api.async.RedisAsyncCommands;
 import io.lettuce.core.codec.RedisCodec;
+import io.netty.buffer.ByteBuf;
 
 public class KeyValueRead<K, V, T> implements InitializingOperation<K, V, K, KeyValue<K, T>> {
 
 	protected enum ValueType {
-		DUMP, STRUCT, NONE
+		DUMP, DIGEST, STRUCT, NONE
 	}
 
 	public static final DataSize MEM_USAGE_OFF = DataSize.ofBytes(-1);
@@ -41,6 +42,7 @@ public class KeyValueRead<K, V, T> implements InitializingOperation<K, V, K, Key
 	private AbstractRedisClient client;
 	private DataSize memUsageLimit = DEFAULT_MEM_USAGE_LIMIT;
 	private int memUsageSamples = DEFAULT_MEM_USAGE_SAMPLES;
+	private boolean digest;
 
 	protected KeyValueRead(ValueType mode, RedisCodec<K, V> codec) {
 		this.mode = mode;
@@ -56,7 +58,7 @@ public class KeyValueRead<K, V, T> implements InitializingOperation<K, V, K, Key
 	@Override
 	public void afterPropertiesSet() throws Exception {
 		Assert.notNull(client, "Redis client not set");
-		evalsha.setArgs(mode, memUsageLimit.toBytes(), memUsageSamples);
+		evalsha.setArgs(mode, memUsageLimit.toBytes(), memUsageSamples, digest ? 1 : 0);
 		String lua = BatchUtils.readFile(SCRIPT_FILENAME);
 		try (StatefulRedisModulesConnection<K, V> connection = RedisModulesUtils.connection(client, codec)) {
 			String digest = connection.sync().scriptLoad(lua);
@@ -86,6 +88,9 @@ public class KeyValueRead<K, V, T> implements InitializingOperation<K, V, K, Key
 		if (iterator.hasNext()) {
 			keyValue.setValue((T) iterator.next());
 		}
+		if (iterator.hasNext()) {
+			keyValue.setDigest(toString(iterator.next()));
+		}
 		return keyValue;
 	}
 
@@ -110,10 +115,46 @@ public class KeyValueRead<K, V, T> implements InitializingOperation<K, V, K, Key
 		this.memUsageSamples = samples;
 	}
 
+	public boolean isDigest() {
+		return digest;
+	}
+
+	/**
+	 * 
+	 * @param digest if true, the hex-encoded CRC64 checksum of each key's DUMP
+	 *               payload is also read (see {@link KeyValue#getDigest()}), e.g.
+	 *               so that {@link com.redis.spring.batch.item.redis.writer.KeyValueDeltaWrite}
+	 *               can skip unchanged keys
+	 */
+	public void setDigest(boolean digest) {
+		this.digest = digest;
+	}
+
 	public static <K, V> KeyValueRead<K, V, byte[]> dump(RedisCodec<K, V> codec) {
 		return new KeyValueRead<>(ValueType.DUMP, codec);
 	}
 
+	/**
+	 * 
+	 * @return operation that reads DUMP payloads into pooled buffers. Buffers must
+	 *         be released once written, e.g. by
+	 *         {@link com.redis.spring.batch.item.redis.writer.KeyValueBufferRestore}.
+	 */
+	public static <K, V> KeyValueRead<K, V, ByteBuf> dumpBuffer(RedisCodec<K, V> codec) {
+		KeyValueRead<K, V, ByteBuf> read = new KeyValueRead<>(ValueType.DUMP, codec);
+		read.evalsha.setOutputSupplier(() -> new DumpBufferOutput<>(codec));
+		return read;
+	}
+
+	/**
+	 * 
+	 * @return operation that reads the CRC64 checksum of each key's DUMP payload
+	 *         (its last 8 bytes) instead of the full payload
+	 */
+	public static <K, V> KeyValueRead<K, V, byte[]> digest(RedisCodec<K, V> codec) {
+		return new KeyValueRead<>(ValueType.DIGEST, codec);
+	}
+
 	public static <K, V> KeyValueRead<K, V, Object> type(RedisCodec<K, V> codec) {
 		return new KeyValueRead<>(ValueType.NONE, codec);
 	}
@@ -10,34 +10,33 @@ public class RedisClusterKeyNotificationPublisher<K, V> implements KeyNotificati
 	private final RedisClusterClient client;
 	private final RedisCodec<K, V> codec;
 	private final RedisClusterPubSubListener<K, V> listener;
-	private final K pattern;
+	private final K[] patterns;
 
 	private StatefulRedisClusterPubSubConnection<K, V> connection;
 
+	@SafeVarargs
 	public RedisClusterKeyNotificationPublisher(RedisClusterClient client, RedisCodec<K, V> codec,
-			RedisClusterPubSubListener<K, V> listener, K pattern) {
+			RedisClusterPubSubListener<K, V> listener, K... patterns) {
 		this.client = client;
 		this.codec = codec;
 		this.listener = listener;
-		this.pattern = pattern;
+		this.patterns = patterns;
 	}
 
-	@SuppressWarnings("unchecked")
 	@Override
 	public synchronized void open() {
 		if (connection == null) {
 			connection = client.connectPubSub(codec);
 			connection.setNodeMessagePropagation(true);
 			connection.addListener(listener);
-			connection.sync().upstream().commands().psubscribe(pattern);
+			connection.sync().upstream().commands().psubscribe(patterns);
 		}
 	}
 
-	@SuppressWarnings("unchecked")
 	@Override
 	public synchronized void close() {
 		if (connection != null) {
-			connection.sync().upstream().commands().punsubscribe(pattern);
+			connection.sync().upstream().commands().punsubscribe(patterns);
 			connection.removeListener(listener);
 			connection.close();
 			connection = null;
@@ -10,33 +10,32 @@ public class RedisKeyNotificationPublisher<K, V> implements KeyNotificationPubli
 	private final RedisClient client;
 	private final RedisCodec<K, V> codec;
 	private final RedisPubSubListener<K, V> listener;
-	private final K pattern;
+	private final K[] patterns;
 
 	private StatefulRedisPubSubConnection<K, V> connection;
 
+	@SafeVarargs
 	public RedisKeyNotificationPublisher(RedisClient client, RedisCodec<K, V> codec, RedisPubSubListener<K, V> listener,
-			K pattern) {
+			K... patterns) {
 		this.client = client;
 		this.codec = codec;
 		this.listener = listener;
-		this.pattern = pattern;
+		this.patterns = patterns;
 	}
 
-	@SuppressWarnings("unchecked")
 	@Override
 	public synchronized void open() {
 		if (connection == null) {
 			connection = client.connectPubSub(codec);
 			connection.addListener(listener);
-			connection.sync().psubscribe(pattern);
+			connection.sync().psubscribe(patterns);
 		}
 	}
 
-	@SuppressWarnings("unchecked")
 	@Override
 	public synchronized void close() {
 		if (connection != null) {
-			connection.sync().punsubscribe(pattern);
+			connection.sync().punsubscribe(patterns);
 			connection.removeListener(listener);
 			connection.close();
 			connection = null;
@@ -0,0 +1,127 @@
+package com.redis.spring.batch.item.redis.reader;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import com.redis.spring.batch.item.redis.common.BatchUtils;
+import com.redis.spring.batch.item.redis.common.GlobMatcher;
+
+import io.lettuce.core.LettuceFutures;
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.async.RedisAsyncCommands;
+import io.lettuce.core.cluster.api.StatefulRedisClusterConnection;
+import io.lettuce.core.cluster.models.partitions.RedisClusterNode;
+import io.lettuce.core.codec.RedisCodec;
+
+/**
+ * Iterates over the keys of the given cluster slots, one slot at a time, on the
+ * master owning it. Slots holding at most {@code pageSize} keys are listed with
+ * GETKEYSINSLOT and their key types checked in one pipeline. Larger slots
+ * cannot be paged by GETKEYSINSLOT, so their master is scanned once instead,
+ * with SCAN's TYPE filter, which also yields keys of other slots.
+ */
+class SlotKeyIterator<K, V> implements Iterator<K> {
+
+	private final StatefulRedisClusterConnection<K, V> connection;
+	private final RedisCodec<K, V> codec;
+	private final BitSet slots;
+	private final Collection<String> patterns;
+	private final Collection<String> types;
+	private final GlobMatcher matcher;
+	private final int pageSize;
+	private final Set<String> scannedNodes = new HashSet<>();
+
+	private int nextSlot;
+	private Iterator<K> keys = Collections.emptyIterator();
+
+	/**
+	 * 
+	 * @param types key types to keep, with a case-insensitive contains, all types
+	 *              if empty
+	 */
+	SlotKeyIterator(StatefulRedisClusterConnection<K, V> connection, RedisCodec<K, V> codec, BitSet slots,
+			Collection<String> patterns, Collection<String> types, int pageSize) {
+		this.connection = connection;
+		this.codec = codec;
+		this.slots = slots;
+		this.patterns = patterns;
+		this.types = types;
+		this.matcher = patterns.isEmpty() ? null : new GlobMatcher(patterns);
+		this.pageSize = pageSize;
+	}
+
+	@Override
+	public boolean hasNext() {
+		while (!keys.hasNext()) {
+			int slot = slots.nextSetBit(nextSlot);
+			if (slot < 0) {
+				return false;
+			}
+			nextSlot = slot + 1;
+			keys = keys(slot);
+		}
+		return true;
+	}
+
+	@Override
+	public K next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		return keys.next();
+	}
+
+	private Iterator<K> keys(int slot) {
+		RedisClusterNode node = connection.getPartitions().getMasterBySlot(slot);
+		if (node == null) {
+			return Collections.emptyIterator();
+		}
+		StatefulRedisConnection<K, V> nodeConnection = connection.getConnection(node.getNodeId());
+		long count = nodeConnection.sync().clusterCountKeysInSlot(slot);
+		if (count == 0) {
+			return Collections.emptyIterator();
+		}
+		if (count > pageSize) {
+			if (!scannedNodes.add(node.getNodeId())) {
+				return Collections.emptyIterator();
+			}
+			return BatchUtils.scan(nodeConnection.sync(), codec, pageSize, patterns, types);
+		}
+		List<K> keys = new ArrayList<>();
+		for (K key : nodeConnection.sync().clusterGetKeysInSlot(slot, (int) count)) {
+			if (matcher == null || matcher.matches(codec.encodeKey(key))) {
+				keys.add(key);
+			}
+		}
+		if (types.isEmpty() || keys.isEmpty()) {
+			return keys.iterator();
+		}
+		return typed(nodeConnection, keys).iterator();
+	}
+
+	private List<K> typed(StatefulRedisConnection<K, V> nodeConnection, List<K> keys) {
+		RedisAsyncCommands<K, V> commands = nodeConnection.async();
+		List<RedisFuture<String>> futures = new ArrayList<>(keys.size());
+		keys.forEach(k -> futures.add(commands.type(k)));
+		Duration timeout = nodeConnection.getTimeout();
+		List<K> typed = new ArrayList<>();
+		for (int index = 0; index < keys.size(); index++) {
+			String type = LettuceFutures.awaitOrCancel(futures.get(index), timeout.toNanos(), TimeUnit.NANOSECONDS);
+			if (types.contains(type)) {
+				typed.add(keys.get(index));
+			}
+		}
+		return typed;
+	}
+
+}
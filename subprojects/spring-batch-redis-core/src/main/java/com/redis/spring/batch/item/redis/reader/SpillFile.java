@@ -0,0 +1,212 @@
+package com.redis.spring.batch.item.redis.reader;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+import org.springframework.util.Assert;
+
+import com.redis.spring.batch.item.redis.common.BinaryKey;
+
+/**
+ * Memory-mapped FIFO of distinct binary keys used as an overflow tier when an
+ * in-memory queue is full. The file is a ring buffer: records are made of the
+ * key length followed by the key bytes, never straddle a
+ * {@value #REGION_SIZE}-byte region or the end of the file, and the space of
+ * read records is reused by later ones. Keys that are already waiting in the
+ * file are not appended again, so a key that keeps changing while the queue
+ * is full takes a single record. The file is deleted when closed.
+ */
+public class SpillFile implements AutoCloseable {
+
+	static final int REGION_SIZE = 1 << 26;
+
+	private static final int PADDING = -1;
+
+	private final Path file;
+	private final long capacity;
+
+	private FileChannel channel;
+	private List<MappedByteBuffer> regions;
+	private Set<BinaryKey> keys;
+	private long readPosition;
+	private long writePosition;
+	private long used;
+
+	/**
+	 * @param file     file to create, replacing any existing file
+	 * @param capacity maximum file size in bytes
+	 */
+	public SpillFile(Path file, long capacity) {
+		this.file = file;
+		this.capacity = capacity;
+	}
+
+	public synchronized void open() throws IOException {
+		if (channel != null) {
+			return;
+		}
+		channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.DELETE_ON_CLOSE);
+		regions = new ArrayList<>();
+		keys = new HashSet<>();
+		readPosition = 0;
+		writePosition = 0;
+		used = 0;
+	}
+
+	public synchronized boolean isOpen() {
+		return channel != null;
+	}
+
+	private MappedByteBuffer region(long position) throws IOException {
+		int index = (int) (position / REGION_SIZE);
+		while (regions.size() <= index) {
+			long start = (long) regions.size() * REGION_SIZE;
+			regions.add(channel.map(MapMode.READ_WRITE, start, Math.min(REGION_SIZE, capacity - start)));
+		}
+		return regions.get(index);
+	}
+
+	private static int offset(long position) {
+		return (int) (position % REGION_SIZE);
+	}
+
+	/**
+	 * @return number of bytes from the given position to the end of its region or
+	 *         of the file
+	 */
+	private long remaining(long position) {
+		return Math.min(REGION_SIZE - offset(position), capacity - position);
+	}
+
+	private long advance(long position, long length) {
+		position += length;
+		return position == capacity ? 0 : position;
+	}
+
+	/**
+	 * Appends the remaining bytes of the given key unless it is already waiting
+	 * in the file.
+	 *
+	 * @return false if the file is closed or full
+	 */
+	public synchronized boolean offer(ByteBuffer key) throws IOException {
+		if (channel == null) {
+			return false;
+		}
+		int recordSize = Integer.BYTES + key.remaining();
+		if (recordSize > REGION_SIZE) {
+			return false;
+		}
+		byte[] bytes = new byte[key.remaining()];
+		key.duplicate().get(bytes);
+		BinaryKey binaryKey = BinaryKey.of(bytes);
+		if (keys.contains(binaryKey)) {
+			return true;
+		}
+		// Skip the ends of regions or of the file that are too short for the record
+		long position = writePosition;
+		long padding = 0;
+		while (remaining(position) < recordSize) {
+			if (padding >= capacity) {
+				return false;
+			}
+			padding += remaining(position);
+			position = advance(position, remaining(position));
+		}
+		if (used + padding + recordSize > capacity) {
+			return false;
+		}
+		while (writePosition != position) {
+			if (remaining(writePosition) >= Integer.BYTES) {
+				region(writePosition).putInt(offset(writePosition), PADDING);
+			}
+			writePosition = advance(writePosition, remaining(writePosition));
+		}
+		MappedByteBuffer region = region(writePosition);
+		int offset = offset(writePosition);
+		region.putInt(offset, bytes.length);
+		region.put(offset + Integer.BYTES, bytes);
+		writePosition = advance(writePosition, recordSize);
+		used += padding + recordSize;
+		keys.add(binaryKey);
+		return true;
+	}
+
+	/**
+	 * Removes the oldest key and decodes it while the file is locked.
+	 *
+	 * @param decoder decodes the key from a buffer that must not be retained
+	 * @return decoded key or null if the file is empty or closed
+	 */
+	public synchronized <T> T poll(Function<ByteBuffer, T> decoder) throws IOException {
+		if (channel == null || keys.isEmpty()) {
+			return null;
+		}
+		long remaining = remaining(readPosition);
+		while (remaining < Integer.BYTES || region(readPosition).getInt(offset(readPosition)) == PADDING) {
+			readPosition = advance(readPosition, remaining);
+			used -= remaining;
+			remaining = remaining(readPosition);
+		}
+		MappedByteBuffer region = region(readPosition);
+		int offset = offset(readPosition);
+		int length = region.getInt(offset);
+		Assert.state(length >= 0, "Corrupt spill file");
+		byte[] bytes = new byte[length];
+		region.get(offset + Integer.BYTES, bytes);
+		keys.remove(BinaryKey.of(bytes));
+		T value = decoder.apply(ByteBuffer.wrap(bytes).asReadOnlyBuffer());
+		readPosition = advance(readPosition, Integer.BYTES + length);
+		used -= Integer.BYTES + length;
+		if (keys.isEmpty()) {
+			// Everything was read: start again from the beginning
+			readPosition = 0;
+			writePosition = 0;
+			used = 0;
+		}
+		return value;
+	}
+
+	/**
+	 * @return number of keys waiting to be read
+	 */
+	public synchronized long count() {
+		return keys == null ? 0 : keys.size();
+	}
+
+	/**
+	 * @return number of bytes waiting to be read
+	 */
+	public synchronized long size() {
+		return used;
+	}
+
+	public Path getFile() {
+		return file;
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		if (channel != null) {
+			regions = null;
+			keys = null;
+			channel.close();
+			channel = null;
+			readPosition = 0;
+			writePosition = 0;
+			used = 0;
+		}
+	}
+
+}
@@ -0,0 +1,169 @@
+package com.redis.spring.batch.item.redis.reader;
+
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import io.lettuce.core.AbstractRedisClient;
+import io.lettuce.core.RedisChannelHandler;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisConnectionStateListener;
+import io.lettuce.core.TrackingArgs;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.push.PushListener;
+import io.lettuce.core.api.push.PushMessage;
+import io.lettuce.core.cluster.RedisClusterClient;
+import io.lettuce.core.cluster.api.StatefulRedisClusterConnection;
+import io.lettuce.core.cluster.api.push.RedisClusterPushListener;
+import io.lettuce.core.cluster.models.partitions.RedisClusterNode;
+import io.lettuce.core.codec.ByteArrayCodec;
+
+/**
+ * Publishes the keys carried by RESP3 <code>invalidate</code> push messages
+ * after enabling client-side caching in broadcasting mode on a dedicated
+ * connection. In cluster mode tracking is enabled on every upstream node.
+ * <p>
+ * Requires the client to use the RESP3 protocol (see
+ * {@link io.lettuce.core.ClientOptions.Builder#protocolVersion}): with RESP2
+ * invalidation messages are only sent over a separate Pub/Sub connection and
+ * no key is published.
+ * <p>
+ * Tracking is bound to a connection, so it is enabled again whenever one of
+ * the tracking connections reconnects. Since invalidations are lost while
+ * disconnected, a rescan is then requested. A rescan is also requested when
+ * the keyspace is flushed, as the flushed keys are not reported individually.
+ */
+public class TrackingKeyNotificationPublisher implements KeyNotificationPublisher {
+
+	private static final String INVALIDATE = "invalidate";
+
+	private final AbstractRedisClient client;
+	private final List<String> prefixes;
+	private final Consumer<byte[]> consumer;
+	private final Runnable rescan;
+	private final Set<Object> trackedConnections = Collections
+			.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<>()));
+	private final RedisConnectionStateListener stateListener = new RedisConnectionStateListener() {
+
+		@Override
+		public void onRedisConnected(RedisChannelHandler<?, ?> connection, SocketAddress socketAddress) {
+			reconnected(connection);
+		}
+
+	};
+
+	private StatefulRedisConnection<byte[], byte[]> connection;
+	private PushListener listener;
+	private StatefulRedisClusterConnection<byte[], byte[]> clusterConnection;
+	private RedisClusterPushListener clusterListener;
+
+	/**
+	 * @param client   Redis or Redis Cluster client
+	 * @param prefixes non-overlapping key prefixes to track, all keys if empty
+	 * @param consumer receives each invalidated key
+	 * @param rescan   called when invalidations may have been missed and keys
+	 *                 need to be rescanned
+	 */
+	public TrackingKeyNotificationPublisher(AbstractRedisClient client, List<String> prefixes,
+			Consumer<byte[]> consumer, Runnable rescan) {
+		this.client = client;
+		this.prefixes = prefixes;
+		this.consumer = consumer;
+		this.rescan = rescan;
+	}
+
+	private TrackingArgs trackingArgs() {
+		TrackingArgs args = TrackingArgs.Builder.enabled().bcast();
+		if (!prefixes.isEmpty()) {
+			args.prefixes(prefixes.toArray(new String[0]));
+		}
+		return args;
+	}
+
+	@Override
+	public synchronized void open() {
+		if (connection != null || clusterConnection != null) {
+			return;
+		}
+		client.addListener(stateListener);
+		if (client instanceof RedisClusterClient) {
+			clusterConnection = ((RedisClusterClient) client).connect(ByteArrayCodec.INSTANCE);
+			clusterListener = (node, message) -> push(message);
+			clusterConnection.addListener(clusterListener);
+			for (RedisClusterNode node : clusterConnection.getPartitions()) {
+				if (node.is(RedisClusterNode.NodeFlag.UPSTREAM)) {
+					track(clusterConnection.getConnection(node.getNodeId()));
+				}
+			}
+		} else {
+			connection = ((RedisClient) client).connect(ByteArrayCodec.INSTANCE);
+			listener = this::push;
+			connection.addListener(listener);
+			track(connection);
+		}
+	}
+
+	private void track(StatefulRedisConnection<byte[], byte[]> trackingConnection) {
+		trackingConnection.sync().clientTracking(trackingArgs());
+		trackedConnections.add(trackingConnection);
+	}
+
+	/**
+	 * Called on an event loop thread, so tracking is enabled without waiting for
+	 * the reply.
+	 */
+	@SuppressWarnings("unchecked")
+	private void reconnected(RedisChannelHandler<?, ?> handler) {
+		if (!trackedConnections.contains(handler)) {
+			return;
+		}
+		((StatefulRedisConnection<byte[], byte[]>) handler).async().clientTracking(trackingArgs());
+		rescan.run();
+	}
+
+	private void push(PushMessage message) {
+		if (!INVALIDATE.equals(message.getType())) {
+			return;
+		}
+		List<Object> content = message.getContent();
+		if (content.size() < 2) {
+			return;
+		}
+		// Keys are null when the whole keyspace was flushed
+		if (!(content.get(1) instanceof List)) {
+			rescan.run();
+			return;
+		}
+		for (Object key : (List<?>) content.get(1)) {
+			if (key instanceof ByteBuffer) {
+				ByteBuffer buffer = (ByteBuffer) key;
+				byte[] bytes = new byte[buffer.remaining()];
+				buffer.duplicate().get(bytes);
+				consumer.accept(bytes);
+			} else if (key instanceof byte[]) {
+				consumer.accept((byte[]) key);
+			}
+		}
+	}
+
+	@Override
+	public synchronized void close() {
+		client.removeListener(stateListener);
+		trackedConnections.clear();
+		if (connection != null) {
+			connection.removeListener(listener);
+			connection.close();
+			connection = null;
+		}
+		if (clusterConnection != null) {
+			clusterConnection.removeListener(clusterListener);
+			clusterConnection.close();
+			clusterConnection = null;
+		}
+	}
+
+}
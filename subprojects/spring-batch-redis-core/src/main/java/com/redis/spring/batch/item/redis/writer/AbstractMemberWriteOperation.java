@@ -1,13 +1,12 @@
 package com.redis.spring.batch.item.redis.writer;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.function.Function;
 
 import org.springframework.util.CollectionUtils;
 
-import com.redis.spring.batch.item.redis.common.BatchUtils;
-
 import io.lettuce.core.RedisFuture;
 import io.lettuce.core.api.async.RedisAsyncCommands;
 
@@ -20,16 +19,23 @@ public abstract class AbstractMemberWriteOperation<K, V, T>
 
 	@Override
 	public List<RedisFuture<Object>> execute(RedisAsyncCommands<K, V> commands, Iterable<? extends T> items) {
-		return BatchUtils.executeAll(commands, items, this::execute);
+		List<RedisFuture<Object>> futures = new ArrayList<>();
+		for (T item : items) {
+			execute(commands, item, futures);
+		}
+		return futures;
 	}
 
-	@SuppressWarnings("unchecked")
-	private RedisFuture<Long> execute(RedisAsyncCommands<K, V> commands, T item) {
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private void execute(RedisAsyncCommands<K, V> commands, T item, List<RedisFuture<Object>> futures) {
 		Collection<V> value = value(item);
 		if (CollectionUtils.isEmpty(value)) {
-			return null;
+			return;
+		}
+		K key = key(item);
+		for (List<V> batch : batches(value)) {
+			futures.add((RedisFuture) execute(commands, key, (V[]) batch.toArray()));
 		}
-		return execute(commands, key(item), (V[]) value.toArray());
 	}
 
 	protected abstract RedisFuture<Long> execute(RedisAsyncCommands<K, V> commands, K key, V[] values);
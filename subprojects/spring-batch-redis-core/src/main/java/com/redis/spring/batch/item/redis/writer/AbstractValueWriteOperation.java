@@ -1,11 +1,19 @@
 package com.redis.spring.batch.item.redis.writer;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.function.Function;
 
 public abstract class AbstractValueWriteOperation<K, V, R, T> extends AbstractWriteOperation<K, V, T> {
 
+	public static final int DEFAULT_BATCH_SIZE = 0;
+
 	protected final Function<T, R> valueFunction;
 
+	private int batchSize = DEFAULT_BATCH_SIZE;
+
 	protected AbstractValueWriteOperation(Function<T, K> keyFunction, Function<T, R> valueFunction) {
 		super(keyFunction);
 		this.valueFunction = valueFunction;
@@ -14,4 +22,39 @@ public abstract class AbstractValueWriteOperation<K, V, R, T> extends AbstractWr
 	protected R value(T item) {
 		return valueFunction.apply(item);
 	}
+
+	/**
+	 * Splits the given values into batches of at most batchSize elements.
+	 * 
+	 * @param <E>    element type
+	 * @param values values to split
+	 * @return consecutive batches of values, or a single batch holding all values
+	 *         if batch size is unbounded or not exceeded
+	 */
+	protected <E> List<List<E>> batches(Collection<E> values) {
+		List<E> list = values instanceof List ? (List<E>) values : new ArrayList<>(values);
+		if (batchSize <= 0 || list.size() <= batchSize) {
+			return Collections.singletonList(list);
+		}
+		List<List<E>> batches = new ArrayList<>();
+		for (int index = 0; index < list.size(); index += batchSize) {
+			batches.add(list.subList(index, Math.min(index + batchSize, list.size())));
+		}
+		return batches;
+	}
+
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	/**
+	 * 
+	 * @param batchSize max number of members or fields to send in a single
+	 *                  command. Larger values are written with several pipelined
+	 *                  commands. 0 means no limit.
+	 */
+	public void setBatchSize(int batchSize) {
+		this.batchSize = batchSize;
+	}
+
 }
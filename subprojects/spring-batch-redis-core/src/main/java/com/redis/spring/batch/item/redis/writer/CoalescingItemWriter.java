@@ -0,0 +1,176 @@
+package com.redis.spring.batch.item.redis.writer;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStream;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamWriter;
+import org.springframework.batch.item.ItemWriter;
+
+import com.redis.spring.batch.item.redis.common.BinaryKey;
+import com.redis.spring.batch.item.redis.common.KeyValue;
+
+/**
+ * ItemWriter that only hands the newest key-value per key (by
+ * {@link KeyValue#getTime()}) to its delegate.
+ * <p>
+ * By default the writer is checkpointed: each chunk is coalesced and written
+ * before {@link #write(Chunk)} returns, so that the step never commits a chunk
+ * whose items are not written yet. With {@code checkpointed} set to false, for
+ * LIVE steps that can lose their restart position, items are held for a short
+ * window across chunks and written when the window expires, when the buffer
+ * reaches its maximum size, and on close. Items still buffered when the JVM
+ * stops are then lost, so the window should stay short.
+ * <p>
+ * Items stay buffered until the delegate has written them. While the delegate
+ * fails, each write first retries the buffered items and fails without taking
+ * its own items, so the buffer never holds more than {@code maxSize} items
+ * plus one chunk.
+ */
+public class CoalescingItemWriter<K, T> implements ItemStreamWriter<KeyValue<K, T>> {
+
+	public static final Duration DEFAULT_WINDOW = Duration.ofMillis(100);
+	public static final int DEFAULT_MAX_SIZE = 10000;
+
+	private final ItemWriter<KeyValue<K, T>> delegate;
+
+	private Duration window = DEFAULT_WINDOW;
+	private int maxSize = DEFAULT_MAX_SIZE;
+	private boolean checkpointed = true;
+
+	private final Map<Object, KeyValue<K, T>> buffer = new LinkedHashMap<>();
+	private ScheduledExecutorService executor;
+	private boolean failed;
+
+	public CoalescingItemWriter(ItemWriter<KeyValue<K, T>> delegate) {
+		this.delegate = delegate;
+	}
+
+	@Override
+	public synchronized void open(ExecutionContext executionContext) throws ItemStreamException {
+		if (delegate instanceof ItemStream) {
+			((ItemStream) delegate).open(executionContext);
+		}
+		if (!checkpointed && executor == null) {
+			executor = Executors.newSingleThreadScheduledExecutor(this::thread);
+			long millis = window.toMillis();
+			executor.scheduleWithFixedDelay(this::flushQuietly, millis, millis, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	private Thread thread(Runnable runnable) {
+		Thread thread = new Thread(runnable, "coalescing-writer");
+		thread.setDaemon(true);
+		return thread;
+	}
+
+	@Override
+	public void update(ExecutionContext executionContext) throws ItemStreamException {
+		if (delegate instanceof ItemStream) {
+			((ItemStream) delegate).update(executionContext);
+		}
+	}
+
+	@Override
+	public synchronized void close() throws ItemStreamException {
+		if (executor != null) {
+			executor.shutdown();
+			executor = null;
+		}
+		try {
+			flush();
+		} catch (Exception e) {
+			throw new ItemStreamException("Could not flush buffered items", e);
+		} finally {
+			if (delegate instanceof ItemStream) {
+				((ItemStream) delegate).close();
+			}
+		}
+	}
+
+	@Override
+	public synchronized void write(Chunk<? extends KeyValue<K, T>> chunk) throws Exception {
+		if (failed || buffer.size() + chunk.size() > maxSize) {
+			// Retry or make room before taking the items so that a failing delegate
+			// pushes back on the step instead of growing the buffer
+			flush();
+		}
+		for (KeyValue<K, T> item : chunk) {
+			buffer.merge(BinaryKey.identity(item.getKey()), item, this::newest);
+		}
+		if (checkpointed || buffer.size() >= maxSize) {
+			flush();
+		}
+	}
+
+	private KeyValue<K, T> newest(KeyValue<K, T> current, KeyValue<K, T> candidate) {
+		return candidate.getTime() >= current.getTime() ? candidate : current;
+	}
+
+	private synchronized void flushQuietly() {
+		try {
+			flush();
+		} catch (Exception e) {
+			// Retried by the next write, which fails if the delegate still does
+		}
+	}
+
+	/**
+	 * Writes all buffered items to the delegate. Items are only removed from the
+	 * buffer once the delegate has written them.
+	 *
+	 * @throws Exception if the delegate fails to write
+	 */
+	public synchronized void flush() throws Exception {
+		if (buffer.isEmpty()) {
+			return;
+		}
+		failed = true;
+		delegate.write(new Chunk<>(new ArrayList<>(buffer.values())));
+		buffer.clear();
+		failed = false;
+	}
+
+	public synchronized int size() {
+		return buffer.size();
+	}
+
+	public Duration getWindow() {
+		return window;
+	}
+
+	public void setWindow(Duration window) {
+		this.window = window;
+	}
+
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	public void setMaxSize(int maxSize) {
+		this.maxSize = maxSize;
+	}
+
+	public boolean isCheckpointed() {
+		return checkpointed;
+	}
+
+	/**
+	 * 
+	 * @param checkpointed if false, items are held across chunks for the window
+	 *                     and the step may commit chunks whose items are not
+	 *                     written yet. Only for LIVE steps.
+	 */
+	public void setCheckpointed(boolean checkpointed) {
+		this.checkpointed = checkpointed;
+	}
+
+}
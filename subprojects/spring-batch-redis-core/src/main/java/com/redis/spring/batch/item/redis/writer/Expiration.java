@@ -0,0 +1,39 @@
+package com.redis.spring.batch.item.redis.writer;
+
+import java.time.Duration;
+import java.util.List;
+
+import com.redis.spring.batch.item.redis.common.KeyValue;
+
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.api.async.RedisAsyncCommands;
+
+/**
+ * Aligns the expiration time of a key that was left unchanged on the target
+ * with the one of its source.
+ */
+class Expiration {
+
+	private Expiration() {
+	}
+
+	/**
+	 *
+	 * @param tolerance max difference between source and target expiration times
+	 *                  below which the target TTL is left unchanged
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	static <K, V> void update(RedisAsyncCommands<K, V> commands, KeyValue<K, ?> source, KeyValue<K, ?> target,
+			Duration tolerance, List<RedisFuture<Object>> futures) {
+		long sourceTtl = KeyValue.absoluteTTL(source);
+		long targetTtl = KeyValue.absoluteTTL(target);
+		if (sourceTtl > 0) {
+			if (targetTtl <= 0 || Math.abs(sourceTtl - targetTtl) > tolerance.toMillis()) {
+				futures.add((RedisFuture) commands.pexpireat(source.getKey(), sourceTtl));
+			}
+		} else if (targetTtl > 0) {
+			futures.add((RedisFuture) commands.persist(source.getKey()));
+		}
+	}
+
+}
@@ -0,0 +1,125 @@
+package com.redis.spring.batch.item.redis.writer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+import com.redis.spring.batch.item.redis.common.KeyValue;
+
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.RestoreArgs;
+import io.lettuce.core.api.async.RedisAsyncCommands;
+import io.lettuce.core.codec.RedisCodec;
+import io.lettuce.core.output.StatusOutput;
+import io.lettuce.core.protocol.CommandArgs;
+import io.lettuce.core.protocol.CommandType;
+import io.netty.buffer.ByteBuf;
+
+/**
+ * RESTORE operation for DUMP payloads held in pooled buffers. The payload is
+ * encoded from its buffer directly into the outbound command, and the buffer is
+ * released once the command succeeds. Buffers of failed commands are kept so
+ * that the item can be retried, and released when the item is written or when
+ * the operation is closed. Buffers of items that are not restored are released
+ * right away. Deletes and restores are sent in chunk order.
+ */
+public class KeyValueBufferRestore<K> extends AbstractValueWriteOperation<K, ByteBuf, ByteBuf, KeyValue<K, ByteBuf>>
+		implements AutoCloseable {
+
+	private final RedisCodec<K, ByteBuf> codec;
+	private final Set<KeyValue<K, ByteBuf>> failed = Collections
+			.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<>()));
+
+	public KeyValueBufferRestore(RedisCodec<K, ByteBuf> codec) {
+		super(KeyValue::getKey, KeyValue::getValue);
+		this.codec = codec;
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	@Override
+	public List<RedisFuture<Object>> execute(RedisAsyncCommands<K, ByteBuf> commands,
+			Iterable<? extends KeyValue<K, ByteBuf>> items) {
+		List<RedisFuture<Object>> futures = new ArrayList<>();
+		List<K> toDelete = new ArrayList<>();
+		for (KeyValue<K, ByteBuf> item : items) {
+			if (item.getTtl() == KeyValue.TTL_NO_KEY) {
+				toDelete.add(key(item));
+				release(item);
+				continue;
+			}
+			ByteBuf value = buffer(item);
+			if (value != null) {
+				// Consecutive deletes go in a single DEL sent before the next restore
+				delete(commands, toDelete, futures);
+				futures.add((RedisFuture) restore(commands, item, value));
+			}
+		}
+		delete(commands, toDelete, futures);
+		return futures;
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private void delete(RedisAsyncCommands<K, ByteBuf> commands, List<K> keys, List<RedisFuture<Object>> futures) {
+		if (!keys.isEmpty()) {
+			futures.add((RedisFuture) commands.del((K[]) keys.toArray()));
+			keys.clear();
+		}
+	}
+
+	private RedisFuture<String> restore(RedisAsyncCommands<K, ByteBuf> commands, KeyValue<K, ByteBuf> item,
+			ByteBuf value) {
+		long ttl = KeyValue.absoluteTTL(item);
+		CommandArgs<K, ByteBuf> args = new CommandArgs<>(codec).addKey(key(item)).add(Math.max(ttl, 0))
+				.addValue(value);
+		new RestoreArgs().replace(true).absttl(ttl > 0).build(args);
+		RedisFuture<String> future = commands.dispatch(CommandType.RESTORE, new StatusOutput<>(codec), args);
+		future.whenComplete((r, e) -> {
+			if (e == null) {
+				failed.remove(item);
+				release(item);
+			} else {
+				// Keep the payload for a retry of the item
+				failed.add(item);
+			}
+		});
+		return future;
+	}
+
+	private ByteBuf buffer(KeyValue<K, ByteBuf> item) {
+		synchronized (item) {
+			return value(item);
+		}
+	}
+
+	/**
+	 * Releases the item's buffer at most once: pooled buffers are recycled after
+	 * their release, so their reference count cannot tell.
+	 */
+	private void release(KeyValue<K, ByteBuf> item) {
+		ByteBuf value;
+		synchronized (item) {
+			value = item.getValue();
+			item.setValue(null);
+		}
+		if (value != null) {
+			value.release();
+		}
+	}
+
+	/**
+	 * Releases the buffers of items whose restore failed and that were not
+	 * written by a later retry, e.g. skipped items.
+	 */
+	@Override
+	public void close() {
+		List<KeyValue<K, ByteBuf>> items;
+		synchronized (failed) {
+			items = new ArrayList<>(failed);
+			failed.clear();
+		}
+		items.forEach(this::release);
+	}
+
+}
@@ -0,0 +1,402 @@
+package com.redis.spring.batch.item.redis.writer;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.function.BiFunction;
+import java.util.stream.Collectors;
+
+import com.redis.lettucemod.timeseries.Sample;
+import com.redis.spring.batch.item.redis.common.BatchUtils;
+import com.redis.spring.batch.item.redis.common.DataType;
+import com.redis.spring.batch.item.redis.common.InitializingOperation;
+import com.redis.spring.batch.item.redis.common.KeyValue;
+import com.redis.spring.batch.item.redis.reader.KeyValueRead;
+import com.redis.spring.batch.item.redis.reader.KeyValueStructRead;
+import com.redis.spring.batch.item.redis.writer.KeyValueWrite.WriteMode;
+
+import io.lettuce.core.AbstractRedisClient;
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.RedisURI;
+import io.lettuce.core.ScoredValue;
+import io.lettuce.core.StreamMessage;
+import io.lettuce.core.api.async.RedisAsyncCommands;
+import io.lettuce.core.codec.RedisCodec;
+
+/**
+ * Write operation that reads the current value of each key on the target and
+ * only sends the differences needed to make it equal to the source: changed
+ * and removed hash fields, added and removed set and sorted set members,
+ * appended list elements and stream messages, new time-series samples and TTL
+ * changes. Keys that are missing on the target, have a different type, or
+ * whose list or stream diverged from the source are overwritten in full.
+ * <p>
+ * This is an overwrite delta: the target ends up equal to the source as with
+ * {@link WriteMode#OVERWRITE}, so hash fields and set and sorted set members
+ * that only exist on the target are removed. To keep them, write full values
+ * with {@link WriteMode#MERGE} instead.
+ * <p>
+ * If source values carry a digest (see {@link KeyValueRead#setDigest(boolean)}),
+ * the DUMP checksum and type of each key are first read on the target. Keys
+ * with the same checksum only get their TTL adjusted, and keys that are
+ * missing on the target or have a different type are overwritten without
+ * reading their target value. Only the remaining keys have their target value
+ * read in full.
+ * <p>
+ * Target values are read and awaited within {@link #execute}, so this
+ * operation cannot be wrapped in a MULTI/EXEC transaction:
+ * {@link com.redis.spring.batch.item.redis.RedisItemWriter} rejects it when
+ * multiExec is set.
+ */
+public class KeyValueDeltaWrite<K, V> implements InitializingOperation<K, V, KeyValue<K, Object>, Object> {
+
+	public static final Duration DEFAULT_TIMEOUT = RedisURI.DEFAULT_TIMEOUT_DURATION;
+	public static final Duration DEFAULT_TTL_TOLERANCE = Duration.ofSeconds(1);
+
+	private final RedisCodec<K, V> codec;
+	private final KeyValueStructRead<K, V> read;
+	private final KeyValueRead<K, V, Object> digestRead;
+	private final KeyValueWrite<K, V> write = KeyValueWrite.create(WriteMode.OVERWRITE);
+
+	private Duration timeout = DEFAULT_TIMEOUT;
+	private Duration ttlTolerance = DEFAULT_TTL_TOLERANCE;
+	private int batchSize = AbstractValueWriteOperation.DEFAULT_BATCH_SIZE;
+
+	public KeyValueDeltaWrite(RedisCodec<K, V> codec) {
+		this.codec = codec;
+		this.read = new KeyValueStructRead<>(codec);
+		this.read.setMemUsageLimit(KeyValueRead.MEM_USAGE_OFF);
+		this.digestRead = KeyValueRead.type(codec);
+		this.digestRead.setMemUsageLimit(KeyValueRead.MEM_USAGE_OFF);
+		this.digestRead.setDigest(true);
+	}
+
+	@Override
+	public void setClient(AbstractRedisClient client) {
+		read.setClient(client);
+		digestRead.setClient(client);
+	}
+
+	@Override
+	public void afterPropertiesSet() throws Exception {
+		read.afterPropertiesSet();
+		digestRead.afterPropertiesSet();
+	}
+
+	@Override
+	public List<RedisFuture<Object>> execute(RedisAsyncCommands<K, V> commands,
+			Iterable<? extends KeyValue<K, Object>> items) {
+		List<KeyValue<K, Object>> sources = new ArrayList<>();
+		items.forEach(sources::add);
+		List<RedisFuture<Object>> futures = new ArrayList<>();
+		List<KeyValue<K, Object>> overwrites = new ArrayList<>();
+		List<KeyValue<K, Object>> changed = sources;
+		if (sources.stream().map(KeyValue::getDigest).anyMatch(Objects::nonNull)) {
+			changed = new ArrayList<>();
+			List<KeyValue<K, Object>> targets = read(commands, digestRead, sources);
+			for (int index = 0; index < sources.size(); index++) {
+				KeyValue<K, Object> source = sources.get(index);
+				KeyValue<K, Object> target = targets.get(index);
+				if (overwrite(source, target, overwrites)) {
+					continue;
+				}
+				if (source.getDigest() != null && source.getDigest().equals(target.getDigest())) {
+					Expiration.update(commands, source, target, ttlTolerance, futures);
+				} else {
+					changed.add(source);
+				}
+			}
+		}
+		List<KeyValue<K, Object>> targets = read(commands, read, changed);
+		for (int index = 0; index < changed.size(); index++) {
+			KeyValue<K, Object> source = changed.get(index);
+			KeyValue<K, Object> target = targets.get(index);
+			if (overwrite(source, target, overwrites)) {
+				continue;
+			}
+			if (delta(commands, source, target, futures)) {
+				Expiration.update(commands, source, target, ttlTolerance, futures);
+			} else {
+				overwrites.add(source);
+			}
+		}
+		futures.addAll(write.execute(commands, overwrites));
+		return futures;
+	}
+
+	private List<KeyValue<K, Object>> read(RedisAsyncCommands<K, V> commands, KeyValueRead<K, V, Object> operation,
+			List<KeyValue<K, Object>> items) {
+		if (items.isEmpty()) {
+			return Collections.emptyList();
+		}
+		List<K> keys = items.stream().map(KeyValue::getKey).collect(Collectors.toList());
+		List<RedisFuture<KeyValue<K, Object>>> futures = operation.execute(commands, keys);
+		commands.flushCommands();
+		return BatchUtils.await(timeout, futures);
+	}
+
+	/**
+	 * Adds the source to the given overwrites if the target does not need to be
+	 * read to be made equal to it, i.e. if the key is missing on either side or
+	 * has a different type.
+	 *
+	 * @return false if the key exists on both sides with the same type
+	 */
+	private boolean overwrite(KeyValue<K, Object> source, KeyValue<K, Object> target,
+			List<KeyValue<K, Object>> overwrites) {
+		if (KeyValue.exists(source) && KeyValue.exists(target) && KeyValue.type(source) == KeyValue.type(target)) {
+			return false;
+		}
+		if (KeyValue.exists(source) || KeyValue.exists(target)) {
+			overwrites.add(source);
+		}
+		return true;
+	}
+
+	/**
+	 *
+	 * @return false if the difference cannot be expressed as incremental commands
+	 *         and the key needs to be overwritten
+	 */
+	private boolean delta(RedisAsyncCommands<K, V> commands, KeyValue<K, Object> source, KeyValue<K, Object> target,
+			List<RedisFuture<Object>> futures) {
+		DataType type = KeyValue.type(source);
+		if (type == null) {
+			return false;
+		}
+		switch (type) {
+		case HASH:
+			hash(commands, source, target, futures);
+			return true;
+		case SET:
+			set(commands, source, target, futures);
+			return true;
+		case ZSET:
+			zset(commands, source, target, futures);
+			return true;
+		case TIMESERIES:
+			timeseries(commands, source, target, futures);
+			return true;
+		case LIST:
+			return list(commands, source, target, futures);
+		case STREAM:
+			return stream(commands, source, target, futures);
+		case STRING:
+		case JSON:
+			return equals(value(source), value(target));
+		default:
+			return false;
+		}
+	}
+
+	private void hash(RedisAsyncCommands<K, V> commands, KeyValue<K, Object> source, KeyValue<K, Object> target,
+			List<RedisFuture<Object>> futures) {
+		Map<ByteBuffer, Entry<K, V>> targetFields = new HashMap<>();
+		for (Entry<K, V> field : this.<Map<K, V>>value(target).entrySet()) {
+			targetFields.put(codec.encodeKey(field.getKey()), field);
+		}
+		Map<K, V> changed = new LinkedHashMap<>();
+		for (Entry<K, V> field : this.<Map<K, V>>value(source).entrySet()) {
+			Entry<K, V> targetField = targetFields.remove(codec.encodeKey(field.getKey()));
+			if (targetField == null || !equals(field.getValue(), targetField.getValue())) {
+				changed.put(field.getKey(), field.getValue());
+			}
+		}
+		if (!changed.isEmpty()) {
+			futures.addAll(write.getHset().execute(commands, items(source, changed)));
+		}
+		List<K> removed = targetFields.values().stream().map(Entry::getKey).collect(Collectors.toList());
+		remove(removed, source, futures, (key, fields) -> commands.hdel(key, toArray(fields)));
+	}
+
+	private void set(RedisAsyncCommands<K, V> commands, KeyValue<K, Object> source, KeyValue<K, Object> target,
+			List<RedisFuture<Object>> futures) {
+		Map<ByteBuffer, V> targetMembers = members(value(target));
+		List<V> added = new ArrayList<>();
+		for (V member : this.<Collection<V>>value(source)) {
+			if (targetMembers.remove(codec.encodeValue(member)) == null) {
+				added.add(member);
+			}
+		}
+		if (!added.isEmpty()) {
+			futures.addAll(write.getSadd().execute(commands, items(source, added)));
+		}
+		remove(new ArrayList<>(targetMembers.values()), source, futures,
+				(key, members) -> commands.srem(key, toArray(members)));
+	}
+
+	private void zset(RedisAsyncCommands<K, V> commands, KeyValue<K, Object> source, KeyValue<K, Object> target,
+			List<RedisFuture<Object>> futures) {
+		Map<ByteBuffer, ScoredValue<V>> targetMembers = new HashMap<>();
+		for (ScoredValue<V> member : this.<Collection<ScoredValue<V>>>value(target)) {
+			targetMembers.put(codec.encodeValue(member.getValue()), member);
+		}
+		List<ScoredValue<V>> added = new ArrayList<>();
+		for (ScoredValue<V> member : this.<Collection<ScoredValue<V>>>value(source)) {
+			ScoredValue<V> targetMember = targetMembers.remove(codec.encodeValue(member.getValue()));
+			if (targetMember == null || Double.compare(targetMember.getScore(), member.getScore()) != 0) {
+				added.add(member);
+			}
+		}
+		if (!added.isEmpty()) {
+			futures.addAll(write.getZadd().execute(commands, items(source, added)));
+		}
+		List<V> removed = targetMembers.values().stream().map(ScoredValue::getValue).collect(Collectors.toList());
+		remove(removed, source, futures, (key, members) -> commands.zrem(key, toArray(members)));
+	}
+
+	private void timeseries(RedisAsyncCommands<K, V> commands, KeyValue<K, Object> source,
+			KeyValue<K, Object> target, List<RedisFuture<Object>> futures) {
+		Map<Long, Double> targetSamples = new HashMap<>();
+		for (Sample sample : this.<Collection<Sample>>value(target)) {
+			targetSamples.put(sample.getTimestamp(), sample.getValue());
+		}
+		List<Sample> added = new ArrayList<>();
+		for (Sample sample : this.<Collection<Sample>>value(source)) {
+			Double targetValue = targetSamples.get(sample.getTimestamp());
+			if (targetValue == null || Double.compare(targetValue, sample.getValue()) != 0) {
+				added.add(sample);
+			}
+		}
+		if (!added.isEmpty()) {
+			futures.addAll(write.getTsAdd().execute(commands, items(source, added)));
+		}
+	}
+
+	private boolean list(RedisAsyncCommands<K, V> commands, KeyValue<K, Object> source, KeyValue<K, Object> target,
+			List<RedisFuture<Object>> futures) {
+		List<V> sourceList = value(source);
+		List<V> targetList = value(target);
+		if (targetList.size() > sourceList.size()) {
+			return false;
+		}
+		for (int index = 0; index < targetList.size(); index++) {
+			if (!equals(sourceList.get(index), targetList.get(index))) {
+				return false;
+			}
+		}
+		if (sourceList.size() > targetList.size()) {
+			List<V> appended = sourceList.subList(targetList.size(), sourceList.size());
+			futures.addAll(write.getRpush().execute(commands, items(source, appended)));
+		}
+		return true;
+	}
+
+	private boolean stream(RedisAsyncCommands<K, V> commands, KeyValue<K, Object> source,
+			KeyValue<K, Object> target, List<RedisFuture<Object>> futures) {
+		List<StreamMessage<K, V>> sourceMessages = value(source);
+		List<StreamMessage<K, V>> targetMessages = value(target);
+		if (targetMessages.size() > sourceMessages.size()) {
+			return false;
+		}
+		for (int index = 0; index < targetMessages.size(); index++) {
+			if (!sourceMessages.get(index).getId().equals(targetMessages.get(index).getId())) {
+				return false;
+			}
+		}
+		if (sourceMessages.size() > targetMessages.size()) {
+			List<StreamMessage<K, V>> appended = sourceMessages.subList(targetMessages.size(), sourceMessages.size());
+			futures.addAll(write.getXadd().execute(commands, items(source, appended)));
+		}
+		return true;
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private <T> void remove(List<T> members, KeyValue<K, Object> source, List<RedisFuture<Object>> futures,
+			BiFunction<K, List<T>, RedisFuture<Long>> command) {
+		if (members.isEmpty()) {
+			return;
+		}
+		if (batchSize <= 0) {
+			futures.add((RedisFuture) command.apply(source.getKey(), members));
+			return;
+		}
+		for (int index = 0; index < members.size(); index += batchSize) {
+			List<T> batch = members.subList(index, Math.min(index + batchSize, members.size()));
+			futures.add((RedisFuture) command.apply(source.getKey(), batch));
+		}
+	}
+
+	private Map<ByteBuffer, V> members(Collection<V> values) {
+		Map<ByteBuffer, V> members = new HashMap<>();
+		for (V value : values) {
+			members.put(codec.encodeValue(value), value);
+		}
+		return members;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> T[] toArray(List<T> list) {
+		return (T[]) list.toArray();
+	}
+
+	private boolean equals(Object value, Object other) {
+		if (value == null || other == null) {
+			return value == other;
+		}
+		return codec.encodeValue(cast(value)).equals(codec.encodeValue(cast(other)));
+	}
+
+	@SuppressWarnings("unchecked")
+	private V cast(Object value) {
+		return (V) value;
+	}
+
+	private List<KeyValue<K, Object>> items(KeyValue<K, Object> source, Object value) {
+		KeyValue<K, Object> item = new KeyValue<>(source);
+		item.setValue(value);
+		return Collections.singletonList(item);
+	}
+
+	@SuppressWarnings("unchecked")
+	private <T> T value(KeyValue<K, Object> keyValue) {
+		return (T) keyValue.getValue();
+	}
+
+	public KeyValueWrite<K, V> getWrite() {
+		return write;
+	}
+
+	public Duration getTimeout() {
+		return timeout;
+	}
+
+	/**
+	 *
+	 * @param timeout max time to wait for target values to be read
+	 */
+	public void setTimeout(Duration timeout) {
+		this.timeout = timeout;
+	}
+
+	public Duration getTtlTolerance() {
+		return ttlTolerance;
+	}
+
+	/**
+	 *
+	 * @param tolerance max difference between source and target expiration times
+	 *                  below which the target TTL is left unchanged
+	 */
+	public void setTtlTolerance(Duration tolerance) {
+		this.ttlTolerance = tolerance;
+	}
+
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	public void setBatchSize(int batchSize) {
+		this.batchSize = batchSize;
+		write.setBatchSize(batchSize);
+	}
+
+}
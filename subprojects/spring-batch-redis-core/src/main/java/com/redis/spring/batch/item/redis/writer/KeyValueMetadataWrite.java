@@ -0,0 +1,129 @@
+package com.redis.spring.batch.item.redis.writer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Function;
+
+import com.redis.spring.batch.item.redis.common.CompositeOperation;
+import com.redis.spring.batch.item.redis.common.KeyChange;
+import com.redis.spring.batch.item.redis.common.KeyValue;
+import com.redis.spring.batch.item.redis.common.Operation;
+import com.redis.spring.batch.item.redis.reader.KeyChanges;
+
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.api.async.RedisAsyncCommands;
+import io.lettuce.core.cluster.PipelinedRedisFuture;
+
+/**
+ * Writes key values that only stand for a metadata change with a single
+ * command: RENAME for renamed keys, and PEXPIREAT or PERSIST for TTL changes.
+ * Other items, including deleted keys, are written by the delegate in runs of
+ * consecutive items, so that all commands keep the order of the chunk. If the
+ * target does not hold the old key of a RENAME, or the key of a TTL change, the
+ * key is handed back to the reader's {@link KeyChanges} to be read in full.
+ */
+public class KeyValueMetadataWrite<K, V, T> extends CompositeOperation<K, V, T, Object> {
+
+	private static final String NO_SUCH_KEY_MESSAGE = "no such key";
+
+	private final KeyChanges<K> keyChanges;
+
+	public KeyValueMetadataWrite(Operation<K, V, T, Object> delegate) {
+		this(delegate, null);
+	}
+
+	/**
+	 * 
+	 * @param keyChanges changes of the reader to fall back to a full read of keys
+	 *                   missing on the target, or null to fail the chunk on renames
+	 *                   and ignore TTL changes
+	 */
+	public KeyValueMetadataWrite(Operation<K, V, T, Object> delegate, KeyChanges<K> keyChanges) {
+		super(delegate);
+		this.keyChanges = keyChanges;
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	@Override
+	public List<RedisFuture<Object>> execute(RedisAsyncCommands<K, V> commands, Iterable<? extends T> items) {
+		List<T> run = new ArrayList<>();
+		List<RedisFuture<Object>> futures = new ArrayList<>();
+		boolean metadata = false;
+		for (T item : items) {
+			KeyChange change = item instanceof KeyValue ? ((KeyValue<K, ?>) item).getChange() : null;
+			if (change == KeyChange.RENAME || change == KeyChange.TTL) {
+				metadata = true;
+				write(commands, run, futures);
+				futures.add((RedisFuture) metadata(commands, (KeyValue<K, ?>) item));
+			} else {
+				run.add(item);
+			}
+		}
+		if (!metadata) {
+			return delegate.execute(commands, items);
+		}
+		write(commands, run, futures);
+		return futures;
+	}
+
+	private void write(RedisAsyncCommands<K, V> commands, List<T> run, List<RedisFuture<Object>> futures) {
+		if (!run.isEmpty()) {
+			futures.addAll(delegate.execute(commands, run));
+			run.clear();
+		}
+	}
+
+	private RedisFuture<?> metadata(RedisAsyncCommands<K, V> commands, KeyValue<K, ?> keyValue) {
+		if (keyValue.getChange() == KeyChange.RENAME) {
+			return rename(commands, keyValue);
+		}
+		K key = keyValue.getKey();
+		if (KeyValue.hasTtl(keyValue)) {
+			// PEXPIREAT replies false only if the key does not exist
+			return ttl(key, commands.pexpireat(key, KeyValue.absoluteTTL(keyValue)));
+		}
+		// PERSIST also replies false for a key without TTL
+		RedisFuture<Boolean> persist = commands.persist(key);
+		RedisFuture<Long> exists = commands.exists(key);
+		return ttl(key, new PipelinedRedisFuture<>(persist.thenCombine(exists, (p, e) -> e > 0)));
+	}
+
+	private RedisFuture<Boolean> ttl(K key, RedisFuture<Boolean> future) {
+		if (keyChanges == null) {
+			return future;
+		}
+		return new PipelinedRedisFuture<>(future.thenApply(exists -> {
+			if (!Boolean.TRUE.equals(exists)) {
+				keyChanges.fallback(key);
+			}
+			return exists;
+		}));
+	}
+
+	private RedisFuture<String> rename(RedisAsyncCommands<K, V> commands, KeyValue<K, ?> keyValue) {
+		RedisFuture<String> future = commands.rename(keyValue.getRenamedFrom(), keyValue.getKey());
+		if (keyChanges == null) {
+			return future;
+		}
+		CompletionStage<String> stage = future.handle((result, error) -> {
+			if (error == null) {
+				return CompletableFuture.completedFuture(result);
+			}
+			if (!isNoSuchKey(error)) {
+				return CompletableFuture.<String>failedFuture(error);
+			}
+			keyChanges.fallback(keyValue.getKey());
+			return CompletableFuture.<String>completedFuture(null);
+		}).thenCompose(Function.identity());
+		return new PipelinedRedisFuture<>(stage);
+	}
+
+	private static boolean isNoSuchKey(Throwable error) {
+		Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+		return cause.getMessage() != null && cause.getMessage().contains(NO_SUCH_KEY_MESSAGE);
+	}
+
+}
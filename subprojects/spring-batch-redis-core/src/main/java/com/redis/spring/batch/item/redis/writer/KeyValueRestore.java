@@ -1,13 +1,317 @@
 package com.redis.spring.batch.item.redis.writer;
 
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+import org.springframework.util.Assert;
+
+import com.redis.spring.batch.item.redis.common.BatchUtils;
+import com.redis.spring.batch.item.redis.common.InitializingOperation;
 import com.redis.spring.batch.item.redis.common.KeyValue;
+import com.redis.spring.batch.item.redis.common.RdbParser;
+import com.redis.spring.batch.item.redis.reader.KeyValueRead;
+import com.redis.spring.batch.item.redis.writer.KeyValueWrite.WriteMode;
 import com.redis.spring.batch.item.redis.writer.operation.Restore;
 
-public class KeyValueRestore<K, V> extends Restore<K, V, KeyValue<K, byte[]>> {
+import io.lettuce.core.AbstractRedisClient;
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.RedisURI;
+import io.lettuce.core.ScoredValue;
+import io.lettuce.core.api.async.RedisAsyncCommands;
+import io.lettuce.core.codec.RedisCodec;
+import io.lettuce.core.internal.Exceptions;
+
+public class KeyValueRestore<K, V> extends Restore<K, V, KeyValue<K, byte[]>>
+		implements InitializingOperation<K, V, KeyValue<K, byte[]>, Object> {
+
+	public static final Duration DEFAULT_TIMEOUT = RedisURI.DEFAULT_TIMEOUT_DURATION;
+	public static final Duration DEFAULT_TTL_TOLERANCE = Duration.ofSeconds(1);
+
+	private static final int CHECKSUM_LENGTH = 8;
+	private static final String PAYLOAD_REJECTED_MESSAGE = "payload version or checksum are wrong";
+
+	private final RedisCodec<K, V> codec;
+
+	private AbstractRedisClient client;
+	private boolean skipUnchanged;
+	private Duration timeout = DEFAULT_TIMEOUT;
+	private Duration ttlTolerance = DEFAULT_TTL_TOLERANCE;
+	private boolean transcode;
+	private KeyValueRead<K, V, byte[]> digestRead;
+	private KeyValueWrite<K, V> write;
+	private volatile boolean compatible;
+	private volatile boolean incompatible;
 
 	public KeyValueRestore() {
+		this(null);
+	}
+
+	public KeyValueRestore(RedisCodec<K, V> codec) {
 		super(KeyValue::getKey, KeyValue::getValue);
-		setTtlFunction(KeyValue::absoluteTTL);
+		this.codec = codec;
+		setTtlFunction(KeyValueRestore::ttl);
+	}
+
+	/**
+	 * Keys that no longer exist are deleted on the target, otherwise RESTORE uses
+	 * the absolute expiration time.
+	 */
+	private static long ttl(KeyValue<?, ?> keyValue) {
+		if (keyValue.getTtl() == KeyValue.TTL_NO_KEY) {
+			return KeyValue.TTL_NO_KEY;
+		}
+		return KeyValue.absoluteTTL(keyValue);
+	}
+
+	@Override
+	public void setClient(AbstractRedisClient client) {
+		this.client = client;
+	}
+
+	@Override
+	public void afterPropertiesSet() throws Exception {
+		if (transcode) {
+			Assert.notNull(codec, "Codec required to transcode payloads");
+			write = KeyValueWrite.create(WriteMode.OVERWRITE);
+		}
+		if (skipUnchanged) {
+			Assert.notNull(codec, "Codec required to skip unchanged keys");
+			digestRead = KeyValueRead.digest(codec);
+			digestRead.setMemUsageLimit(KeyValueRead.MEM_USAGE_OFF);
+			digestRead.setClient(client);
+			digestRead.afterPropertiesSet();
+		}
+	}
+
+	/**
+	 * When skipUnchanged is enabled, first reads the CRC64 checksum of each key on
+	 * the target and only restores keys whose checksum differs from the one in the
+	 * source payload. Keys with identical payloads only get their TTL adjusted if
+	 * needed.
+	 */
+	@Override
+	public List<RedisFuture<Object>> execute(RedisAsyncCommands<K, V> commands,
+			Iterable<? extends KeyValue<K, byte[]>> items) {
+		if (digestRead == null) {
+			return restore(commands, items);
+		}
+		List<KeyValue<K, byte[]>> sources = new ArrayList<>();
+		items.forEach(sources::add);
+		List<K> keys = sources.stream().map(KeyValue::getKey).collect(Collectors.toList());
+		List<RedisFuture<KeyValue<K, byte[]>>> digestFutures = digestRead.execute(commands, keys);
+		commands.flushCommands();
+		List<KeyValue<K, byte[]>> targets = BatchUtils.await(timeout, digestFutures);
+		List<KeyValue<K, byte[]>> toRestore = new ArrayList<>();
+		List<RedisFuture<Object>> futures = new ArrayList<>();
+		for (int index = 0; index < sources.size(); index++) {
+			KeyValue<K, byte[]> source = sources.get(index);
+			KeyValue<K, byte[]> target = targets.get(index);
+			if (unchanged(source, target)) {
+				Expiration.update(commands, source, target, ttlTolerance, futures);
+			} else {
+				toRestore.add(source);
+			}
+		}
+		futures.addAll(restore(commands, toRestore));
+		return futures;
+	}
+
+	/**
+	 * Until the target has accepted or rejected a payload, RESTORE replies are
+	 * awaited on the calling thread. Payloads rejected because they were produced
+	 * by a newer RDB version are then parsed and written with regular commands,
+	 * and all subsequent payloads are transcoded without trying RESTORE first.
+	 * Once a RESTORE succeeds, payloads are restored without waiting.
+	 */
+	private List<RedisFuture<Object>> restore(RedisAsyncCommands<K, V> commands,
+			Iterable<? extends KeyValue<K, byte[]>> items) {
+		if (!transcode || compatible) {
+			return super.execute(commands, items);
+		}
+		if (incompatible) {
+			return transcode(commands, items);
+		}
+		List<KeyValue<K, byte[]>> restored = new ArrayList<>();
+		List<RedisFuture<Object>> restoreFutures = new ArrayList<>();
+		for (KeyValue<K, byte[]> item : items) {
+			for (RedisFuture<Object> future : super.execute(commands, Collections.singletonList(item))) {
+				restored.add(item);
+				restoreFutures.add(future);
+			}
+		}
+		commands.flushCommands();
+		List<RedisFuture<Object>> futures = new ArrayList<>();
+		List<KeyValue<K, Object>> rejected = new ArrayList<>();
+		for (int index = 0; index < restored.size(); index++) {
+			KeyValue<K, byte[]> item = restored.get(index);
+			RedisFuture<Object> future = restoreFutures.get(index);
+			if (isRejected(item, future)) {
+				incompatible = true;
+				rejected.add(struct(item));
+			} else {
+				futures.add(future);
+			}
+		}
+		futures.addAll(write.execute(commands, rejected));
+		return futures;
+	}
+
+	private List<RedisFuture<Object>> transcode(RedisAsyncCommands<K, V> commands,
+			Iterable<? extends KeyValue<K, byte[]>> items) {
+		List<RedisFuture<Object>> futures = new ArrayList<>();
+		List<KeyValue<K, Object>> structs = new ArrayList<>();
+		List<KeyValue<K, byte[]>> deletes = new ArrayList<>();
+		for (KeyValue<K, byte[]> item : items) {
+			if (KeyValue.exists(item) && KeyValue.hasValue(item)) {
+				structs.add(struct(item));
+			} else {
+				deletes.add(item);
+			}
+		}
+		if (!deletes.isEmpty()) {
+			futures.addAll(super.execute(commands, deletes));
+		}
+		futures.addAll(write.execute(commands, structs));
+		return futures;
+	}
+
+	/**
+	 *
+	 * @return true if the given RESTORE was rejected because of its payload
+	 *         version. A successful RESTORE marks the target as compatible.
+	 */
+	private boolean isRejected(KeyValue<K, byte[]> item, RedisFuture<Object> future) {
+		if (future == null) {
+			return false;
+		}
+		try {
+			future.get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+			if (KeyValue.exists(item) && KeyValue.hasValue(item)) {
+				compatible = true;
+			}
+			return false;
+		} catch (ExecutionException e) {
+			return isPayloadRejected(e.getCause()) && KeyValue.hasValue(item);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw Exceptions.bubble(e);
+		} catch (TimeoutException e) {
+			throw Exceptions.bubble(e);
+		}
+	}
+
+	private static boolean isPayloadRejected(Throwable error) {
+		return error != null && error.getMessage() != null && error.getMessage().contains(PAYLOAD_REJECTED_MESSAGE);
+	}
+
+	private KeyValue<K, Object> struct(KeyValue<K, byte[]> item) {
+		KeyValue<byte[], Object> parsed = RdbParser.parse(item.getValue());
+		KeyValue<K, Object> struct = new KeyValue<>();
+		struct.setKey(item.getKey());
+		struct.setTime(item.getTime());
+		struct.setTtl(item.getTtl());
+		struct.setType(parsed.getType());
+		struct.setValue(decode(parsed.getValue()));
+		return struct;
+	}
+
+	@SuppressWarnings("unchecked")
+	private Object decode(Object value) {
+		if (value instanceof byte[]) {
+			return decodeValue((byte[]) value);
+		}
+		if (value instanceof Map) {
+			Map<K, V> map = new LinkedHashMap<>();
+			((Map<byte[], byte[]>) value)
+					.forEach((k, v) -> map.put(codec.decodeKey(ByteBuffer.wrap(k)), decodeValue(v)));
+			return map;
+		}
+		List<Object> list = new ArrayList<>();
+		for (Object element : (List<Object>) value) {
+			if (element instanceof ScoredValue) {
+				ScoredValue<byte[]> scoredValue = (ScoredValue<byte[]>) element;
+				list.add(ScoredValue.just(scoredValue.getScore(), decodeValue(scoredValue.getValue())));
+			} else {
+				list.add(decodeValue((byte[]) element));
+			}
+		}
+		return list;
+	}
+
+	private V decodeValue(byte[] bytes) {
+		return codec.decodeValue(ByteBuffer.wrap(bytes));
+	}
+
+	private boolean unchanged(KeyValue<K, byte[]> source, KeyValue<K, byte[]> target) {
+		byte[] payload = source.getValue();
+		if (!KeyValue.exists(source) || payload == null || payload.length < CHECKSUM_LENGTH
+				|| !KeyValue.exists(target) || !KeyValue.hasValue(target)) {
+			return false;
+		}
+		ByteBuffer checksum = ByteBuffer.wrap(payload, payload.length - CHECKSUM_LENGTH, CHECKSUM_LENGTH);
+		return checksum.equals(checksum(target));
+	}
+
+	@SuppressWarnings("unchecked")
+	private ByteBuffer checksum(KeyValue<K, byte[]> target) {
+		Object value = target.getValue();
+		if (value instanceof byte[]) {
+			return ByteBuffer.wrap((byte[]) value);
+		}
+		return codec.encodeValue((V) value);
+	}
+
+	public boolean isSkipUnchanged() {
+		return skipUnchanged;
+	}
+
+	/**
+	 *
+	 * @param skipUnchanged if true, keys whose DUMP checksum on the target matches
+	 *                      the source payload are not restored
+	 */
+	public void setSkipUnchanged(boolean skipUnchanged) {
+		this.skipUnchanged = skipUnchanged;
+	}
+
+	public boolean isTranscode() {
+		return transcode;
+	}
+
+	/**
+	 *
+	 * @param transcode if true, payloads rejected by the target because of their
+	 *                  RDB version are parsed and written with regular commands.
+	 *                  Replies are awaited until the first RESTORE is accepted or
+	 *                  rejected, so this cannot be combined with MULTI/EXEC.
+	 */
+	public void setTranscode(boolean transcode) {
+		this.transcode = transcode;
+	}
+
+	public Duration getTimeout() {
+		return timeout;
+	}
+
+	public void setTimeout(Duration timeout) {
+		this.timeout = timeout;
+	}
+
+	public Duration getTtlTolerance() {
+		return ttlTolerance;
+	}
+
+	public void setTtlTolerance(Duration tolerance) {
+		this.ttlTolerance = tolerance;
 	}
 
 }
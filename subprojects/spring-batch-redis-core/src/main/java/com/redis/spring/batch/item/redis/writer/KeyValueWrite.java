@@ -1,14 +1,13 @@
 package com.redis.spring.batch.item.redis.writer;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
-import java.util.stream.StreamSupport;
+import java.util.concurrent.atomic.AtomicReference;
 
 import com.redis.lettucemod.timeseries.AddOptions;
 import com.redis.lettucemod.timeseries.DuplicatePolicy;
+import com.redis.spring.batch.item.redis.common.BinaryKey;
 import com.redis.spring.batch.item.redis.common.DataType;
 import com.redis.spring.batch.item.redis.common.KeyValue;
 import com.redis.spring.batch.item.redis.common.Operation;
@@ -16,6 +15,7 @@ import com.redis.spring.batch.item.redis.writer.operation.Del;
 import com.redis.spring.batch.item.redis.writer.operation.ExpireAt;
 import com.redis.spring.batch.item.redis.writer.operation.Hset;
 import com.redis.spring.batch.item.redis.writer.operation.JsonSet;
+import com.redis.spring.batch.item.redis.writer.operation.Mset;
 import com.redis.spring.batch.item.redis.writer.operation.Noop;
 import com.redis.spring.batch.item.redis.writer.operation.Rpush;
 import com.redis.spring.batch.item.redis.writer.operation.Sadd;
@@ -25,6 +25,7 @@ import com.redis.spring.batch.item.redis.writer.operation.Xadd;
 import com.redis.spring.batch.item.redis.writer.operation.Zadd;
 
 import io.lettuce.core.RedisFuture;
+import io.lettuce.core.SetArgs;
 import io.lettuce.core.api.async.RedisAsyncCommands;
 
 public class KeyValueWrite<K, V> implements Operation<K, V, KeyValue<K, Object>, Object> {
@@ -34,11 +35,13 @@ public class KeyValueWrite<K, V> implements Operation<K, V, KeyValue<K, Object>,
 	}
 
 	private enum OperationType {
-		HSET, JSON_SET, RPUSH, SADD, XADD, SET, TS_ADD, ZADD, NONE
+		HSET, JSON_SET, RPUSH, SADD, XADD, SET, TS_ADD, ZADD, SET_PXAT, MSET, NONE
 	}
 
 	public static final WriteMode DEFAULT_MODE = WriteMode.OVERWRITE;
 
+	private static final OperationType[] OPERATION_TYPES = operationTypes();
+
 	private final Noop<K, V, KeyValue<K, Object>> noop = new Noop<>();
 	private final Del<K, V, KeyValue<K, Object>> delete = delete();
 	private final ExpireAt<K, V, KeyValue<K, Object>> expire = expire();
@@ -50,19 +53,93 @@ public class KeyValueWrite<K, V> implements Operation<K, V, KeyValue<K, Object>,
 	private final Set<K, V, KeyValue<K, Object>> set = set();
 	private final TsAdd<K, V, KeyValue<K, Object>> tsAdd = tsAdd();
 	private final Zadd<K, V, KeyValue<K, Object>> zadd = zadd();
+	private final Set<K, V, KeyValue<K, Object>> setPxAt = setPxAt();
+	private final Mset<K, V, KeyValue<K, Object>> mset = mset();
 
-	private WriteMode mode = DEFAULT_MODE;
+	private final Operation<K, V, KeyValue<K, Object>, Object>[] operations = operations();
+	// Buffers of the last call, taken by the next one. Concurrent calls allocate
+	// their own.
+	private final AtomicReference<Buffers<K>> buffers = new AtomicReference<>();
 
+	private WriteMode mode = DEFAULT_MODE;
+	private boolean fusion;
+
+	/**
+	 * Dispatches items in segments in which each key appears at most once. Within
+	 * a segment commands are queued in DEL, write, PEXPIREAT order so that each
+	 * key is deleted before it is written and written before its expiration is
+	 * set. A key that appears again starts a new segment, so its writes are
+	 * queued in chunk order, e.g. a fused SET PXAT is never followed by the MSET
+	 * of an earlier item for the same key.
+	 * <p>
+	 * Items are dispatched to buffers that are reused across calls, and keys are
+	 * looked up in place in an open-addressing table of segment positions, so
+	 * nothing is allocated per item or, in steady state, per chunk.
+	 */
 	@Override
 	public List<RedisFuture<Object>> execute(RedisAsyncCommands<K, V> commands,
 			Iterable<? extends KeyValue<K, Object>> items) {
+		Buffers<K> buffer = buffers.getAndSet(null);
+		if (buffer == null) {
+			buffer = new Buffers<>();
+		}
 		List<RedisFuture<Object>> futures = new ArrayList<>();
-		futures.addAll(delete.execute(commands, toDelete(items)));
-		groupByOperation(items).forEach((k, v) -> futures.addAll(operation(k).execute(commands, v)));
-		futures.addAll(expire.execute(commands, toExpire(items)));
+		try {
+			for (KeyValue<K, Object> item : items) {
+				if (!buffer.add(item)) {
+					execute(commands, buffer, futures);
+					buffer.add(item);
+				}
+			}
+			execute(commands, buffer, futures);
+		} finally {
+			buffer.clear();
+			buffers.set(buffer);
+		}
 		return futures;
 	}
 
+	private void execute(RedisAsyncCommands<K, V> commands, Buffers<K> buffer, List<RedisFuture<Object>> futures) {
+		buffer.clearOperations();
+		for (KeyValue<K, Object> item : buffer.segment) {
+			boolean exists = KeyValue.exists(item);
+			OperationType type = exists ? operationType(item) : OperationType.NONE;
+			boolean fused = type == OperationType.SET_PXAT || type == OperationType.MSET;
+			if (!fused && (mode == WriteMode.OVERWRITE || !exists)) {
+				buffer.toDelete.add(item);
+			}
+			if (type != OperationType.NONE) {
+				buffer.toWrite.get(type.ordinal()).add(item);
+			}
+			if (!fused && KeyValue.hasTtl(item)) {
+				buffer.toExpire.add(item);
+			}
+		}
+		if (!buffer.toDelete.isEmpty()) {
+			futures.addAll(delete.execute(commands, buffer.toDelete));
+		}
+		for (int index = 0; index < operations.length; index++) {
+			List<KeyValue<K, Object>> toWrite = buffer.toWrite.get(index);
+			if (!toWrite.isEmpty()) {
+				futures.addAll(operations[index].execute(commands, toWrite));
+			}
+		}
+		if (!buffer.toExpire.isEmpty()) {
+			futures.addAll(expire.execute(commands, buffer.toExpire));
+		}
+		buffer.clear();
+	}
+
+	private Set<K, V, KeyValue<K, Object>> setPxAt() {
+		Set<K, V, KeyValue<K, Object>> operation = new Set<>(KeyValue::getKey, KeyValueWrite::value);
+		operation.setArgsFunction(t -> new SetArgs().pxAt(KeyValue.absoluteTTL(t)));
+		return operation;
+	}
+
+	private Mset<K, V, KeyValue<K, Object>> mset() {
+		return new Mset<>(KeyValue::getKey, KeyValueWrite::value);
+	}
+
 	private Zadd<K, V, KeyValue<K, Object>> zadd() {
 		return new Zadd<>(KeyValue::getKey, KeyValueWrite::value);
 	}
@@ -107,80 +184,84 @@ public class KeyValueWrite<K, V> implements Operation<K, V, KeyValue<K, Object>,
 		return new Hset<>(KeyValue::getKey, KeyValueWrite::value);
 	}
 
-	private List<KeyValue<K, Object>> toExpire(Iterable<? extends KeyValue<K, Object>> items) {
-		return stream(items).filter(KeyValue::hasTtl).collect(Collectors.toList());
-	}
-
-	private List<KeyValue<K, Object>> toDelete(Iterable<? extends KeyValue<K, Object>> items) {
-		return stream(items).filter(this::shouldDelete).collect(Collectors.toList());
-	}
-
-	private Map<OperationType, List<KeyValue<K, Object>>> groupByOperation(
-			Iterable<? extends KeyValue<K, Object>> items) {
-		return stream(items).filter(KeyValue::exists).collect(Collectors.groupingBy(this::operationType));
-	}
-
-	private Stream<? extends KeyValue<K, Object>> stream(Iterable<? extends KeyValue<K, Object>> items) {
-		return StreamSupport.stream(items.spliterator(), false);
+	private static OperationType[] operationTypes() {
+		OperationType[] types = new OperationType[DataType.values().length];
+		Arrays.fill(types, OperationType.NONE);
+		types[DataType.HASH.ordinal()] = OperationType.HSET;
+		types[DataType.JSON.ordinal()] = OperationType.JSON_SET;
+		types[DataType.LIST.ordinal()] = OperationType.RPUSH;
+		types[DataType.SET.ordinal()] = OperationType.SADD;
+		types[DataType.STREAM.ordinal()] = OperationType.XADD;
+		types[DataType.STRING.ordinal()] = OperationType.SET;
+		types[DataType.TIMESERIES.ordinal()] = OperationType.TS_ADD;
+		types[DataType.ZSET.ordinal()] = OperationType.ZADD;
+		return types;
 	}
 
+	@SuppressWarnings("unchecked")
+	private Operation<K, V, KeyValue<K, Object>, Object>[] operations() {
+		Operation<K, V, KeyValue<K, Object>, Object>[] array = new Operation[OperationType.values().length];
+		array[OperationType.HSET.ordinal()] = hset;
+		array[OperationType.JSON_SET.ordinal()] = jsonSet;
+		array[OperationType.RPUSH.ordinal()] = rpush;
+		array[OperationType.SADD.ordinal()] = sadd;
+		array[OperationType.XADD.ordinal()] = xadd;
+		array[OperationType.SET.ordinal()] = set;
+		array[OperationType.TS_ADD.ordinal()] = tsAdd;
+		array[OperationType.ZADD.ordinal()] = zadd;
+		array[OperationType.SET_PXAT.ordinal()] = setPxAt;
+		array[OperationType.MSET.ordinal()] = mset;
+		array[OperationType.NONE.ordinal()] = noop;
+		return array;
+	}
+
+	/**
+	 * 
+	 * @return operation to write the given existing item with. With fusion
+	 *         enabled, strings are written with a single SET PXAT or MSET command:
+	 *         SET replaces any existing value so no DEL is needed, and the
+	 *         expiration is part of the SET command.
+	 */
 	private OperationType operationType(KeyValue<K, Object> item) {
 		DataType type = KeyValue.type(item);
 		if (type == null) {
 			return OperationType.NONE;
 		}
-		switch (type) {
-		case HASH:
-			return OperationType.HSET;
-		case JSON:
-			return OperationType.JSON_SET;
-		case LIST:
-			return OperationType.RPUSH;
-		case SET:
-			return OperationType.SADD;
-		case STREAM:
-			return OperationType.XADD;
-		case STRING:
-			return OperationType.SET;
-		case TIMESERIES:
-			return OperationType.TS_ADD;
-		case ZSET:
-			return OperationType.ZADD;
-		default:
-			return OperationType.NONE;
+		if (fusion && type == DataType.STRING) {
+			return KeyValue.hasTtl(item) ? OperationType.SET_PXAT : OperationType.MSET;
 		}
+		return OPERATION_TYPES[type.ordinal()];
 	}
 
-	private Operation<K, V, KeyValue<K, Object>, Object> operation(OperationType operationType) {
-		switch (operationType) {
-		case HSET:
-			return hset;
-		case JSON_SET:
-			return jsonSet;
-		case RPUSH:
-			return rpush;
-		case SADD:
-			return sadd;
-		case XADD:
-			return xadd;
-		case SET:
-			return set;
-		case TS_ADD:
-			return tsAdd;
-		case ZADD:
-			return zadd;
-		default:
-			return noop;
-		}
+	@SuppressWarnings("unchecked")
+	private static <K, O> O value(KeyValue<K, Object> struct) {
+		return (O) struct.getValue();
 	}
 
-	private boolean shouldDelete(KeyValue<K, Object> item) {
-		return mode == WriteMode.OVERWRITE || !KeyValue.exists(item);
+	/**
+	 * 
+	 * @param batchSize max number of fields or members per HSET, SADD, ZADD or
+	 *                  RPUSH command. 0 means no limit.
+	 */
+	public void setBatchSize(int batchSize) {
+		hset.setBatchSize(batchSize);
+		rpush.setBatchSize(batchSize);
+		sadd.setBatchSize(batchSize);
+		zadd.setBatchSize(batchSize);
 	}
 
-	@SuppressWarnings("unchecked")
-	private static <K, O> O value(KeyValue<K, Object> struct) {
-		return (O) struct.getValue();
+	public boolean isFusion() {
+		return fusion;
+	}
+
+	/**
+	 * 
+	 * @param fusion if true, strings are written without a preceding DEL, with
+	 *               SET PXAT when they have a TTL and with a single MSET
+	 *               otherwise. Requires Redis 6.2 or later.
+	 */
+	public void setFusion(boolean fusion) {
+		this.fusion = fusion;
 	}
 
 	public void setMode(WriteMode mode) {
@@ -231,10 +312,95 @@ public class KeyValueWrite<K, V> implements Operation<K, V, KeyValue<K, Object>,
 		return zadd;
 	}
 
+	public Set<K, V, KeyValue<K, Object>> getSetPxAt() {
+		return setPxAt;
+	}
+
+	public Mset<K, V, KeyValue<K, Object>> getMset() {
+		return mset;
+	}
+
 	public WriteMode getMode() {
 		return mode;
 	}
 
+	private static class Buffers<K> {
+
+		private final List<KeyValue<K, Object>> segment = new ArrayList<>();
+		private final List<KeyValue<K, Object>> toDelete = new ArrayList<>();
+		private final List<KeyValue<K, Object>> toExpire = new ArrayList<>();
+		private final List<List<KeyValue<K, Object>>> toWrite = new ArrayList<>();
+		// Segment position + 1 of each key, 0 for a free slot
+		private int[] table = new int[64];
+		// Table slot of each segment position, to clear only the used slots
+		private int[] slots = new int[32];
+
+		private Buffers() {
+			for (int index = 0; index < OperationType.values().length; index++) {
+				toWrite.add(new ArrayList<>());
+			}
+		}
+
+		/**
+		 * 
+		 * @return false if the key of the item is already in the segment, in which
+		 *         case the item is not added
+		 */
+		private boolean add(KeyValue<K, Object> item) {
+			int position = segment.size();
+			if (2 * (position + 1) > table.length) {
+				resize();
+			}
+			int slot = find(item.getKey());
+			if (table[slot] != 0) {
+				return false;
+			}
+			table[slot] = position + 1;
+			slots[position] = slot;
+			segment.add(item);
+			return true;
+		}
+
+		/**
+		 * 
+		 * @return slot of the given key, or free slot where it belongs
+		 */
+		private int find(Object key) {
+			int mask = table.length - 1;
+			int hash = BinaryKey.hash(key);
+			int slot = (hash ^ (hash >>> 16)) & mask;
+			while (table[slot] != 0 && !BinaryKey.equal(segment.get(table[slot] - 1).getKey(), key)) {
+				slot = (slot + 1) & mask;
+			}
+			return slot;
+		}
+
+		private void resize() {
+			table = new int[table.length * 2];
+			slots = Arrays.copyOf(slots, table.length / 2);
+			for (int position = 0; position < segment.size(); position++) {
+				int slot = find(segment.get(position).getKey());
+				table[slot] = position + 1;
+				slots[position] = slot;
+			}
+		}
+
+		private void clear() {
+			for (int position = 0; position < segment.size(); position++) {
+				table[slots[position]] = 0;
+			}
+			segment.clear();
+			clearOperations();
+		}
+
+		private void clearOperations() {
+			toDelete.clear();
+			toExpire.clear();
+			toWrite.forEach(List::clear);
+		}
+
+	}
+
 	public static <K, V> KeyValueWrite<K, V> create(WriteMode mode) {
 		KeyValueWrite<K, V> operation = new KeyValueWrite<>();
 		operation.setMode(mode);
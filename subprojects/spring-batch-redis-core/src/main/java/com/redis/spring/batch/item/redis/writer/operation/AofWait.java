@@ -0,0 +1,64 @@
+package com.redis.spring.batch.item.redis.writer.operation;
+
+import java.nio.charset.StandardCharsets;
+import java.text.MessageFormat;
+import java.time.Duration;
+import java.util.List;
+
+import com.redis.spring.batch.item.redis.common.Operation;
+
+import io.lettuce.core.RedisCommandExecutionException;
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.api.async.RedisAsyncCommands;
+import io.lettuce.core.cluster.PipelinedRedisFuture;
+import io.lettuce.core.codec.RedisCodec;
+import io.lettuce.core.output.IntegerListOutput;
+import io.lettuce.core.protocol.CommandArgs;
+import io.lettuce.core.protocol.ProtocolKeyword;
+
+/**
+ * Variant of {@link ReplicaWait} that issues WAITAOF (Redis 7.2+) to wait for
+ * writes to be fsynced to the AOF of the local server and/or replicas.
+ */
+public class AofWait<K, V, T> extends ReplicaWait<K, V, T> {
+
+	private enum AofCommand implements ProtocolKeyword {
+
+		WAITAOF;
+
+		private final byte[] bytes = name().getBytes(StandardCharsets.US_ASCII);
+
+		@Override
+		public byte[] getBytes() {
+			return bytes;
+		}
+
+	}
+
+	private final RedisCodec<K, V> codec;
+	private final int local;
+
+	public AofWait(RedisCodec<K, V> codec, Operation<K, V, T, Object> delegate, int local, int replicas,
+			Duration timeout) {
+		super(delegate, replicas, timeout);
+		this.codec = codec;
+		this.local = local;
+	}
+
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	@Override
+	protected RedisFuture<Object> waitCommand(RedisAsyncCommands<K, V> commands) {
+		CommandArgs<K, V> args = new CommandArgs<>(codec).add(local).add(replicas).add(timeout);
+		RedisFuture<List<Long>> future = commands.dispatch(AofCommand.WAITAOF, new IntegerListOutput<>(codec), args);
+		return (RedisFuture) new PipelinedRedisFuture<>(future.thenAccept(this::checkAof));
+	}
+
+	private void checkAof(List<Long> counts) {
+		if (counts == null || counts.size() < 2 || counts.get(0) < local || counts.get(1) < replicas) {
+			throw new RedisCommandExecutionException(
+					MessageFormat.format("Insufficient AOF durability ({0}, required [{1}, {2}])", counts, local,
+							replicas));
+		}
+	}
+
+}
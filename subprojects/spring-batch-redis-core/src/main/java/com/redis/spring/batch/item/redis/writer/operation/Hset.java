@@ -1,12 +1,14 @@
 package com.redis.spring.batch.item.redis.writer.operation;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.function.Function;
 
 import org.springframework.util.CollectionUtils;
 
-import com.redis.spring.batch.item.redis.common.BatchUtils;
 import com.redis.spring.batch.item.redis.writer.AbstractValueWriteOperation;
 
 import io.lettuce.core.RedisFuture;
@@ -20,15 +22,29 @@ public class Hset<K, V, T> extends AbstractValueWriteOperation<K, V, Map<K, V>,
 
 	@Override
 	public List<RedisFuture<Object>> execute(RedisAsyncCommands<K, V> commands, Iterable<? extends T> items) {
-		return BatchUtils.executeAll(commands, items, this::execute);
+		List<RedisFuture<Object>> futures = new ArrayList<>();
+		for (T item : items) {
+			execute(commands, item, futures);
+		}
+		return futures;
 	}
 
-	private RedisFuture<Long> execute(RedisAsyncCommands<K, V> commands, T item) {
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private void execute(RedisAsyncCommands<K, V> commands, T item, List<RedisFuture<Object>> futures) {
 		Map<K, V> value = value(item);
 		if (CollectionUtils.isEmpty(value)) {
-			return null;
+			return;
+		}
+		K key = key(item);
+		if (getBatchSize() <= 0 || value.size() <= getBatchSize()) {
+			futures.add((RedisFuture) commands.hset(key, value));
+			return;
+		}
+		for (List<Entry<K, V>> batch : batches(value.entrySet())) {
+			Map<K, V> fields = new LinkedHashMap<>();
+			batch.forEach(e -> fields.put(e.getKey(), e.getValue()));
+			futures.add((RedisFuture) commands.hset(key, fields));
 		}
-		return commands.hset(key(item), value);
 	}
 
 }
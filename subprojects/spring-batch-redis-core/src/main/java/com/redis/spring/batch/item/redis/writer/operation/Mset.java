@@ -0,0 +1,37 @@
+package com.redis.spring.batch.item.redis.writer.operation;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import com.redis.spring.batch.item.redis.writer.AbstractValueWriteOperation;
+
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.api.async.RedisAsyncCommands;
+
+/**
+ * Writes all items with a single MSET command. With a cluster connection the
+ * command is split by slot.
+ */
+public class Mset<K, V, T> extends AbstractValueWriteOperation<K, V, V, T> {
+
+	public Mset(Function<T, K> keyFunction, Function<T, V> valueFunction) {
+		super(keyFunction, valueFunction);
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	@Override
+	public List<RedisFuture<Object>> execute(RedisAsyncCommands<K, V> commands, Iterable<? extends T> items) {
+		Map<K, V> map = new LinkedHashMap<>();
+		for (T item : items) {
+			map.put(key(item), value(item));
+		}
+		if (map.isEmpty()) {
+			return Collections.emptyList();
+		}
+		return Collections.singletonList((RedisFuture) commands.mset(map));
+	}
+
+}
@@ -11,13 +11,30 @@ import io.lettuce.core.api.async.RedisAsyncCommands;
 
 public class MultiExec<K, V, T> extends CompositeOperation<K, V, T, Object> {
 
+	public static final int DEFAULT_BATCH_SIZE = 0;
+
+	private int batchSize = DEFAULT_BATCH_SIZE;
+
 	public MultiExec(Operation<K, V, T, Object> delegate) {
 		super(delegate);
 	}
 
-	@SuppressWarnings({ "unchecked", "rawtypes" })
 	@Override
 	public List<RedisFuture<Object>> execute(RedisAsyncCommands<K, V> commands, Iterable<? extends T> items) {
+		if (batchSize <= 0) {
+			return transaction(commands, items);
+		}
+		List<T> list = new ArrayList<>();
+		items.forEach(list::add);
+		List<RedisFuture<Object>> futures = new ArrayList<>();
+		for (int index = 0; index < list.size(); index += batchSize) {
+			futures.addAll(transaction(commands, list.subList(index, Math.min(index + batchSize, list.size()))));
+		}
+		return futures;
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private List<RedisFuture<Object>> transaction(RedisAsyncCommands<K, V> commands, Iterable<? extends T> items) {
 		List<RedisFuture<Object>> futures = new ArrayList<>();
 		futures.add((RedisFuture) commands.multi());
 		futures.addAll(delegate.execute(commands, items));
@@ -25,4 +42,17 @@ public class MultiExec<K, V, T> extends CompositeOperation<K, V, T, Object> {
 		return futures;
 	}
 
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	/**
+	 * 
+	 * @param batchSize max number of items per MULTI/EXEC transaction. 0 means
+	 *                  all items are written in a single transaction.
+	 */
+	public void setBatchSize(int batchSize) {
+		this.batchSize = batchSize;
+	}
+
 }
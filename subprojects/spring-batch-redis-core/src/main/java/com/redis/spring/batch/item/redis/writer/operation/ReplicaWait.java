@@ -13,10 +13,14 @@ import io.lettuce.core.RedisFuture;
 import io.lettuce.core.api.async.RedisAsyncCommands;
 import io.lettuce.core.cluster.PipelinedRedisFuture;
 
+/**
+ * Appends a WAIT command to the delegate's commands. WAIT only covers the
+ * writes sent on the same connection.
+ */
 public class ReplicaWait<K, V, T> extends CompositeOperation<K, V, T, Object> {
 
-	private final int replicas;
-	private final long timeout;
+	protected final int replicas;
+	protected final long timeout;
 
 	public ReplicaWait(Operation<K, V, T, Object> delegate, int replicas, Duration timeout) {
 		super(delegate);
@@ -24,16 +28,20 @@ public class ReplicaWait<K, V, T> extends CompositeOperation<K, V, T, Object> {
 		this.timeout = timeout.toMillis();
 	}
 
-	@SuppressWarnings({ "rawtypes", "unchecked" })
 	@Override
 	public List<RedisFuture<Object>> execute(RedisAsyncCommands<K, V> commands, Iterable<? extends T> items) {
 		List<RedisFuture<Object>> futures = new ArrayList<>();
 		futures.addAll(delegate.execute(commands, items));
-		RedisFuture<Long> waitFuture = commands.waitForReplication(replicas, timeout);
-		futures.add((RedisFuture) new PipelinedRedisFuture<>(waitFuture.thenAccept(this::checkReplicas)));
+		futures.add(waitCommand(commands));
 		return futures;
 	}
 
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	protected RedisFuture<Object> waitCommand(RedisAsyncCommands<K, V> commands) {
+		RedisFuture<Long> waitFuture = commands.waitForReplication(replicas, timeout);
+		return (RedisFuture) new PipelinedRedisFuture<>(waitFuture.thenAccept(this::checkReplicas));
+	}
+
 	private void checkReplicas(Long actual) {
 		if (actual == null || actual < replicas) {
 			throw new RedisCommandExecutionException(errorMessage(actual));
@@ -1,12 +1,12 @@
 package com.redis.spring.batch.item.redis.writer.operation;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.function.Function;
 
 import org.springframework.util.CollectionUtils;
 
-import com.redis.spring.batch.item.redis.common.BatchUtils;
 import com.redis.spring.batch.item.redis.writer.AbstractValueWriteOperation;
 
 import io.lettuce.core.RedisFuture;
@@ -32,19 +32,25 @@ public class Zadd<K, V, T> extends AbstractValueWriteOperation<K, V, Collection<
 
 	@Override
 	public List<RedisFuture<Object>> execute(RedisAsyncCommands<K, V> commands, Iterable<? extends T> items) {
-		return BatchUtils.executeAll(commands, items, this::execute);
+		List<RedisFuture<Object>> futures = new ArrayList<>();
+		for (T item : items) {
+			execute(commands, item, futures);
+		}
+		return futures;
 	}
 
 	@SuppressWarnings({ "rawtypes", "unchecked" })
-	private RedisFuture<Long> execute(RedisAsyncCommands<K, V> commands, T item) {
-		K key = key(item);
-		ZAddArgs args = argsFunction.apply(item);
+	private void execute(RedisAsyncCommands<K, V> commands, T item, List<RedisFuture<Object>> futures) {
 		Collection<ScoredValue<V>> collection = value(item);
 		if (CollectionUtils.isEmpty(collection)) {
-			return null;
+			return;
+		}
+		K key = key(item);
+		ZAddArgs args = argsFunction.apply(item);
+		for (List<ScoredValue<V>> batch : batches(collection)) {
+			ScoredValue[] values = batch.toArray(new ScoredValue[0]);
+			futures.add((RedisFuture) commands.zadd(key, args, values));
 		}
-		ScoredValue[] values = collection.toArray(new ScoredValue[0]);
-		return commands.zadd(key, args, values);
 	}
 
 }
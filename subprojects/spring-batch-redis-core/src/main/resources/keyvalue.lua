@@ -1,3 +1,5 @@
+local luatype = type
+
 local function now ()
   local time = redis.call('TIME')
   return tonumber(time[1]) * 1000
@@ -24,12 +26,18 @@ local function struct (key, type)
   return nil
 end
 
+local function hex (bytes)
+  return (string.gsub(bytes, '.', function (c) return string.format('%02x', string.byte(c)) end))
+end
+
 --[[
     KEYS:
       1. Key for which to fetch time, TTL, mem usage, type, and value
     ARGV:
       1. mode: value format
            DUMP  : DUMP <key>
+           DIGEST: CRC64 checksum of DUMP <key> (last 8 bytes of the payload), with
+                   time + ttl equal to PEXPIRETIME <key> when available
            STRUCT: data-structure specific command (string -> GET, hash -> HGETALL, ...)
            else  : no value
       2. limit: criteria on key memory usage
@@ -37,16 +45,20 @@ end
             0 : mem usage, no limit
             1+: mem usage, limit
       3. samples: number of sampled nested values (MEMORY USAGE <key> SAMPLES <samples>) 
+      4. digest: 1 to also return the CRC64 checksum of DUMP <key> as a hex string,
+         in which case a missing value is returned as nil instead of ending the reply
 --]]
 local key = KEYS[1]
 local mode = ARGV[1]
 local limit = tonumber(ARGV[2])
 local samples = tonumber(ARGV[3])
+local digest = ARGV[4] == '1'
 local time = now()
 local ttl = redis.call('PTTL', key)
 local mem = 0
 local type
 local value
+local checksum
 if ttl ~= -2 then
   if limit >= 0 then
     mem = redis.call('MEMORY', 'USAGE', key, 'SAMPLES', samples)
@@ -55,9 +67,25 @@ if ttl ~= -2 then
   if limit <= 0 or mem <= limit then
     if mode == 'DUMP' then
       value = redis.call('DUMP', key)
+    elseif mode == 'DIGEST' then
+      value = string.sub(redis.call('DUMP', key), -8)
+      if ttl > 0 then
+        -- Make time + ttl the exact expiration time (Redis 7+) so that it does
+        -- not vary between reads
+        local expireAt = redis.pcall('PEXPIRETIME', key)
+        if luatype(expireAt) == 'number' then
+          time = expireAt - ttl
+        end
+      end
     elseif mode == 'STRUCT' then
       value = struct (key, type)
     end
+    if digest then
+      checksum = hex(string.sub(redis.call('DUMP', key), -8))
+    end
   end
 end
+if checksum then
+  return { key, time, ttl, mem, type, value or false, checksum }
+end
 return { key, time, ttl, mem, type, value }
\ No newline at end of file
@@ -0,0 +1,118 @@
+package com.redis.spring.batch.item.redis.common;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class AimdConcurrencyLimiterTests {
+
+	private static final long LATENCY = 1000;
+
+	@Test
+	void increase() throws InterruptedException {
+		AimdConcurrencyLimiter limiter = new AimdConcurrencyLimiter();
+		limiter.setInitialLimit(1);
+		limiter.setMaxLimit(3);
+		for (int index = 0; index < 100; index++) {
+			saturate(limiter, LATENCY, true);
+		}
+		Assertions.assertEquals(3, limiter.getLimit());
+	}
+
+	@Test
+	void decreaseOnError() throws InterruptedException {
+		AimdConcurrencyLimiter limiter = new AimdConcurrencyLimiter();
+		limiter.setInitialLimit(8);
+		limiter.setMaxLimit(8);
+		limiter.setBackoffRatio(.5);
+		limiter.acquire();
+		limiter.release(LATENCY, 1, false);
+		Assertions.assertEquals(4, limiter.getLimit());
+		limiter.backoff();
+		limiter.backoff();
+		limiter.backoff();
+		Assertions.assertEquals(limiter.getMinLimit(), limiter.getLimit());
+	}
+
+	@Test
+	void decreaseOnLatency() throws InterruptedException {
+		AimdConcurrencyLimiter limiter = new AimdConcurrencyLimiter();
+		limiter.setInitialLimit(4);
+		limiter.setBackoffRatio(.5);
+		limiter.acquire();
+		limiter.release(LATENCY, 1, true);
+		limiter.acquire();
+		limiter.release(LATENCY * 10, 1, true);
+		Assertions.assertEquals(2, limiter.getLimit());
+	}
+
+	@Test
+	void initialLimit() {
+		AimdConcurrencyLimiter limiter = new AimdConcurrencyLimiter();
+		Assertions.assertEquals(AimdConcurrencyLimiter.DEFAULT_MAX_LIMIT, limiter.getLimit());
+		limiter.setMaxLimit(4);
+		Assertions.assertEquals(4, limiter.getLimit());
+	}
+
+	@Test
+	void decreaseOncePerWindow() throws InterruptedException {
+		AimdConcurrencyLimiter limiter = new AimdConcurrencyLimiter();
+		limiter.setMaxLimit(8);
+		limiter.setBackoffRatio(.5);
+		// All pipelines were in flight when the first one failed
+		saturate(limiter, Duration.ofSeconds(1).toNanos(), false);
+		Assertions.assertEquals(4, limiter.getLimit());
+	}
+
+	@Test
+	void latencyPerItem() throws InterruptedException {
+		AimdConcurrencyLimiter limiter = new AimdConcurrencyLimiter();
+		limiter.setMaxLimit(4);
+		limiter.acquire();
+		limiter.release(LATENCY, 1, true);
+		// Full chunks take longer than a single item without being slow
+		for (int index = 0; index < 10; index++) {
+			limiter.acquire();
+			limiter.release(LATENCY * 50, 100, true);
+		}
+		limiter.acquire();
+		limiter.release(LATENCY, 1, true);
+		Assertions.assertEquals(4, limiter.getLimit());
+	}
+
+	@Test
+	void noIncreaseWhenNotSaturated() throws InterruptedException {
+		AimdConcurrencyLimiter limiter = new AimdConcurrencyLimiter();
+		limiter.setInitialLimit(4);
+		for (int index = 0; index < 100; index++) {
+			limiter.acquire();
+			limiter.release(LATENCY, 1, true);
+		}
+		Assertions.assertEquals(4, limiter.getLimit());
+	}
+
+	@Test
+	void noIncreaseDuringCooldown() throws InterruptedException {
+		AimdConcurrencyLimiter limiter = new AimdConcurrencyLimiter();
+		limiter.setInitialLimit(2);
+		limiter.setCooldown(Duration.ofHours(1));
+		limiter.backoff();
+		for (int index = 0; index < 100; index++) {
+			saturate(limiter, LATENCY, true);
+		}
+		Assertions.assertEquals(1, limiter.getLimit());
+	}
+
+	private void saturate(AimdConcurrencyLimiter limiter, long latency, boolean success)
+			throws InterruptedException {
+		int limit = limiter.getLimit();
+		for (int index = 0; index < limit; index++) {
+			limiter.acquire();
+		}
+		for (int index = 0; index < limit; index++) {
+			limiter.release(latency, 1, success);
+		}
+	}
+
+}
@@ -0,0 +1,44 @@
+package com.redis.spring.batch.item.redis.common;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class BinaryKeyTests {
+
+	private static byte[] bytes(String string) {
+		return string.getBytes(StandardCharsets.UTF_8);
+	}
+
+	@Test
+	void equality() {
+		BinaryKey key = BinaryKey.of(bytes("key"));
+		Assertions.assertEquals(key, BinaryKey.of(bytes("key")));
+		Assertions.assertEquals(key.hashCode(), BinaryKey.copyOf(bytes("key")).hashCode());
+		Assertions.assertNotEquals(key, BinaryKey.of(bytes("key2")));
+		Map<Object, String> map = new HashMap<>();
+		map.put(BinaryKey.identity(bytes("key")), "value");
+		Assertions.assertEquals("value", map.get(BinaryKey.identity(bytes("key"))));
+		Assertions.assertEquals("key", BinaryKey.identity("key"));
+	}
+
+	@Test
+	void compare() {
+		Assertions.assertTrue(BinaryKey.of(new byte[] { 1 }).compareTo(BinaryKey.of(new byte[] { (byte) 0xff })) < 0);
+		Assertions.assertTrue(BinaryKey.of(bytes("a")).compareTo(BinaryKey.of(bytes("ab"))) < 0);
+		Assertions.assertEquals(0, BinaryKey.of(bytes("a")).compareTo(BinaryKey.of(bytes("a"))));
+	}
+
+	@Test
+	void unwrapped() {
+		Assertions.assertEquals(BinaryKey.of(bytes("key")).hashCode(), BinaryKey.hash(bytes("key")));
+		Assertions.assertEquals("key".hashCode(), BinaryKey.hash("key"));
+		Assertions.assertTrue(BinaryKey.equal(bytes("key"), bytes("key")));
+		Assertions.assertFalse(BinaryKey.equal(bytes("Aa"), bytes("BB")));
+		Assertions.assertTrue(BinaryKey.equal("key", "key"));
+	}
+
+}
@@ -0,0 +1,142 @@
+package com.redis.spring.batch.item.redis.common;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class DedupBlockingQueueTests {
+
+	private static byte[] bytes(String string) {
+		return string.getBytes(StandardCharsets.UTF_8);
+	}
+
+	@Test
+	void dedupe() {
+		DedupBlockingQueue<String> queue = DedupBlockingQueue.identity(10);
+		Assertions.assertTrue(queue.offer("a"));
+		Assertions.assertTrue(queue.offer("b"));
+		Assertions.assertTrue(queue.offer("a"));
+		Assertions.assertEquals(2, queue.size());
+		Assertions.assertEquals("b", queue.poll());
+		Assertions.assertEquals("a", queue.poll());
+		Assertions.assertNull(queue.poll());
+	}
+
+	@Test
+	void capacity() {
+		DedupBlockingQueue<String> queue = DedupBlockingQueue.identity(2);
+		Assertions.assertTrue(queue.offer("a"));
+		Assertions.assertTrue(queue.offer("b"));
+		Assertions.assertFalse(queue.offer("c"));
+		Assertions.assertTrue(queue.offer("a"));
+		Assertions.assertEquals("a", queue.removeKey("a"));
+		Assertions.assertTrue(queue.offer("c"));
+		Assertions.assertEquals(Arrays.asList("b", "c"), new ArrayList<>(queue));
+	}
+
+	@Test
+	void byteArrayKeys() {
+		DedupBlockingQueue<byte[]> queue = DedupBlockingQueue.identity(10);
+		queue.offer(bytes("key"));
+		queue.offer(bytes("key"));
+		Assertions.assertEquals(1, queue.size());
+		Assertions.assertTrue(queue.containsKey(bytes("key")));
+		Assertions.assertTrue(queue.contains(bytes("key")));
+		Assertions.assertNotNull(queue.removeKey(bytes("key")));
+		Assertions.assertTrue(queue.isEmpty());
+	}
+
+	@Test
+	void discardListener() {
+		List<KeyValue<String, String>> discarded = new ArrayList<>();
+		DedupBlockingQueue<KeyValue<String, String>> queue = new DedupBlockingQueue<>(10, KeyValue::getKey);
+		queue.setDiscardListener(discarded::add);
+		KeyValue<String, String> first = new KeyValue<>();
+		first.setKey("key");
+		KeyValue<String, String> second = new KeyValue<>();
+		second.setKey("key");
+		queue.offer(first);
+		queue.offer(second);
+		Assertions.assertEquals(Arrays.asList(first), discarded);
+		Assertions.assertSame(second, queue.poll());
+	}
+
+	@Test
+	void blockingPoll() throws Exception {
+		DedupBlockingQueue<String> queue = DedupBlockingQueue.identity(1);
+		Assertions.assertNull(queue.poll(10, TimeUnit.MILLISECONDS));
+		CompletableFuture<String> future = CompletableFuture.supplyAsync(() -> {
+			try {
+				return queue.take();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return null;
+			}
+		});
+		queue.put("a");
+		Assertions.assertEquals("a", future.get(1, TimeUnit.SECONDS));
+		queue.put("b");
+		Assertions.assertFalse(queue.offer("c", 10, TimeUnit.MILLISECONDS));
+	}
+
+	@Test
+	void offerOrTouch() {
+		DedupBlockingQueue<String> queue = DedupBlockingQueue.identity(2);
+		List<Boolean> queued = new ArrayList<>();
+		Assertions.assertEquals(DedupBlockingQueue.OfferStatus.ADDED, queue.offerOrTouch("a", queued::add));
+		Assertions.assertEquals(DedupBlockingQueue.OfferStatus.ADDED, queue.offerOrTouch("b", queued::add));
+		Assertions.assertEquals(DedupBlockingQueue.OfferStatus.TOUCHED, queue.offerOrTouch("a", queued::add));
+		Assertions.assertEquals(DedupBlockingQueue.OfferStatus.FULL, queue.offerOrTouch("c", queued::add));
+		Assertions.assertEquals(Arrays.asList(false, false, true), queued);
+		Assertions.assertEquals("b", queue.poll());
+		Assertions.assertEquals("a", queue.poll());
+	}
+
+	@Test
+	void quietPeriod() throws Exception {
+		AtomicLong time = new AtomicLong();
+		DedupBlockingQueue<String> queue = DedupBlockingQueue.identity(10);
+		queue.setNanoTime(time::get);
+		queue.setQuietPeriod(Duration.ofMillis(200));
+		queue.offer("a");
+		Assertions.assertNull(queue.poll());
+		Assertions.assertEquals(1, queue.size());
+		time.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+		queue.offer("a");
+		queue.offer("b");
+		time.addAndGet(TimeUnit.MILLISECONDS.toNanos(150));
+		Assertions.assertNull(queue.poll());
+		time.addAndGet(TimeUnit.MILLISECONDS.toNanos(50));
+		Assertions.assertEquals("a", queue.poll(1, TimeUnit.SECONDS));
+		Assertions.assertEquals("b", queue.take());
+	}
+
+	@Test
+	void maxDelay() throws Exception {
+		AtomicLong time = new AtomicLong();
+		DedupBlockingQueue<String> queue = DedupBlockingQueue.identity(10);
+		queue.setNanoTime(time::get);
+		queue.setQuietPeriod(Duration.ofSeconds(10));
+		queue.setMaxDelay(Duration.ofMillis(200));
+		queue.offer("a");
+		queue.offer("b");
+		for (int index = 0; index < 15; index++) {
+			time.addAndGet(TimeUnit.MILLISECONDS.toNanos(10));
+			queue.offer("b");
+			queue.offer("a");
+		}
+		Assertions.assertNull(queue.poll());
+		time.addAndGet(TimeUnit.MILLISECONDS.toNanos(50));
+		Assertions.assertEquals("a", queue.poll(1, TimeUnit.SECONDS));
+		Assertions.assertEquals("b", queue.poll(1, TimeUnit.SECONDS));
+	}
+
+}
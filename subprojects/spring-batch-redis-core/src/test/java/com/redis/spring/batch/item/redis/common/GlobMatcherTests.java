@@ -0,0 +1,56 @@
+package com.redis.spring.batch.item.redis.common;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class GlobMatcherTests {
+
+	private static boolean matches(String pattern, String string) {
+		return new GlobMatcher(pattern).matches(string.getBytes(StandardCharsets.UTF_8));
+	}
+
+	@Test
+	void matches() {
+		Assertions.assertTrue(matches("*", "key"));
+		Assertions.assertTrue(matches("user:*", "user:1"));
+		Assertions.assertFalse(matches("user:*", "session:1"));
+		Assertions.assertTrue(matches("h?llo", "hello"));
+		Assertions.assertFalse(matches("h?llo", "hllo"));
+		Assertions.assertTrue(matches("h[ae]llo", "hallo"));
+		Assertions.assertFalse(matches("h[^e]llo", "hello"));
+		Assertions.assertTrue(matches("h[a-b]llo", "hbllo"));
+		Assertions.assertTrue(matches("a\\*b", "a*b"));
+		Assertions.assertFalse(matches("a\\*b", "axb"));
+		Assertions.assertTrue(matches("*:*:end", "a:b:c:end"));
+		Assertions.assertTrue(matches("key**", "key"));
+		Assertions.assertFalse(matches("key", "key1"));
+	}
+
+	@Test
+	void matchesAny() {
+		GlobMatcher matcher = new GlobMatcher("user:*", "session:*");
+		Assertions.assertTrue(matcher.matches("user:1".getBytes(StandardCharsets.UTF_8)));
+		Assertions.assertTrue(matcher.matches(ByteBuffer.wrap("session:1".getBytes(StandardCharsets.UTF_8))));
+		Assertions.assertFalse(matcher.matches("order:1".getBytes(StandardCharsets.UTF_8)));
+	}
+
+	@Test
+	void prefixes() {
+		Assertions.assertEquals(List.of("user:", "session:"),
+				GlobMatcher.prefixes(List.of("user:*", "session:*", "user:1*")));
+		Assertions.assertEquals(List.of(), GlobMatcher.prefixes(List.of("user:*", "*")));
+	}
+
+	@Test
+	void prefix() {
+		Assertions.assertEquals("user:", GlobMatcher.prefix("user:*"));
+		Assertions.assertEquals("", GlobMatcher.prefix("*"));
+		Assertions.assertEquals("h", GlobMatcher.prefix("h[ae]llo"));
+		Assertions.assertEquals("key", GlobMatcher.prefix("key"));
+	}
+
+}
@@ -0,0 +1,42 @@
+package com.redis.spring.batch.item.redis.common;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import io.lettuce.core.ScoredValue;
+
+class KeyValueTests {
+
+	private static long size(Object value) {
+		KeyValue<String, Object> keyValue = new KeyValue<>();
+		keyValue.setValue(value);
+		return KeyValue.size(keyValue);
+	}
+
+	@Test
+	void size() {
+		Assertions.assertEquals(0, size(null));
+		Assertions.assertEquals(3, size(new byte[3]));
+		Assertions.assertEquals(5, size("value"));
+		Map<String, String> hash = new LinkedHashMap<>();
+		hash.put("field1", "value1");
+		hash.put("field2", "value2");
+		Assertions.assertEquals(24, size(hash));
+		Assertions.assertEquals(6, size(Arrays.asList("a", "bb", "ccc")));
+		Assertions.assertEquals(2 + Double.BYTES, size(Arrays.asList(ScoredValue.just(1, "ab"))));
+	}
+
+	@Test
+	void sizeIgnoresMemoryUsage() {
+		KeyValue<String, Object> keyValue = new KeyValue<>();
+		keyValue.setMemoryUsage(1000);
+		Assertions.assertEquals(0, KeyValue.size(keyValue));
+		keyValue.setValue("value");
+		Assertions.assertEquals(5, KeyValue.size(keyValue));
+	}
+
+}
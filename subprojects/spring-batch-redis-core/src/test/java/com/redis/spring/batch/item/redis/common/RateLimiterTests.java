@@ -0,0 +1,60 @@
+package com.redis.spring.batch.item.redis.common;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class RateLimiterTests {
+
+	@Test
+	void unlimited() throws InterruptedException {
+		RateLimiter limiter = new RateLimiter("unlimited");
+		long start = System.nanoTime();
+		for (int index = 0; index < 1000; index++) {
+			limiter.acquire(1000, 1000000);
+		}
+		Assertions.assertTrue(Duration.ofNanos(System.nanoTime() - start).toMillis() < 1000);
+		Assertions.assertEquals(Duration.ZERO, limiter.getThrottledTime());
+	}
+
+	@Test
+	void commands() throws InterruptedException {
+		RateLimiter limiter = new RateLimiter("commands");
+		limiter.setCommandsPerSecond(1000);
+		long start = System.nanoTime();
+		for (int index = 0; index < 11; index++) {
+			limiter.acquire(50, 0);
+		}
+		Assertions.assertTrue(Duration.ofNanos(System.nanoTime() - start).toMillis() >= 450);
+		Assertions.assertTrue(limiter.getThrottledTime().toMillis() >= 450);
+	}
+
+	@Test
+	void bytes() throws InterruptedException {
+		RateLimiter limiter = new RateLimiter("bytes");
+		limiter.setBytesPerSecond(1000);
+		limiter.acquire(1, 0);
+		limiter.charge(500);
+		long start = System.nanoTime();
+		limiter.acquire(1, 1);
+		Assertions.assertTrue(Duration.ofNanos(System.nanoTime() - start).toMillis() >= 450);
+		limiter.setBytesPerSecond(0);
+		start = System.nanoTime();
+		limiter.acquire(1, 1000000);
+		limiter.acquire(1, 1000000);
+		Assertions.assertTrue(Duration.ofNanos(System.nanoTime() - start).toMillis() < 450);
+	}
+
+	@Test
+	void commandDebt() throws InterruptedException {
+		RateLimiter limiter = new RateLimiter("commandDebt");
+		limiter.setCommandsPerSecond(1000);
+		limiter.acquire(1, 0);
+		limiter.charge(500, 0);
+		long start = System.nanoTime();
+		limiter.acquire(1, 0);
+		Assertions.assertTrue(Duration.ofNanos(System.nanoTime() - start).toMillis() >= 450);
+	}
+
+}
@@ -0,0 +1,126 @@
+package com.redis.spring.batch.item.redis.common;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import io.lettuce.core.ScoredValue;
+
+class RdbParserTests {
+
+	private static final int RDB_VERSION = 12;
+
+	private static byte[] payload(int... bytes) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		for (int b : bytes) {
+			out.write(b);
+		}
+		out.write(RDB_VERSION);
+		out.write(0);
+		byte[] body = out.toByteArray();
+		long crc = Crc64.checksum(body);
+		byte[] footer = ByteBuffer.allocate(Long.BYTES).order(ByteOrder.LITTLE_ENDIAN).putLong(crc).array();
+		out.write(footer, 0, footer.length);
+		return out.toByteArray();
+	}
+
+	private static String string(Object value) {
+		return new String((byte[]) value, StandardCharsets.UTF_8);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static List<String> strings(Object value) {
+		return ((List<byte[]>) value).stream().map(RdbParserTests::string).collect(Collectors.toList());
+	}
+
+	@Test
+	void crc64() {
+		Assertions.assertEquals(0xe9c6d914c4b8d9caL, Crc64.checksum("123456789".getBytes(StandardCharsets.US_ASCII)));
+	}
+
+	@Test
+	void dumpOfInteger() {
+		// DUMP of "10" as returned by Redis 6
+		byte[] dump = { 0x00, (byte) 0xc0, 0x0a, 0x0a, 0x00, 0x6e, (byte) 0x9f, 0x57, 0x45, 0x0e, (byte) 0xae, 0x63,
+				(byte) 0xbb };
+		Assertions.assertEquals(10, RdbParser.version(dump));
+		KeyValue<byte[], Object> keyValue = RdbParser.parse(dump);
+		Assertions.assertEquals(DataType.STRING.getString(), keyValue.getType());
+		Assertions.assertEquals("10", string(keyValue.getValue()));
+	}
+
+	@Test
+	void wrongChecksum() {
+		byte[] dump = payload(0x00, 0x01, 'a');
+		dump[dump.length - 1]++;
+		Assertions.assertThrows(IllegalArgumentException.class, () -> RdbParser.parse(dump));
+	}
+
+	@Test
+	void lzfString() {
+		KeyValue<byte[], Object> keyValue = RdbParser
+				.parse(payload(0x00, 0xc3, 0x06, 0x06, 0x02, 'a', 'b', 'c', 0x20, 0x02));
+		Assertions.assertEquals("abcabc", string(keyValue.getValue()));
+	}
+
+	@Test
+	void ziplistList() {
+		KeyValue<byte[], Object> keyValue = RdbParser.parse(payload(10, 18, 18, 0, 0, 0, 15, 0, 0, 0, 2, 0, 0, 0x03,
+				'f', 'o', 'o', 5, 0xf6, 0xff));
+		Assertions.assertEquals(DataType.LIST.getString(), keyValue.getType());
+		Assertions.assertEquals(List.of("foo", "5"), strings(keyValue.getValue()));
+	}
+
+	@Test
+	void quicklist2List() {
+		KeyValue<byte[], Object> keyValue = RdbParser
+				.parse(payload(18, 1, 2, 10, 10, 0, 0, 0, 1, 0, 0x81, 'x', 0x02, 0xff));
+		Assertions.assertEquals(List.of("x"), strings(keyValue.getValue()));
+	}
+
+	@Test
+	void intsetSet() {
+		KeyValue<byte[], Object> keyValue = RdbParser.parse(payload(11, 12, 2, 0, 0, 0, 2, 0, 0, 0, 1, 0, 0xfe, 0xff));
+		Assertions.assertEquals(DataType.SET.getString(), keyValue.getType());
+		Assertions.assertEquals(List.of("1", "-2"), strings(keyValue.getValue()));
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	void listpackHash() {
+		KeyValue<byte[], Object> keyValue = RdbParser
+				.parse(payload(16, 12, 12, 0, 0, 0, 2, 0, 0x81, 'a', 0x02, 0x01, 0x01, 0xff));
+		Assertions.assertEquals(DataType.HASH.getString(), keyValue.getType());
+		Map<byte[], byte[]> hash = (Map<byte[], byte[]>) keyValue.getValue();
+		Assertions.assertEquals(1, hash.size());
+		Map.Entry<byte[], byte[]> entry = hash.entrySet().iterator().next();
+		Assertions.assertEquals("a", string(entry.getKey()));
+		Assertions.assertEquals("1", string(entry.getValue()));
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	void binaryScoreZset() {
+		byte[] score = ByteBuffer.allocate(Double.BYTES).order(ByteOrder.LITTLE_ENDIAN).putDouble(1.5).array();
+		int[] bytes = { 5, 1, 1, 'm', score[0], score[1], score[2], score[3], score[4], score[5], score[6],
+				score[7] };
+		KeyValue<byte[], Object> keyValue = RdbParser.parse(payload(bytes));
+		Assertions.assertEquals(DataType.ZSET.getString(), keyValue.getType());
+		ScoredValue<byte[]> value = ((List<ScoredValue<byte[]>>) keyValue.getValue()).get(0);
+		Assertions.assertEquals(1.5, value.getScore());
+		Assertions.assertEquals("m", string(value.getValue()));
+	}
+
+	@Test
+	void unsupportedType() {
+		Assertions.assertThrows(IllegalArgumentException.class, () -> RdbParser.parse(payload(15, 0)));
+	}
+
+}
@@ -0,0 +1,46 @@
+package com.redis.spring.batch.item.redis.common;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class RedisHealthMonitorTests {
+
+	private static final String INFO = "# Server\r\nredis_version:7.2.4\r\n\r\n# Clients\r\nblocked_clients:%s\r\n\r\n"
+			+ "# Memory\r\nused_memory:%s\r\nmaxmemory:1000\r\n\r\n# Stats\r\ninstantaneous_ops_per_sec:%s\r\n\r\n"
+			+ "# Replication\r\nrole:master\r\nconnected_slaves:2\r\n"
+			+ "slave0:ip=10.0.0.1,port=6379,state=online,offset=%s,lag=0\r\n"
+			+ "slave1:ip=10.0.0.2,port=6379,state=online,offset=5000,lag=0\r\nmaster_repl_offset:5000\r\n";
+
+	private static String info(long blockedClients, long usedMemory, long ops, long replicaOffset) {
+		return String.format(INFO, blockedClients, usedMemory, ops, replicaOffset);
+	}
+
+	@Test
+	void healthy() {
+		RedisHealthMonitor monitor = new RedisHealthMonitor();
+		monitor.setMaxOpsPerSecond(1000);
+		monitor.setMaxBlockedClients(10);
+		Assertions.assertNull(monitor.stress(RedisHealthMonitor.parse(info(1, 100, 10, 5000))));
+	}
+
+	@Test
+	void stress() {
+		RedisHealthMonitor monitor = new RedisHealthMonitor();
+		monitor.setMaxOpsPerSecond(1000);
+		monitor.setMaxBlockedClients(10);
+		monitor.setMaxReplicationLag(100);
+		Assertions.assertNotNull(monitor.stress(RedisHealthMonitor.parse(info(1, 100, 2000, 5000))));
+		Assertions.assertNotNull(monitor.stress(RedisHealthMonitor.parse(info(1, 950, 10, 5000))));
+		Assertions.assertNotNull(monitor.stress(RedisHealthMonitor.parse(info(1, 100, 10, 4000))));
+		Assertions.assertNotNull(monitor.stress(RedisHealthMonitor.parse(info(20, 100, 10, 5000))));
+	}
+
+	@Test
+	void thresholdsDisabled() {
+		RedisHealthMonitor monitor = new RedisHealthMonitor();
+		monitor.setMaxMemoryRatio(0);
+		monitor.setMaxReplicationLag(0);
+		Assertions.assertNull(monitor.stress(RedisHealthMonitor.parse(info(20, 950, 2000, 0))));
+	}
+
+}
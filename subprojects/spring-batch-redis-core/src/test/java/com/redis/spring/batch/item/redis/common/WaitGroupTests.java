@@ -0,0 +1,156 @@
+package com.redis.spring.batch.item.redis.common;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import io.lettuce.core.RedisCommandExecutionException;
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.api.async.RedisAsyncCommands;
+import io.lettuce.core.cluster.PipelinedRedisFuture;
+
+class WaitGroupTests {
+
+	private final List<RedisAsyncCommands<String, String>> waits = new ArrayList<>();
+	private final List<CompletableFuture<Object>> replies = new ArrayList<>();
+
+	private WaitGroup<String, String> waitGroup(int size) {
+		WaitGroup<String, String> waitGroup = new WaitGroup<>((commands, items) -> {
+			CompletableFuture<Object> reply = new CompletableFuture<>();
+			waits.add(commands);
+			replies.add(reply);
+			List<RedisFuture<Object>> futures = new ArrayList<>();
+			futures.add(new PipelinedRedisFuture<>(reply));
+			return futures;
+		});
+		waitGroup.setSize(size);
+		return waitGroup;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static RedisAsyncCommands<String, String> connection() {
+		return (RedisAsyncCommands<String, String>) Proxy.newProxyInstance(WaitGroupTests.class.getClassLoader(),
+				new Class<?>[] { RedisAsyncCommands.class }, (proxy, method, args) -> {
+					switch (method.getName()) {
+					case "equals":
+						return proxy == args[0];
+					case "hashCode":
+						return System.identityHashCode(proxy);
+					default:
+						return null;
+					}
+				});
+	}
+
+	private void acknowledge() {
+		replies.forEach(r -> r.complete(null));
+	}
+
+	@Test
+	void pipelined() throws Exception {
+		WaitGroup<String, String> waitGroup = waitGroup(1);
+		RedisAsyncCommands<String, String> connection = connection();
+		WaitGroup<String, String>.Chunk chunk = waitGroup.enter();
+		chunk.written(connection, connection);
+		Assertions.assertEquals(1, waits.size());
+		Assertions.assertSame(connection, waits.get(0));
+		waitGroup.leave(chunk, true);
+		Assertions.assertFalse(chunk.isAcknowledged());
+		acknowledge();
+		waitGroup.await(chunk);
+		Assertions.assertTrue(chunk.isAcknowledged());
+	}
+
+	@Test
+	void groupWaitsOncePerConnection() throws Exception {
+		WaitGroup<String, String> waitGroup = waitGroup(10);
+		RedisAsyncCommands<String, String> connection1 = connection();
+		RedisAsyncCommands<String, String> connection2 = connection();
+		WaitGroup<String, String>.Chunk chunk1 = waitGroup.enter();
+		WaitGroup<String, String>.Chunk chunk2 = waitGroup.enter();
+		WaitGroup<String, String>.Chunk chunk3 = waitGroup.enter();
+		chunk1.written(connection1, connection1);
+		waitGroup.leave(chunk1, true);
+		chunk2.written(connection1, connection1);
+		waitGroup.leave(chunk2, true);
+		Assertions.assertTrue(waits.isEmpty());
+		chunk3.written(connection2, connection2);
+		waitGroup.leave(chunk3, true);
+		Assertions.assertEquals(2, waits.size());
+		Assertions.assertTrue(waits.contains(connection1));
+		Assertions.assertTrue(waits.contains(connection2));
+		Assertions.assertFalse(chunk1.isAcknowledged());
+		replies.get(0).complete(null);
+		Assertions.assertFalse(chunk1.isAcknowledged());
+		replies.get(1).complete(null);
+		waitGroup.await(chunk1);
+		Assertions.assertTrue(chunk1.isAcknowledged());
+		Assertions.assertTrue(chunk2.isAcknowledged());
+		Assertions.assertTrue(chunk3.isAcknowledged());
+	}
+
+	@Test
+	void groupSize() {
+		WaitGroup<String, String> waitGroup = waitGroup(2);
+		RedisAsyncCommands<String, String> connection = connection();
+		WaitGroup<String, String>.Chunk chunk1 = waitGroup.enter();
+		WaitGroup<String, String>.Chunk chunk2 = waitGroup.enter();
+		WaitGroup<String, String>.Chunk chunk3 = waitGroup.enter();
+		chunk1.written(connection, connection);
+		waitGroup.leave(chunk1, true);
+		chunk2.written(connection, connection);
+		waitGroup.leave(chunk2, true);
+		Assertions.assertEquals(1, waits.size());
+		chunk3.written(connection, connection);
+		waitGroup.leave(chunk3, true);
+		Assertions.assertEquals(2, waits.size());
+	}
+
+	@Test
+	void groupInterval() {
+		WaitGroup<String, String> waitGroup = waitGroup(10);
+		waitGroup.setInterval(Duration.ofNanos(1));
+		RedisAsyncCommands<String, String> connection = connection();
+		WaitGroup<String, String>.Chunk chunk1 = waitGroup.enter();
+		WaitGroup<String, String>.Chunk chunk2 = waitGroup.enter();
+		waitGroup.enter();
+		chunk1.written(connection, connection);
+		waitGroup.leave(chunk1, true);
+		chunk2.written(connection, connection);
+		waitGroup.leave(chunk2, true);
+		Assertions.assertFalse(waits.isEmpty());
+	}
+
+	@Test
+	void failedWait() throws Exception {
+		WaitGroup<String, String> waitGroup = waitGroup(10);
+		RedisAsyncCommands<String, String> connection = connection();
+		WaitGroup<String, String>.Chunk chunk1 = waitGroup.enter();
+		WaitGroup<String, String>.Chunk chunk2 = waitGroup.enter();
+		chunk1.written(connection, connection);
+		waitGroup.leave(chunk1, true);
+		chunk2.written(connection, connection);
+		waitGroup.leave(chunk2, true);
+		replies.get(0).completeExceptionally(new RedisCommandExecutionException("Insufficient replication level"));
+		Assertions.assertThrows(ExecutionException.class, () -> waitGroup.await(chunk1));
+		Assertions.assertThrows(ExecutionException.class, () -> waitGroup.await(chunk2));
+		Assertions.assertFalse(chunk2.isAcknowledged());
+	}
+
+	@Test
+	void failedChunk() throws Exception {
+		WaitGroup<String, String> waitGroup = waitGroup(10);
+		RedisAsyncCommands<String, String> connection = connection();
+		WaitGroup<String, String>.Chunk chunk = waitGroup.enter();
+		chunk.written(connection, connection);
+		waitGroup.leave(chunk, false);
+		Assertions.assertTrue(waits.isEmpty());
+	}
+
+}
@@ -0,0 +1,105 @@
+package com.redis.spring.batch.item.redis.reader;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class DigestIndexTests {
+
+	@TempDir
+	Path dir;
+
+	private static ByteBuffer key(String key) {
+		return ByteBuffer.wrap(key.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static List<String> removedKeys(DigestIndex index) {
+		List<String> keys = new ArrayList<>();
+		index.removedKeys().forEachRemaining(k -> keys.add(StandardCharsets.UTF_8.decode(k).toString()));
+		return keys;
+	}
+
+	@Test
+	void incremental() throws IOException {
+		DigestIndex index = new DigestIndex(dir.resolve("digests"));
+		index.open();
+		for (int i = 0; i < 1000; i++) {
+			Assertions.assertTrue(index.update(key("key:" + i), i));
+			index.written(key("key:" + i));
+		}
+		Assertions.assertTrue(removedKeys(index).isEmpty());
+		index.commit();
+		index.open();
+		for (int i = 0; i < 1000; i++) {
+			if (i == 3 || i == 7) {
+				continue;
+			}
+			Assertions.assertEquals(i == 5, index.update(key("key:" + i), i == 5 ? -1 : i));
+		}
+		index.written(key("key:5"));
+		Assertions.assertTrue(index.update(key("key:1000"), 1000));
+		index.written(key("key:1000"));
+		Assertions.assertEquals(Arrays.asList("key:3", "key:7"),
+				removedKeys(index).stream().sorted().collect(Collectors.toList()));
+		index.commit();
+		index.open();
+		Assertions.assertFalse(index.update(key("key:5"), -1));
+		Assertions.assertTrue(index.update(key("key:3"), 3));
+		index.close();
+	}
+
+	@Test
+	void closeWithoutCommit() throws IOException {
+		Path file = dir.resolve("digests");
+		DigestIndex index = new DigestIndex(file);
+		index.open();
+		index.update(key("key:1"), 1);
+		index.written(key("key:1"));
+		index.commit();
+		index.open();
+		index.update(key("key:1"), 2);
+		index.close();
+		Assertions.assertFalse(Files.exists(dir.resolve("digests.tmp")));
+		index.open();
+		Assertions.assertFalse(index.update(key("key:1"), 1));
+		index.close();
+	}
+
+	@Test
+	void failed() throws IOException {
+		DigestIndex index = new DigestIndex(dir.resolve("digests"));
+		index.open();
+		for (int i = 0; i < 3; i++) {
+			index.update(key("key:" + i), i);
+			index.written(key("key:" + i));
+		}
+		index.commit();
+		index.open();
+		// Changed but never written: not recorded
+		Assertions.assertTrue(index.update(key("key:0"), -1));
+		// Changed but failed: not recorded
+		Assertions.assertTrue(index.update(key("key:1"), -1));
+		index.failed(key("key:1"));
+		// Removed but its deletion failed: kept with its previous digest
+		Assertions.assertEquals(List.of("key:2"), removedKeys(index));
+		index.failed(key("key:2"));
+		Assertions.assertTrue(removedKeys(index).isEmpty());
+		index.commit();
+		index.open();
+		Assertions.assertTrue(index.update(key("key:0"), -1));
+		Assertions.assertTrue(index.update(key("key:1"), -1));
+		Assertions.assertEquals(List.of("key:2"), removedKeys(index));
+		index.close();
+	}
+
+}
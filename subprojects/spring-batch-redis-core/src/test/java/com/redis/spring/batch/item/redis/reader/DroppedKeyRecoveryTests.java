@@ -0,0 +1,106 @@
+package com.redis.spring.batch.item.redis.reader;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import io.lettuce.core.cluster.SlotHash;
+import io.lettuce.core.codec.StringCodec;
+
+class DroppedKeyRecoveryTests {
+
+	private static List<String> drain(DroppedKeyRecovery<String> recovery) {
+		List<String> keys = new ArrayList<>();
+		String key;
+		while ((key = recovery.poll()) != null) {
+			keys.add(key);
+		}
+		return keys;
+	}
+
+	@Test
+	void keys() {
+		DroppedKeyRecovery<String> recovery = new DroppedKeyRecovery<>(StringCodec.UTF8, 10,
+				slots -> List.<String>of().iterator(), 100);
+		recovery.add("key:1");
+		recovery.add("key:2");
+		recovery.add("key:1");
+		Assertions.assertEquals(2, recovery.size());
+		Assertions.assertEquals(List.of("key:2", "key:1"), drain(recovery));
+		Assertions.assertTrue(recovery.isEmpty());
+	}
+
+	@Test
+	void slotOverflow() {
+		List<String> keyspace = new ArrayList<>();
+		for (int index = 0; index < 100; index++) {
+			keyspace.add("key:" + index);
+		}
+		List<BitSet> scans = new ArrayList<>();
+		DroppedKeyRecovery<String> recovery = new DroppedKeyRecovery<>(StringCodec.UTF8, 1, slots -> {
+			scans.add((BitSet) slots.clone());
+			return keyspace.iterator();
+		}, 1000);
+		recovery.add("key:1");
+		recovery.add("key:2");
+		recovery.add("key:3");
+		Assertions.assertFalse(recovery.isEmpty());
+		List<String> keys = drain(recovery);
+		Assertions.assertEquals("key:1", keys.get(0));
+		Set<Integer> slots = new HashSet<>();
+		for (String key : keys.subList(1, keys.size())) {
+			slots.add(SlotHash.getSlot(key));
+		}
+		Assertions.assertEquals(Set.of(SlotHash.getSlot("key:2"), SlotHash.getSlot("key:3")), slots);
+		Assertions.assertTrue(keys.containsAll(List.of("key:2", "key:3")));
+		Assertions.assertEquals(1, scans.size());
+		Assertions.assertEquals(slots, scans.get(0).stream().boxed().collect(Collectors.toSet()));
+		Assertions.assertTrue(recovery.isEmpty());
+	}
+
+	@Test
+	void addAll() {
+		List<BitSet> scans = new ArrayList<>();
+		DroppedKeyRecovery<String> recovery = new DroppedKeyRecovery<>(StringCodec.UTF8, 10, slots -> {
+			scans.add((BitSet) slots.clone());
+			return List.of("key:1", "key:2").iterator();
+		}, 1000);
+		recovery.addAll();
+		Assertions.assertFalse(recovery.isEmpty());
+		Assertions.assertEquals(List.of("key:1", "key:2"), drain(recovery));
+		Assertions.assertEquals(SlotHash.SLOT_COUNT, scans.get(0).cardinality());
+		Assertions.assertTrue(recovery.isEmpty());
+	}
+
+	@Test
+	void scanInterval() {
+		AtomicLong time = new AtomicLong();
+		List<BitSet> scans = new ArrayList<>();
+		DroppedKeyRecovery<String> recovery = new DroppedKeyRecovery<>(StringCodec.UTF8, 10, slots -> {
+			scans.add((BitSet) slots.clone());
+			return List.<String>of().iterator();
+		}, 1000);
+		recovery.setNanoTime(time::get);
+		recovery.setScanInterval(Duration.ofMinutes(1));
+		recovery.addAll();
+		Assertions.assertNull(recovery.poll());
+		recovery.addAll();
+		time.addAndGet(Duration.ofSeconds(30).toNanos());
+		Assertions.assertNull(recovery.poll());
+		Assertions.assertEquals(1, scans.size());
+		Assertions.assertFalse(recovery.isEmpty());
+		time.addAndGet(Duration.ofSeconds(30).toNanos());
+		Assertions.assertNull(recovery.poll());
+		Assertions.assertEquals(2, scans.size());
+		Assertions.assertTrue(recovery.isEmpty());
+	}
+
+}
@@ -0,0 +1,89 @@
+package com.redis.spring.batch.item.redis.reader;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.redis.spring.batch.item.redis.common.CountMinSketch;
+
+class HotKeyTrackerTests {
+
+	private static boolean add(HotKeyTracker<String> tracker, String key) {
+		byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+		return tracker.add(key, bytes, 0, bytes.length);
+	}
+
+	@Test
+	void sketch() {
+		CountMinSketch sketch = new CountMinSketch();
+		byte[] key = "key".getBytes(StandardCharsets.UTF_8);
+		for (int index = 0; index < 10; index++) {
+			sketch.add(key, 0, key.length);
+		}
+		Assertions.assertEquals(10, sketch.estimate(key, 0, key.length));
+		sketch.halve();
+		Assertions.assertEquals(5, sketch.estimate(key, 0, key.length));
+	}
+
+	@Test
+	void hotKeys() {
+		HotKeyTracker<String> tracker = new HotKeyTracker<>(50, 10, Duration.ofHours(1));
+		for (int index = 0; index < 100; index++) {
+			add(tracker, "cold:" + index);
+			boolean hot = add(tracker, "hot:1");
+			Assertions.assertEquals(index >= 49, hot);
+		}
+		List<HotKey<String>> hotKeys = tracker.hotKeys();
+		Assertions.assertEquals(1, hotKeys.size());
+		Assertions.assertEquals("hot:1", hotKeys.get(0).getKey());
+		Assertions.assertEquals(100, hotKeys.get(0).getCount());
+		Assertions.assertEquals(List.of("cold:", "hot:"),
+				tracker.hotPrefixes().stream().map(HotKey::getKey).sorted().collect(Collectors.toList()));
+	}
+
+	@Test
+	void decay() throws InterruptedException {
+		HotKeyTracker<String> tracker = new HotKeyTracker<>(10, 10, Duration.ofMillis(100));
+		for (int index = 0; index < 15; index++) {
+			add(tracker, "key");
+		}
+		Assertions.assertEquals(1, tracker.hotKeys().size());
+		Thread.sleep(150);
+		Assertions.assertFalse(add(tracker, "key"));
+		Assertions.assertTrue(tracker.hotKeys().isEmpty());
+	}
+
+	@Test
+	void sketchWidth() {
+		Assertions.assertEquals(1, CountMinSketch.width(0, 10));
+		Assertions.assertEquals(32, CountMinSketch.width(100, 10));
+		Assertions.assertEquals(CountMinSketch.MAX_WIDTH, CountMinSketch.width(Long.MAX_VALUE, 1));
+		HotKeyTracker<String> tracker = new HotKeyTracker<>(10, 10, Duration.ofHours(1));
+		for (int index = 0; index < 100000; index++) {
+			add(tracker, "key" + index);
+		}
+		Assertions.assertEquals(CountMinSketch.DEFAULT_WIDTH, tracker.getSketchWidth());
+		tracker.decay();
+		Assertions.assertEquals(1 << 16, tracker.getSketchWidth());
+	}
+
+	@Test
+	void listener() {
+		HotKeyTracker<String> tracker = new HotKeyTracker<>(10, 10, Duration.ofHours(1));
+		List<List<HotKey<String>>> published = new ArrayList<>();
+		tracker.setListener(published::add);
+		for (int index = 0; index < 20; index++) {
+			add(tracker, "key");
+		}
+		tracker.decay();
+		Assertions.assertEquals(1, published.size());
+		Assertions.assertEquals("key", published.get(0).get(0).getKey());
+		Assertions.assertEquals(10, published.get(0).get(0).getCount());
+	}
+
+}
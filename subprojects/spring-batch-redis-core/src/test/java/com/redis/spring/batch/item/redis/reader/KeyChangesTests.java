@@ -0,0 +1,103 @@
+package com.redis.spring.batch.item.redis.reader;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.redis.spring.batch.item.redis.common.KeyChange;
+
+import io.lettuce.core.codec.StringCodec;
+
+class KeyChangesTests {
+
+	private static KeyChange take(KeyChanges<String> changes, String key) {
+		KeyChanges.Change<String> change = changes.take(key);
+		return change == null ? null : change.getType();
+	}
+
+	@Test
+	void metadataEvents() {
+		KeyChanges<String> changes = new KeyChanges<>(StringCodec.UTF8);
+		changes.event("key1", KeyEvent.of("expired"), false);
+		changes.event("key2", KeyEvent.of("expire"), false);
+		changes.event("key2", KeyEvent.of("persist"), true);
+		changes.event("key3", KeyEvent.of("set"), false);
+		Assertions.assertEquals(KeyChange.DELETE, take(changes, "key1"));
+		Assertions.assertEquals(KeyChange.TTL, take(changes, "key2"));
+		Assertions.assertNull(take(changes, "key3"));
+		Assertions.assertEquals(0, changes.size());
+	}
+
+	@Test
+	void merge() {
+		KeyChanges<String> changes = new KeyChanges<>(StringCodec.UTF8);
+		// Value changed: TTL change alone is not enough
+		changes.event("key1", KeyEvent.of("set"), false);
+		changes.event("key1", KeyEvent.of("expire"), true);
+		Assertions.assertNull(take(changes, "key1"));
+		// Deletion overrides earlier changes
+		changes.event("key2", KeyEvent.of("expire"), false);
+		changes.event("key2", KeyEvent.of("del"), true);
+		Assertions.assertEquals(KeyChange.DELETE, take(changes, "key2"));
+		// Recreated after deletion
+		changes.event("key3", KeyEvent.of("del"), false);
+		changes.event("key3", KeyEvent.of("hset"), true);
+		Assertions.assertNull(take(changes, "key3"));
+		// Dropped key must be read in full
+		changes.event("key4", KeyEvent.of("expire"), false);
+		changes.reset("key4");
+		Assertions.assertNull(take(changes, "key4"));
+	}
+
+	private static KeyChanges<String> renames() {
+		KeyChanges<String> changes = new KeyChanges<>(StringCodec.UTF8);
+		changes.setRenames(true);
+		return changes;
+	}
+
+	private static String rename(KeyChanges<String> changes, String from, String to) {
+		changes.event(from, KeyEvent.of("rename_from"), false);
+		Assertions.assertNull(changes.renamed(from, KeyEvent.of("rename_from"), true));
+		changes.event(to, KeyEvent.of("rename_to"), false);
+		return changes.renamed(to, KeyEvent.of("rename_to"), true);
+	}
+
+	@Test
+	void rename() {
+		KeyChanges<String> changes = renames();
+		Assertions.assertEquals("{user}:old", rename(changes, "{user}:old", "{user}:new"));
+		Assertions.assertNull(changes.take("{user}:old"));
+		KeyChanges.Change<String> change = changes.take("{user}:new");
+		Assertions.assertEquals(KeyChange.RENAME, change.getType());
+		Assertions.assertEquals("{user}:old", change.getRenamedFrom());
+		// Old key was already queued with a pending write: not paired
+		changes.event("{user}:old", KeyEvent.of("rename_from"), true);
+		Assertions.assertNull(changes.renamed("{user}:old", KeyEvent.of("rename_from"), false));
+		changes.event("{user}:new", KeyEvent.of("rename_to"), false);
+		Assertions.assertNull(changes.renamed("{user}:new", KeyEvent.of("rename_to"), true));
+		Assertions.assertNull(take(changes, "{user}:new"));
+	}
+
+	@Test
+	void renameAcrossSlots() {
+		KeyChanges<String> changes = renames();
+		Assertions.assertNull(rename(changes, "old", "new"));
+		// Old key is deleted and the new key read in full
+		Assertions.assertEquals(KeyChange.DELETE, take(changes, "old"));
+		Assertions.assertNull(take(changes, "new"));
+	}
+
+	@Test
+	void fallback() {
+		KeyChanges<String> changes = renames();
+		List<String> keys = new ArrayList<>();
+		changes.setFallback(keys::add);
+		rename(changes, "{user}:old", "{user}:new");
+		changes.fallback("{user}:new");
+		Assertions.assertEquals(List.of("{user}:new"), keys);
+		Assertions.assertNull(take(changes, "{user}:new"));
+	}
+
+}
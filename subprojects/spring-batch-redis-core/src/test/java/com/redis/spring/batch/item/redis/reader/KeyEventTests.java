@@ -0,0 +1,39 @@
+package com.redis.spring.batch.item.redis.reader;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.redis.spring.batch.item.redis.common.DataType;
+
+class KeyEventTests {
+
+	@Test
+	void interned() {
+		Assertions.assertSame(KeyEvent.of("set"), KeyEvent.of("SET"));
+		Assertions.assertEquals(DataType.STRING, KeyEvent.of("set").getType());
+		Assertions.assertEquals(DataType.ZSET, KeyEvent.of("zadd").getType());
+		Assertions.assertEquals(DataType.HASH, KeyEvent.of("hincrbyfloat").getType());
+		Assertions.assertEquals(DataType.NONE, KeyEvent.of("del").getType());
+		Assertions.assertEquals(DataType.JSON, KeyEvent.of("json.set").getType());
+	}
+
+	@Test
+	void channelSuffix() {
+		byte[] channel = "__keyevent@0__:lpush".getBytes(StandardCharsets.UTF_8);
+		KeyEvent event = KeyEvent.of(channel, 15, channel.length - 15);
+		Assertions.assertSame(KeyEvent.of("lpush"), event);
+		Assertions.assertEquals(DataType.LIST, event.getType());
+	}
+
+	@Test
+	void unknown() {
+		Assertions.assertEquals("foo", KeyEvent.of("foo").getName());
+		Assertions.assertEquals(DataType.NONE, KeyEvent.of("foo").getType());
+		Assertions.assertEquals(DataType.STREAM, KeyEvent.of("xgroup-foo").getType());
+		Assertions.assertEquals(DataType.TIMESERIES, KeyEvent.of("ts.foo").getType());
+		Assertions.assertEquals(DataType.JSON, KeyEvent.of("JSON.FOO").getType());
+	}
+
+}
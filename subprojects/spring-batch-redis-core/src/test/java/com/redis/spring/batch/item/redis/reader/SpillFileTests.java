@@ -0,0 +1,100 @@
+package com.redis.spring.batch.item.redis.reader;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SpillFileTests {
+
+	@TempDir
+	Path dir;
+
+	private static ByteBuffer key(String key) {
+		return ByteBuffer.wrap(key.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static String poll(SpillFile file) throws IOException {
+		return file.poll(b -> StandardCharsets.UTF_8.decode(b).toString());
+	}
+
+	@Test
+	void fifo() throws IOException {
+		Path path = dir.resolve("keys.spill");
+		SpillFile file = new SpillFile(path, 1 << 20);
+		file.open();
+		for (int index = 0; index < 1000; index++) {
+			Assertions.assertTrue(file.offer(key("key:" + index)));
+		}
+		Assertions.assertEquals(1000, file.count());
+		for (int index = 0; index < 500; index++) {
+			Assertions.assertEquals("key:" + index, poll(file));
+		}
+		Assertions.assertTrue(file.offer(key("key:1000")));
+		for (int index = 500; index <= 1000; index++) {
+			Assertions.assertEquals("key:" + index, poll(file));
+		}
+		Assertions.assertNull(poll(file));
+		Assertions.assertEquals(0, file.size());
+		file.close();
+		Assertions.assertFalse(Files.exists(path));
+	}
+
+	@Test
+	void capacity() throws IOException {
+		SpillFile file = new SpillFile(dir.resolve("keys.spill"), 25);
+		file.open();
+		Assertions.assertTrue(file.offer(key("0123456")));
+		Assertions.assertTrue(file.offer(key("abcdefg")));
+		Assertions.assertFalse(file.offer(key("x")));
+		Assertions.assertEquals(22, file.size());
+		Assertions.assertEquals("0123456", poll(file));
+		Assertions.assertEquals("abcdefg", poll(file));
+		// Empty file is rewound
+		Assertions.assertTrue(file.offer(key("x")));
+		Assertions.assertEquals("x", poll(file));
+		file.close();
+	}
+
+	@Test
+	void ring() throws IOException {
+		SpillFile file = new SpillFile(dir.resolve("keys.spill"), 25);
+		file.open();
+		Assertions.assertTrue(file.offer(key("0123456")));
+		Assertions.assertTrue(file.offer(key("abcdefg")));
+		Assertions.assertEquals("0123456", poll(file));
+		// Wraps to the space of the record that was read
+		Assertions.assertTrue(file.offer(key("xyz")));
+		Assertions.assertEquals(21, file.size());
+		Assertions.assertFalse(file.offer(key("0123")));
+		Assertions.assertEquals("abcdefg", poll(file));
+		Assertions.assertEquals("xyz", poll(file));
+		Assertions.assertNull(poll(file));
+		Assertions.assertEquals(0, file.size());
+		file.close();
+	}
+
+	@Test
+	void distinct() throws IOException {
+		SpillFile file = new SpillFile(dir.resolve("keys.spill"), 1 << 20);
+		file.open();
+		Assertions.assertTrue(file.offer(key("key:1")));
+		Assertions.assertTrue(file.offer(key("key:2")));
+		Assertions.assertTrue(file.offer(key("key:1")));
+		Assertions.assertEquals(2, file.count());
+		Assertions.assertEquals(18, file.size());
+		Assertions.assertEquals("key:1", poll(file));
+		// Can be spilled again once it has been read
+		Assertions.assertTrue(file.offer(key("key:1")));
+		Assertions.assertEquals("key:2", poll(file));
+		Assertions.assertEquals("key:1", poll(file));
+		Assertions.assertNull(poll(file));
+		file.close();
+	}
+
+}
@@ -0,0 +1,172 @@
+package com.redis.spring.batch.item.redis.writer;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+
+import com.redis.spring.batch.item.redis.common.KeyValue;
+
+class CoalescingItemWriterTests {
+
+	private static KeyValue<byte[], String> keyValue(String key, String value, long time) {
+		KeyValue<byte[], String> keyValue = new KeyValue<>();
+		keyValue.setKey(key.getBytes());
+		keyValue.setValue(value);
+		keyValue.setTime(time);
+		return keyValue;
+	}
+
+	@Test
+	void keepNewest() throws Exception {
+		List<KeyValue<byte[], String>> written = new ArrayList<>();
+		CoalescingItemWriter<byte[], String> writer = new CoalescingItemWriter<>(
+				chunk -> written.addAll(chunk.getItems()));
+		writer.setCheckpointed(false);
+		writer.setWindow(Duration.ofHours(1));
+		writer.open(new ExecutionContext());
+		writer.write(new Chunk<>(Arrays.asList(keyValue("a", "1", 1), keyValue("b", "1", 1), keyValue("a", "3", 3))));
+		writer.write(new Chunk<>(Arrays.asList(keyValue("a", "2", 2), keyValue("b", "2", 2))));
+		Assertions.assertEquals(2, writer.size());
+		Assertions.assertTrue(written.isEmpty());
+		writer.close();
+		Assertions.assertEquals(2, written.size());
+		Assertions.assertArrayEquals("a".getBytes(), written.get(0).getKey());
+		Assertions.assertEquals("3", written.get(0).getValue());
+		Assertions.assertEquals("2", written.get(1).getValue());
+	}
+
+	@Test
+	void flushOnMaxSize() throws Exception {
+		List<KeyValue<byte[], String>> written = new ArrayList<>();
+		CoalescingItemWriter<byte[], String> writer = new CoalescingItemWriter<>(
+				chunk -> written.addAll(chunk.getItems()));
+		writer.setCheckpointed(false);
+		writer.setWindow(Duration.ofHours(1));
+		writer.setMaxSize(2);
+		writer.open(new ExecutionContext());
+		writer.write(new Chunk<>(Arrays.asList(keyValue("a", "1", 1), keyValue("a", "2", 2))));
+		Assertions.assertTrue(written.isEmpty());
+		writer.write(new Chunk<>(Arrays.asList(keyValue("b", "1", 1))));
+		Assertions.assertEquals(2, written.size());
+		Assertions.assertEquals(0, writer.size());
+		writer.close();
+	}
+
+	@Test
+	void flushOnWindow() throws Exception {
+		List<KeyValue<byte[], String>> written = new ArrayList<>();
+		CoalescingItemWriter<byte[], String> writer = new CoalescingItemWriter<>(
+				chunk -> written.addAll(chunk.getItems()));
+		writer.setCheckpointed(false);
+		writer.setWindow(Duration.ofMillis(10));
+		writer.open(new ExecutionContext());
+		writer.write(new Chunk<>(Arrays.asList(keyValue("a", "1", 1))));
+		long deadline = System.currentTimeMillis() + 5000;
+		while (writer.size() > 0 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		writer.close();
+		Assertions.assertEquals(1, written.size());
+	}
+
+	@Test
+	void keepItemsOnFailure() throws Exception {
+		List<KeyValue<byte[], String>> written = new ArrayList<>();
+		AtomicInteger failures = new AtomicInteger(1);
+		CoalescingItemWriter<byte[], String> writer = new CoalescingItemWriter<>(chunk -> {
+			if (failures.getAndDecrement() > 0) {
+				throw new IllegalStateException("Write failed");
+			}
+			written.addAll(chunk.getItems());
+		});
+		writer.setCheckpointed(false);
+		writer.setWindow(Duration.ofHours(1));
+		writer.setMaxSize(2);
+		writer.open(new ExecutionContext());
+		Chunk<KeyValue<byte[], String>> chunk = new Chunk<>(
+				Arrays.asList(keyValue("a", "1", 1), keyValue("b", "1", 1)));
+		Assertions.assertThrows(IllegalStateException.class, () -> writer.write(chunk));
+		Assertions.assertEquals(2, writer.size());
+		// Failed items are retried before the new ones are taken
+		writer.write(new Chunk<>(Arrays.asList(keyValue("a", "2", 2))));
+		Assertions.assertEquals(2, written.size());
+		Assertions.assertEquals("1", written.get(0).getValue());
+		Assertions.assertEquals(1, writer.size());
+		writer.close();
+		Assertions.assertEquals("2", written.get(2).getValue());
+	}
+
+	@Test
+	void checkpointed() throws Exception {
+		List<KeyValue<byte[], String>> written = new ArrayList<>();
+		CoalescingItemWriter<byte[], String> writer = new CoalescingItemWriter<>(
+				chunk -> written.addAll(chunk.getItems()));
+		writer.open(new ExecutionContext());
+		writer.write(new Chunk<>(Arrays.asList(keyValue("a", "1", 1), keyValue("a", "2", 2))));
+		Assertions.assertEquals(0, writer.size());
+		Assertions.assertEquals(1, written.size());
+		Assertions.assertEquals("2", written.get(0).getValue());
+		writer.close();
+	}
+
+	@Test
+	void bounded() throws Exception {
+		CoalescingItemWriter<byte[], String> writer = new CoalescingItemWriter<>(chunk -> {
+			throw new IllegalStateException("Write failed");
+		});
+		writer.setCheckpointed(false);
+		writer.setWindow(Duration.ofHours(1));
+		writer.setMaxSize(2);
+		writer.open(new ExecutionContext());
+		for (int index = 0; index < 10; index++) {
+			Chunk<KeyValue<byte[], String>> chunk = new Chunk<>(
+					Arrays.asList(keyValue("a" + index, "1", 1), keyValue("b" + index, "1", 1)));
+			Assertions.assertThrows(IllegalStateException.class, () -> writer.write(chunk));
+		}
+		Assertions.assertEquals(2, writer.size());
+		Assertions.assertThrows(ItemStreamException.class, writer::close);
+	}
+
+	@Test
+	void closeRethrowsFailure() throws Exception {
+		CoalescingItemWriter<byte[], String> writer = new CoalescingItemWriter<>(chunk -> {
+			throw new IllegalStateException("Write failed");
+		});
+		writer.setCheckpointed(false);
+		writer.setWindow(Duration.ofHours(1));
+		writer.open(new ExecutionContext());
+		writer.write(new Chunk<>(Arrays.asList(keyValue("a", "1", 1))));
+		Assertions.assertThrows(ItemStreamException.class, writer::close);
+	}
+
+	@Test
+	void retryTimedFlush() throws Exception {
+		List<KeyValue<byte[], String>> written = new ArrayList<>();
+		AtomicInteger failures = new AtomicInteger(2);
+		CoalescingItemWriter<byte[], String> writer = new CoalescingItemWriter<>(chunk -> {
+			if (failures.getAndDecrement() > 0) {
+				throw new IllegalStateException("Write failed");
+			}
+			written.addAll(chunk.getItems());
+		});
+		writer.setCheckpointed(false);
+		writer.setWindow(Duration.ofMillis(10));
+		writer.open(new ExecutionContext());
+		writer.write(new Chunk<>(Arrays.asList(keyValue("a", "1", 1))));
+		long deadline = System.currentTimeMillis() + 5000;
+		while (writer.size() > 0 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		Assertions.assertEquals(1, written.size());
+		writer.close();
+	}
+
+}
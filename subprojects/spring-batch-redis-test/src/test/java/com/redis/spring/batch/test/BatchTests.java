@@ -4,6 +4,8 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
@@ -26,6 +28,7 @@ import java.util.stream.IntStream;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInfo;
+import org.junit.jupiter.api.io.TempDir;
 import org.junit.runner.RunWith;
 import org.springframework.batch.core.JobExecution;
 import org.springframework.batch.core.step.builder.SimpleStepBuilder;
@@ -54,20 +57,26 @@ import com.redis.spring.batch.item.redis.RedisItemReader;
 import com.redis.spring.batch.item.redis.RedisItemReader.ReaderMode;
 import com.redis.spring.batch.item.redis.RedisItemWriter;
 import com.redis.spring.batch.item.redis.common.BatchUtils;
+import com.redis.spring.batch.item.redis.common.ClusterOperationExecutor;
 import com.redis.spring.batch.item.redis.common.DataType;
 import com.redis.spring.batch.item.redis.common.KeyValue;
 import com.redis.spring.batch.item.redis.gen.GeneratorItemReader;
+import com.redis.spring.batch.item.redis.gen.GeneratorOptions;
 import com.redis.spring.batch.item.redis.gen.TimeSeriesOptions;
 import com.redis.spring.batch.item.redis.reader.DefaultKeyComparator;
+import com.redis.spring.batch.item.redis.reader.DigestIndex;
 import com.redis.spring.batch.item.redis.reader.Evalsha;
 import com.redis.spring.batch.item.redis.reader.KeyComparison;
 import com.redis.spring.batch.item.redis.reader.KeyComparison.Status;
 import com.redis.spring.batch.item.redis.reader.KeyComparisonItemReader;
 import com.redis.spring.batch.item.redis.reader.KeyNotificationItemReader;
+import com.redis.spring.batch.item.redis.reader.KeyNotificationSource;
 import com.redis.spring.batch.item.redis.reader.KeyScanNotificationItemReader;
 import com.redis.spring.batch.item.redis.reader.KeyValueRead;
 import com.redis.spring.batch.item.redis.reader.StreamItemReader;
 import com.redis.spring.batch.item.redis.reader.StreamItemReader.AckPolicy;
+import com.redis.spring.batch.item.redis.writer.KeyValueRestore;
+import com.redis.spring.batch.item.redis.writer.operation.Del;
 import com.redis.spring.batch.item.redis.writer.operation.Geoadd;
 import com.redis.spring.batch.item.redis.writer.operation.Hset;
 import com.redis.spring.batch.item.redis.writer.operation.JsonDel;
@@ -88,6 +97,7 @@ import io.lettuce.core.XAddArgs;
 import io.lettuce.core.codec.ByteArrayCodec;
 import io.lettuce.core.codec.StringCodec;
 import io.lettuce.core.models.stream.PendingMessages;
+import io.netty.buffer.ByteBuf;
 
 @SpringBootTest(classes = BatchTestApplication.class)
 @RunWith(SpringRunner.class)
@@ -597,6 +607,71 @@ abstract class BatchTests extends AbstractTargetTestBase {
 		replicate(info, dumpReader(info), writer);
 	}
 
+	@Test
+	void replicateDumpBuffer(TestInfo info) throws Exception {
+		GeneratorItemReader gen = generator(100);
+		generate(info, gen);
+		RedisItemReader<byte[], byte[], ByteBuf> reader = RedisItemReader.dumpBuffer();
+		configure(info, reader);
+		RedisItemWriter<byte[], ByteBuf, KeyValue<byte[], ByteBuf>> writer = RedisItemWriter.dumpBuffer();
+		writer.setClient(targetRedisClient);
+		run(testInfo(info, "replicate"), reader, writer);
+		awaitUntil(reader::isComplete);
+		KeyspaceComparison<String> comparison = compare(testInfo(info, "replicate"));
+		Assertions.assertEquals(Collections.emptyList(), comparison.mismatches());
+	}
+
+	@Test
+	void replicateDumpSkipUnchanged(TestInfo info) throws Exception {
+		GeneratorItemReader gen = generator(100);
+		generate(info, gen);
+		RedisItemWriter<byte[], byte[], KeyValue<byte[], byte[]>> writer = RedisItemWriter.dump();
+		writer.setClient(targetRedisClient);
+		replicate(info, dumpReader(info), writer);
+		redisCommands.set("gen:1", "changed");
+		targetRedisCommands.pexpire("gen:2", 1000000);
+		RedisItemWriter<byte[], byte[], KeyValue<byte[], byte[]>> skipWriter = RedisItemWriter.dump();
+		((KeyValueRestore<byte[], byte[]>) skipWriter.getOperation()).setSkipUnchanged(true);
+		skipWriter.setClient(targetRedisClient);
+		replicate(testInfo(info, "skip"), dumpReader(testInfo(info, "skip")), skipWriter);
+		Assertions.assertEquals("changed", targetRedisCommands.get("gen:1"));
+	}
+
+	@Test
+	void replicateDumpIncremental(TestInfo info, @TempDir Path dir) throws Exception {
+		GeneratorItemReader gen = generator(100);
+		generate(info, gen);
+		redisCommands.psetex("ttl:1", 100000, "value");
+		DigestIndex index = new DigestIndex(dir.resolve("digests"));
+		RedisItemReader<byte[], byte[], byte[]> reader = RedisItemReader.dump(index);
+		configure(info, reader);
+		RedisItemWriter<byte[], byte[], KeyValue<byte[], byte[]>> writer = RedisItemWriter.dump();
+		writer.setClient(targetRedisClient);
+		writer.setDigestIndex(index);
+		replicate(info, reader, writer);
+		Assertions.assertTrue(Files.exists(index.getFile()));
+		redisCommands.set("gen:1", "changed");
+		redisCommands.del("gen:2");
+		TestInfo incrementalInfo = testInfo(info, "incremental");
+		RedisItemReader<byte[], byte[], byte[]> incrementalReader = RedisItemReader.dump(index);
+		configure(incrementalInfo, incrementalReader);
+		RedisItemWriter<byte[], byte[], KeyValue<byte[], byte[]>> incrementalWriter = RedisItemWriter.dump();
+		incrementalWriter.setClient(targetRedisClient);
+		incrementalWriter.setDigestIndex(index);
+		replicate(incrementalInfo, incrementalReader, incrementalWriter);
+		Assertions.assertEquals("changed", targetRedisCommands.get("gen:1"));
+		Assertions.assertEquals(0, targetRedisCommands.exists("gen:2"));
+		// Keys written by previous runs, including keys with a TTL, are unchanged
+		TestInfo unchangedInfo = testInfo(info, "unchanged");
+		RedisItemReader<byte[], byte[], byte[]> unchangedReader = RedisItemReader.dump(index);
+		configure(unchangedInfo, unchangedReader);
+		RedisItemWriter<byte[], byte[], KeyValue<byte[], byte[]>> unchangedWriter = RedisItemWriter.dump();
+		unchangedWriter.setClient(targetRedisClient);
+		unchangedWriter.setDigestIndex(index);
+		JobExecution execution = run(unchangedInfo, unchangedReader, unchangedWriter);
+		Assertions.assertEquals(0, execution.getStepExecutions().iterator().next().getWriteCount());
+	}
+
 	protected <K, V, T> void replicate(TestInfo info, RedisItemReader<K, V, T> reader,
 			RedisItemWriter<K, V, KeyValue<K, T>> writer) throws Exception {
 		run(testInfo(info, "replicate"), reader, writer);
@@ -702,6 +777,73 @@ abstract class BatchTests extends AbstractTargetTestBase {
 		assertEquals("Insufficient replication level (0/1)", exceptions.get(0).getCause().getMessage());
 	}
 
+	@Test
+	void writeWaitGroup(TestInfo info) throws Exception {
+		List<KeyValue<String, Map<String, String>>> items = IntStream.range(0, 5).mapToObj(index -> {
+			KeyValue<String, Map<String, String>> item = new KeyValue<>();
+			item.setKey("key:" + index);
+			item.setValue(map("field1", "value1", "field2", "value2"));
+			return item;
+		}).collect(Collectors.toList());
+		ListItemReader<KeyValue<String, Map<String, String>>> reader = new ListItemReader<>(items);
+		Hset<String, String, KeyValue<String, Map<String, String>>> hset = new Hset<>(KeyValue::getKey,
+				KeyValue::getValue);
+		RedisItemWriter<String, String, KeyValue<String, Map<String, String>>> writer = writer(hset);
+		writer.setWaitReplicas(1);
+		writer.setWaitTimeout(Duration.ofMillis(300));
+		writer.setWaitGroupSize(10);
+		SimpleStepBuilder<KeyValue<String, Map<String, String>>, KeyValue<String, Map<String, String>>> step = step(
+				info, 1, reader, null, writer);
+		JobExecution execution = run(job(info).start(step.build()).build());
+		List<Throwable> exceptions = execution.getAllFailureExceptions();
+		assertEquals("Insufficient replication level (0/1)", exceptions.get(0).getCause().getMessage());
+		// No chunk is acknowledged before the WAIT of its group has succeeded
+		Assertions.assertEquals(0, execution.getStepExecutions().iterator().next().getWriteCount());
+	}
+
+	@Test
+	void clusterOperationExecutor(TestInfo info) throws Exception {
+		List<String> keys = IntStream.range(0, 100).mapToObj(index -> "key:" + index).collect(Collectors.toList());
+		keys.forEach(key -> redisCommands.set(key, "value"));
+		ClusterOperationExecutor<String, String, String, KeyValue<String, Object>> executor = new ClusterOperationExecutor<>(
+				StringCodec.UTF8, KeyValueRead.type(StringCodec.UTF8), Function.identity());
+		executor.setClient(redisClient);
+		executor.open(new ExecutionContext());
+		try {
+			// Keys span every node: results come back in input order
+			List<KeyValue<String, Object>> results = executor.process(keys);
+			Assertions.assertEquals(keys, results.stream().map(KeyValue::getKey).collect(Collectors.toList()));
+			results.forEach(result -> Assertions.assertEquals(DataType.STRING, KeyValue.type(result)));
+		} finally {
+			executor.close();
+		}
+		ClusterOperationExecutor<String, String, String, Object> del = new ClusterOperationExecutor<>(
+				StringCodec.UTF8, new Del<>(Function.identity()), Function.identity());
+		del.setClient(redisClient);
+		del.open(new ExecutionContext());
+		try {
+			// One DEL per slot group: results are per group, not per key
+			List<Object> results = del.process(keys);
+			Assertions.assertTrue(results.size() < keys.size());
+			Assertions.assertEquals(keys.size(), results.stream().mapToLong(Long.class::cast).sum());
+		} finally {
+			del.close();
+		}
+	}
+
+	@Test
+	void writeMultiExecSlots(TestInfo info) throws Exception {
+		int count = 100;
+		GeneratorItemReader reader = generator(count, DataType.HASH, DataType.STRING);
+		RedisItemWriter<String, String, KeyValue<String, Object>> writer = RedisItemWriter.struct();
+		writer.setClient(redisClient);
+		writer.setMultiExec(true);
+		// Chunks span many slots: each transaction must stay within one slot
+		JobExecution execution = run(info, reader, writer);
+		Assertions.assertTrue(execution.getAllFailureExceptions().isEmpty());
+		Assertions.assertEquals(count, keyCount(GeneratorOptions.DEFAULT_KEYSPACE + "*"));
+	}
+
 	private <K, V, T> void replicateLive(TestInfo info, RedisItemReader<K, V, T> reader,
 			RedisItemWriter<K, V, KeyValue<K, T>> writer) throws Exception {
 		live(reader);
@@ -757,6 +899,48 @@ abstract class BatchTests extends AbstractTargetTestBase {
 		}
 	}
 
+	@Test
+	void readKeyNotificationsMultiplePatterns() throws Exception {
+		enableKeyspaceNotifications();
+		KeyNotificationItemReader<String, String> keyReader = new KeyNotificationItemReader<>(redisClient,
+				StringCodec.UTF8);
+		keyReader.setKeyPatterns(List.of("user:*", "session:*"));
+		keyReader.setKeyTypes(List.of("string", "hash"));
+		keyReader.open(new ExecutionContext());
+		try {
+			redisCommands.set("user:1", "value");
+			redisCommands.hset("session:1", "field", "value");
+			redisCommands.sadd("session:2", "member");
+			redisCommands.set("order:1", "value");
+			awaitUntil(() -> keyReader.getQueue().size() == 2);
+			Set<String> keys = new HashSet<>();
+			keyReader.getQueue().drainTo(keys);
+			Assertions.assertEquals(Set.of("user:1", "session:1"), keys);
+		} finally {
+			keyReader.close();
+		}
+	}
+
+	@Test
+	void readTrackingNotifications() throws Exception {
+		KeyNotificationItemReader<String, String> keyReader = new KeyNotificationItemReader<>(redisClient,
+				StringCodec.UTF8);
+		keyReader.setSource(KeyNotificationSource.TRACKING);
+		keyReader.setKeyPattern("tracked:[0-4]");
+		keyReader.open(new ExecutionContext());
+		try {
+			IntStream.range(0, 10).forEach(i -> redisCommands.set("tracked:" + i, "value" + i));
+			redisCommands.set("other:1", "value");
+			awaitUntil(() -> keyReader.getQueue().size() == 5);
+			Set<String> keys = new HashSet<>();
+			keyReader.getQueue().drainTo(keys);
+			Assertions.assertEquals(IntStream.range(0, 5).mapToObj(i -> "tracked:" + i).collect(Collectors.toSet()),
+					keys);
+		} finally {
+			keyReader.close();
+		}
+	}
+
 	@Test
 	void replicateDumpLive(TestInfo info) throws Exception {
 		enableKeyspaceNotifications();
@@ -814,6 +998,59 @@ abstract class BatchTests extends AbstractTargetTestBase {
 		assertEquals(redisCommands.smembers(key), targetRedisCommands.smembers(key));
 	}
 
+	@Test
+	void replicateMetadataLiveOnly(TestInfo info) throws Exception {
+		enableKeyspaceNotifications();
+		// Target values differ from the source: keys that are read in full get the
+		// source value, keys written through the metadata path keep the target one
+		for (String key : Arrays.asList("key1", "key2", "key3", "{key}4", "key8")) {
+			redisCommands.set(key, "value-" + key);
+			targetRedisCommands.set(key, "target-" + key);
+		}
+		// Missing on the target: its RENAME falls back to a full read
+		redisCommands.set("{key}6", "value-{key}6");
+		// Missing on the target: its TTL changes fall back to a full read
+		redisCommands.set("key10", "value-key10");
+		redisCommands.set("key11", "value-key11");
+		redisCommands.expire("key11", 3600);
+		redisCommands.expire("key2", 3600);
+		targetRedisCommands.expire("key2", 3600);
+		RedisItemReader<String, String, Object> reader = structReader(info);
+		live(reader);
+		reader.setMode(ReaderMode.LIVEONLY);
+		reader.setSkipMetadataReads(true);
+		RedisItemWriter<String, String, KeyValue<String, Object>> writer = RedisItemWriter.struct();
+		writer.setClient(targetRedisClient);
+		writer.setKeyChanges(reader.getKeyChanges());
+		FlushingStepBuilder<KeyValue<String, Object>, KeyValue<String, Object>> step = flushingStep(info, reader,
+				writer);
+		Executors.newSingleThreadExecutor().execute(() -> {
+			awaitUntilSubscribers();
+			redisCommands.expire("key1", 3600);
+			redisCommands.persist("key2");
+			redisCommands.del("key3");
+			redisCommands.rename("{key}4", "{key}5");
+			redisCommands.rename("{key}6", "{key}7");
+			// Different slots: deletion of the old key and full read of the new one
+			redisCommands.rename("key8", "key9");
+			redisCommands.expire("key10", 3600);
+			redisCommands.persist("key11");
+		});
+		run(info, step);
+		awaitUntilNoSubscribers();
+		Assertions.assertTrue(targetRedisCommands.ttl("key1") > 0);
+		Assertions.assertEquals("target-key1", targetRedisCommands.get("key1"));
+		Assertions.assertEquals(-1, targetRedisCommands.ttl("key2"));
+		Assertions.assertEquals("target-key2", targetRedisCommands.get("key2"));
+		Assertions.assertEquals(0, targetRedisCommands.exists("key3", "{key}4", "{key}6", "key8"));
+		Assertions.assertEquals("target-{key}4", targetRedisCommands.get("{key}5"));
+		Assertions.assertEquals("value-{key}6", targetRedisCommands.get("{key}7"));
+		Assertions.assertEquals("value-key8", targetRedisCommands.get("key9"));
+		Assertions.assertEquals("value-key10", targetRedisCommands.get("key10"));
+		Assertions.assertTrue(targetRedisCommands.ttl("key10") > 0);
+		Assertions.assertEquals("value-key11", targetRedisCommands.get("key11"));
+	}
+
 	@SuppressWarnings("unchecked")
 	@Test
 	void compareBinaryKeyValue(TestInfo info) throws Exception {
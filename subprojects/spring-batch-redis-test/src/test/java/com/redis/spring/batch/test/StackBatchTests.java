@@ -46,6 +46,7 @@ import com.redis.spring.batch.item.redis.reader.KeyComparisonItemReader;
 import com.redis.spring.batch.item.redis.reader.KeyValueRead;
 import com.redis.spring.batch.item.redis.reader.StreamItemReader;
 import com.redis.spring.batch.item.redis.reader.StreamItemReader.AckPolicy;
+import com.redis.spring.batch.item.redis.writer.KeyValueWrite;
 import com.redis.spring.batch.item.redis.writer.KeyValueWrite.WriteMode;
 import com.redis.spring.batch.item.redis.writer.operation.Del;
 import com.redis.spring.batch.item.redis.writer.operation.Expire;
@@ -340,6 +341,46 @@ class StackBatchTests extends BatchTests {
 		replicate(info, reader, writer);
 	}
 
+	@Test
+	void replicateStructFusion(TestInfo info) throws Exception {
+		GeneratorItemReader gen = generator(100);
+		gen.getOptions().setExpiration(Range.of(100000));
+		generate(info, gen);
+		RedisItemReader<String, String, Object> reader = structReader(info);
+		KeyValueWrite<String, String> operation = new KeyValueWrite<>();
+		operation.setFusion(true);
+		RedisItemWriter<String, String, KeyValue<String, Object>> writer = RedisItemWriter.operation(operation);
+		writer.setClient(targetRedisClient);
+		replicate(info, reader, writer);
+		// Writes to a key that appears more than once in a chunk are applied in
+		// chunk order
+		List<KeyValue<String, Object>> items = new ArrayList<>();
+		items.add(fusionItem("fusion:1", DataType.STRING, "value1", 100000));
+		items.add(fusionItem("fusion:1", DataType.STRING, "value2", 0));
+		items.add(fusionItem("fusion:2", DataType.STRING, "value1", 0));
+		items.add(fusionItem("fusion:2", DataType.STRING, "value2", 100000));
+		items.add(fusionItem("fusion:3", DataType.HASH, map("field1", "value1"), 0));
+		items.add(fusionItem("fusion:3", DataType.STRING, "value3", 0));
+		writer = RedisItemWriter.operation(operation);
+		writer.setClient(targetRedisClient);
+		run(new SimpleTestInfo(info, "fusion"), new ListItemReader<>(items), writer);
+		Assertions.assertEquals("value2", targetRedisCommands.get("fusion:1"));
+		Assertions.assertEquals(-1, targetRedisCommands.ttl("fusion:1"));
+		Assertions.assertEquals("value2", targetRedisCommands.get("fusion:2"));
+		Assertions.assertTrue(targetRedisCommands.ttl("fusion:2") > 0);
+		Assertions.assertEquals("value3", targetRedisCommands.get("fusion:3"));
+	}
+
+	private static KeyValue<String, Object> fusionItem(String key, DataType type, Object value, long ttl) {
+		KeyValue<String, Object> item = new KeyValue<>();
+		item.setKey(key);
+		item.setType(type.getString());
+		item.setValue(value);
+		item.setTime(System.currentTimeMillis());
+		item.setTtl(ttl);
+		return item;
+	}
+
 	private static FlowBuilder<SimpleFlow> flow(String name) {
 		return new FlowBuilder<>(name);
 	}
@@ -539,6 +580,61 @@ class StackBatchTests extends BatchTests {
 		assertEquals(redisCommands.hgetall("gen:1"), targetRedisCommands.hgetall("gen:1"));
 	}
 
+	@Test
+	void writeStructDeltaMultiExec() {
+		RedisItemWriter<String, String, KeyValue<String, Object>> writer = RedisItemWriter.delta();
+		writer.setClient(targetRedisClient);
+		writer.setMultiExec(true);
+		Assertions.assertThrows(IllegalArgumentException.class, () -> writer.open(new ExecutionContext()));
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	void writeStructDeltaDigest(TestInfo info) throws Exception {
+		generate(info, generator(100, DataType.SET, DataType.ZSET, DataType.LIST));
+		redisCommands.sadd("delta:set", "a", "b", "c");
+		redisCommands.zadd("delta:zset", 1, "a", 2, "b");
+		redisCommands.rpush("delta:list", "a", "b");
+		redisCommands.sadd("delta:type", "a");
+		RedisItemWriter<String, String, KeyValue<String, Object>> writer = RedisItemWriter.delta();
+		writer.setClient(targetRedisClient);
+		RedisItemReader<String, String, Object> reader = structReader(info);
+		((KeyValueRead<String, String, Object>) reader.getOperation()).setDigest(true);
+		replicate(info, reader, writer);
+		redisCommands.srem("delta:set", "a");
+		redisCommands.sadd("delta:set", "d");
+		redisCommands.zadd("delta:zset", 3, "a");
+		redisCommands.rpush("delta:list", "c");
+		redisCommands.del("delta:type");
+		redisCommands.set("delta:type", "value");
+		RedisItemReader<String, String, Object> deltaReader = structReader(info, "delta");
+		((KeyValueRead<String, String, Object>) deltaReader.getOperation()).setDigest(true);
+		RedisItemWriter<String, String, KeyValue<String, Object>> deltaWriter = RedisItemWriter.delta();
+		deltaWriter.setClient(targetRedisClient);
+		replicate(testInfo(info, "delta"), deltaReader, deltaWriter);
+		assertEquals(redisCommands.smembers("delta:set"), targetRedisCommands.smembers("delta:set"));
+		assertEquals(redisCommands.zrangeWithScores("delta:zset", 0, -1),
+				targetRedisCommands.zrangeWithScores("delta:zset", 0, -1));
+		assertEquals(redisCommands.lrange("delta:list", 0, -1), targetRedisCommands.lrange("delta:list", 0, -1));
+		assertEquals("value", targetRedisCommands.get("delta:type"));
+	}
+
+	@Test
+	void writeStructOverwriteBatched(TestInfo info) throws Exception {
+		GeneratorItemReader gen1 = generator(100, DataType.HASH);
+		gen1.getOptions().setHashOptions(hashOptions(Range.of(50)));
+		generate(info, gen1);
+		GeneratorItemReader gen2 = generator(100, DataType.HASH);
+		gen2.getOptions().setHashOptions(hashOptions(Range.of(70)));
+		generate(testInfo(info, "target"), targetRedisClient, gen2);
+		KeyValueWrite<String, String> operation = KeyValueWrite.create(WriteMode.OVERWRITE);
+		operation.setBatchSize(7);
+		RedisItemWriter<String, String, KeyValue<String, Object>> writer = RedisItemWriter.operation(operation);
+		writer.setClient(targetRedisClient);
+		replicate(info, structReader(info), writer);
+		assertEquals(redisCommands.hgetall("gen:1"), targetRedisCommands.hgetall("gen:1"));
+	}
+
 	@Test
 	void writeStructMerge(TestInfo info) throws Exception {
 		GeneratorItemReader gen1 = generator(100, DataType.HASH);
@@ -555,6 +651,20 @@ class StackBatchTests extends BatchTests {
 		assertEquals(10, actual.size());
 	}
 
+	@Test
+	void writeStructDelta(TestInfo info) throws Exception {
+		GeneratorItemReader gen1 = generator(100, DataType.HASH);
+		gen1.getOptions().setHashOptions(hashOptions(Range.of(5)));
+		generate(info, gen1);
+		GeneratorItemReader gen2 = generator(100, DataType.HASH);
+		gen2.getOptions().setHashOptions(hashOptions(Range.of(10)));
+		generate(testInfo(info, "target"), targetRedisClient, gen2);
+		RedisItemWriter<String, String, KeyValue<String, Object>> writer = RedisItemWriter.delta();
+		writer.setClient(targetRedisClient);
+		replicate(info, structReader(info), writer);
+		assertEquals(redisCommands.hgetall("gen:1"), targetRedisCommands.hgetall("gen:1"));
+	}
+
 	@Test
 	void compareStreams(TestInfo info) throws Exception {
 		GeneratorItemReader gen = generator(10);